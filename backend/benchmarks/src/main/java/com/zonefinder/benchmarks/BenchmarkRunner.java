@@ -0,0 +1,41 @@
+package com.zonefinder.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes JSON results for {@link RegressionCheck}
+ *
+ * Takes the usual JMH options, e.g. a benchmark regex or "-f 1 -wi 2 -i 3":
+ * java -jar benchmarks/target/benchmarks.jar [jmh options]
+ *
+ * The suites default to 3 forks of 10 measured iterations, which the baseline
+ * is recorded with; fewer give confidence intervals too wide to gate on, so
+ * shorter runs are only for a quick local look.
+ *
+ * Results go to target/jmh-result.json unless "-rff" says otherwise.
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            // Listing and help are handled by the stock JMH main
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder()
+            .parent(commandLine)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(commandLine.getResult().orElse(DEFAULT_RESULT))
+            .build();
+        new Runner(options).run();
+    }
+}
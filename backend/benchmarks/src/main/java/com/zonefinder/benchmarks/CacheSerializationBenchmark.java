@@ -0,0 +1,80 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.cache.CacheEntry;
+import com.zonefinder.cache.LookupCacheSerializer;
+import com.zonefinder.domain.ZoneLookupResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis (de)serialization of cached lookups: the compact codec vs. JDK and
+ * JSON (Spring Data's default-typed Jackson) serialization
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class CacheSerializationBenchmark {
+
+    @Param({"compact", "jdk", "json"})
+    public String codec;
+
+    private RedisSerializer<Object> serializer;
+    private CacheEntry entry;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = switch (codec) {
+            case "compact" -> new LookupCacheSerializer();
+            case "jdk" -> new JdkSerializationRedisSerializer();
+            case "json" -> new GenericJackson2JsonRedisSerializer();
+            default -> throw new IllegalArgumentException("Unknown codec: " + codec);
+        };
+        ZoneLookupResult result = ZoneLookupResult.builder()
+            .postcode("SW1A 1AA")
+            .zone("Zone 1")
+            .zoneNumber(1)
+            .area("Westminster")
+            .latitude(51.501009)
+            .longitude(-0.141588)
+            .distanceFromCentreKm(1.02)
+            .fareInfo(ZoneLookupResult.FareInfo.builder()
+                .peakFare(3.00)
+                .offPeakFare(2.40)
+                .currency("GBP")
+                .build())
+            .build();
+        entry = new CacheEntry(result, System.currentTimeMillis() + 86_400_000L, 42, "3f9a1c0b7e2d");
+        bytes = serializer.serialize(entry);
+        if (!entry.equals(serializer.deserialize(bytes))) {
+            throw new IllegalStateException(codec + " does not round-trip the cache entry");
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(entry);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,68 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.service.PostcodeIndexService;
+import com.zonefinder.service.ZoneDataService;
+import com.zonefinder.service.ZoneDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup cost of the zone dataset: parsing the CSVs vs. mapping a snapshot
+ * compiled into the dataset directory vs. the snapshot bundled in the jar
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class DatasetLoadBenchmark {
+
+    @Param({"csv", "snapshot", "bundled"})
+    public String source;
+
+    private Path directory;
+    private PostcodeIndexService postcodeIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("zone-dataset");
+        Fixtures.copyDataset(directory);
+        if ("snapshot".equals(source)) {
+            ZoneDataService.compileSnapshot(directory, directory.resolve(ZoneDataService.SNAPSHOT_FILE));
+        }
+        postcodeIndex = Fixtures.postcodeIndex(null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public ZoneDataset load() {
+        return Fixtures.zoneDataService(postcodeIndex, "bundled".equals(source) ? "" : directory.toString())
+            .getDataset();
+    }
+}
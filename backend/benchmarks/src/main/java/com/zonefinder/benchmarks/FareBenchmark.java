@@ -0,0 +1,73 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.service.FareService;
+import com.zonefinder.service.FareTariff;
+import com.zonefinder.service.FareTariff.FareType;
+import com.zonefinder.service.FareTariff.TimeBand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare lookups in the dense tariff array, and parsing the bundled tariff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class FareBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    private FareService fareService;
+    private byte[] tariffCsv;
+    private int[] fromZones;
+    private int[] toZones;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        fareService = Fixtures.fareService();
+        try (InputStream input = FareBenchmark.class.getClassLoader().getResourceAsStream("data/tariff.csv")) {
+            tariffCsv = input.readAllBytes();
+        }
+        Random random = new Random(3);
+        fromZones = new int[QUERIES];
+        toZones = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            fromZones[i] = 1 + random.nextInt(9);
+            toZones[i] = 1 + random.nextInt(9);
+        }
+    }
+
+    @Benchmark
+    public int farePence(Cursor cursor) {
+        int i = cursor.next++ & (QUERIES - 1);
+        return fareService.farePence(fromZones[i], toZones[i], (i & 1) == 0 ? TimeBand.PEAK : TimeBand.OFF_PEAK,
+            FareType.PAYG);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public FareTariff parse() throws IOException {
+        return FareTariff.parse(tariffCsv);
+    }
+}
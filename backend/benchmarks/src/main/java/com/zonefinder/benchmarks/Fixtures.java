@@ -0,0 +1,183 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.service.FareService;
+import com.zonefinder.service.PostcodeIndexService;
+import com.zonefinder.service.ZoneDataService;
+import com.zonefinder.util.ZonePolygonIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Services and data for the benchmarks, built without a Spring context
+ *
+ * Postcodes are synthesized from the bundled MyLondon data: every Output Area
+ * gets a few postcodes in its own district, so index and dataset lookups
+ * resolve the same way real London postcodes do.
+ */
+final class Fixtures {
+
+    static final String FARE_ZONE_FILE = "MyLondon_fare_zone_OA.csv";
+    static final String POSTCODE_FILE = "MyLondon_postcode_OA.csv";
+
+    private static final double CENTRE_LAT = 51.5074;
+    private static final double CENTRE_LON = -0.1278;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Zone data service over the bundled dataset
+     * @param postcodeIndex Index used to resolve postcodes to Output Areas
+     */
+    static ZoneDataService zoneDataService(PostcodeIndexService postcodeIndex) {
+        return zoneDataService(postcodeIndex, "");
+    }
+
+    /**
+     * Zone data service reading from a dataset directory, loaded once
+     */
+    static ZoneDataService zoneDataService(PostcodeIndexService postcodeIndex, String directory) {
+        ZoneDataService service = new ZoneDataService(
+            new ClassPathResource("data/" + FARE_ZONE_FILE),
+            new ClassPathResource("data/" + POSTCODE_FILE),
+            directory, Duration.ofSeconds(1), postcodeIndex, null, null);
+        service.reload();
+        return service;
+    }
+
+    /**
+     * Fare service over the bundled tariff, not watching for changes
+     */
+    static FareService fareService() {
+        FareService service = new FareService(new ClassPathResource("data/tariff.csv"), "", Duration.ofSeconds(1));
+        postConstruct(service);
+        return service;
+    }
+
+    /**
+     * Offline index loaded from a CSV written by {@link #writePostcodeIndex}
+     */
+    static PostcodeIndexService postcodeIndex(Path csv) {
+        PostcodeIndexService index = new PostcodeIndexService(csv != null ? csv.toString() : "");
+        postConstruct(index);
+        return index;
+    }
+
+    /**
+     * Write an ONSPD-style index with postcodes per Output Area of the bundled dataset
+     * @return Postcodes written, formatted
+     */
+    static List<String> writePostcodeIndex(Path csv, int perOutputArea) throws IOException {
+        Random random = new Random(42);
+        List<String> postcodes = new ArrayList<>();
+        StringBuilder out = new StringBuilder("pcds,lat,long,admin_district,oa11\n");
+        for (String[] row : readBundled(POSTCODE_FILE)) {
+            for (int i = 0; i < perOutputArea; i++) {
+                String postcode = row[1] + " " + random.nextInt(10)
+                    + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26));
+                postcodes.add(postcode);
+                out.append(postcode).append(',')
+                    .append(String.format(Locale.ROOT, "%.6f", CENTRE_LAT + (random.nextDouble() - 0.5) * 0.4)).append(',')
+                    .append(String.format(Locale.ROOT, "%.6f", CENTRE_LON + (random.nextDouble() - 0.5) * 0.6)).append(',')
+                    .append("Borough ").append(random.nextInt(33)).append(',')
+                    .append(row[0]).append('\n');
+            }
+        }
+        Files.writeString(csv, out, StandardCharsets.UTF_8);
+        return postcodes;
+    }
+
+    /**
+     * Copy the bundled CSVs into a directory, as a dataset directory would hold them
+     */
+    static void copyDataset(Path directory) throws IOException {
+        for (String file : List.of(FARE_ZONE_FILE, POSTCODE_FILE)) {
+            try (InputStream input = new ClassPathResource("data/" + file).getInputStream()) {
+                Files.write(directory.resolve(file), input.readAllBytes());
+            }
+        }
+    }
+
+    /**
+     * Fare zones as concentric rings around central London, each zone a ring
+     * with the inner zone cut out as a hole
+     */
+    static List<ZonePolygonIndex.Polygon> ringZones(int zones, int vertices) {
+        List<ZonePolygonIndex.Polygon> polygons = new ArrayList<>();
+        for (int zone = 1; zone <= zones; zone++) {
+            double[] outer = circle(zone * 0.05, vertices);
+            polygons.add(new ZonePolygonIndex.Polygon(zone,
+                zone == 1 ? new double[][] {outer} : new double[][] {outer, circle((zone - 1) * 0.05, vertices)}));
+        }
+        return polygons;
+    }
+
+    /**
+     * Random points around central London, as lat/lon pairs
+     */
+    static double[] londonPoints(int count, long seed) {
+        Random random = new Random(seed);
+        double[] points = new double[count * 2];
+        for (int i = 0; i < count; i++) {
+            points[2 * i] = CENTRE_LAT + (random.nextDouble() - 0.5) * 0.6;
+            points[2 * i + 1] = CENTRE_LON + (random.nextDouble() - 0.5) * 0.9;
+        }
+        return points;
+    }
+
+    /**
+     * Run a bean's {@link PostConstruct} methods, as the container would
+     */
+    static void postConstruct(Object bean) {
+        for (Method method : bean.getClass().getDeclaredMethods()) {
+            if (method.isAnnotationPresent(PostConstruct.class)) {
+                try {
+                    method.setAccessible(true);
+                    method.invoke(bean);
+                } catch (IllegalAccessException | InvocationTargetException ex) {
+                    throw new IllegalStateException("Failed to initialise " + bean.getClass().getSimpleName(), ex);
+                }
+            }
+        }
+    }
+
+    private static double[] circle(double radius, int vertices) {
+        double[] ring = new double[vertices * 2];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            ring[2 * i] = CENTRE_LON + radius * 1.6 * Math.cos(angle);
+            ring[2 * i + 1] = CENTRE_LAT + radius * Math.sin(angle);
+        }
+        return ring;
+    }
+
+    private static List<String[]> readBundled(String file) {
+        try (InputStream input = new ClassPathResource("data/" + file).getInputStream()) {
+            List<String[]> rows = new ArrayList<>();
+            String[] lines = new String(input.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                String[] columns = lines[i].trim().split(",");
+                if (columns.length >= 2 && !columns[1].isBlank()) {
+                    rows.add(columns);
+                }
+            }
+            return rows;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.util.KdTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-station queries through the k-d tree, for a station list and for
+ * Output Area centroids, and the cost of building it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class KdTreeBenchmark {
+
+    @Param({"650", "25000"})
+    public int points;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private KdTree tree;
+    private double[] queries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        final int[] found = new int[3];
+    }
+
+    @Setup
+    public void setUp() {
+        double[] stations = Fixtures.londonPoints(points, 11);
+        latitudes = new double[points];
+        longitudes = new double[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = stations[2 * i];
+            longitudes[i] = stations[2 * i + 1];
+        }
+        tree = KdTree.build(latitudes, longitudes);
+        queries = Fixtures.londonPoints(1024, 7);
+    }
+
+    @Benchmark
+    public int nearestThree(Cursor cursor) {
+        int i = cursor.next++ & 1023;
+        tree.nearest(queries[2 * i], queries[2 * i + 1], 3, cursor.found);
+        return cursor.found[0];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public KdTree build() {
+        return KdTree.build(latitudes, longitudes);
+    }
+}
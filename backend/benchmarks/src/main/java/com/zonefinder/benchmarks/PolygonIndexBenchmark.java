@@ -0,0 +1,60 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.util.ZonePolygonIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare zone polygon lookups through the grid index, and the cost of building it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class PolygonIndexBenchmark {
+
+    @Param({"256", "1024"})
+    public int resolution;
+
+    private List<ZonePolygonIndex.Polygon> polygons;
+    private ZonePolygonIndex index;
+    private double[] points;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        polygons = Fixtures.ringZones(6, 64);
+        index = ZonePolygonIndex.build(polygons, resolution);
+        points = Fixtures.londonPoints(1024, 7);
+    }
+
+    @Benchmark
+    public int zoneAt(Cursor cursor) {
+        int i = cursor.next++ & 1023;
+        return index.zoneAt(points[2 * i], points[2 * i + 1]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ZonePolygonIndex build() {
+        return ZonePolygonIndex.build(polygons, resolution);
+    }
+}
@@ -0,0 +1,66 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.cache.PostcodeKeyGenerator;
+import com.zonefinder.util.PostcodeKey;
+import com.zonefinder.util.PostcodeValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Postcode validation, normalization and key packing
+ * parse and outcodeOf are expected to report 0 B/op under the gc profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class PostcodeBenchmark {
+
+    // Spellings as they arrive from clients
+    private static final String[] INPUTS = {
+        "SW1A 1AA", "sw1a1aa", " E14 9SH ", "EC1A  1BB", "W1A 0AX", "n1 9gu", "BR1 1AA", "SE10 0DX"
+    };
+
+    private final PostcodeValidator validator = new PostcodeValidator();
+    private int next;
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(input());
+    }
+
+    @Benchmark
+    public String format() {
+        return validator.format(input());
+    }
+
+    @Benchmark
+    public long parse() {
+        return PostcodeKey.parse(input());
+    }
+
+    @Benchmark
+    public int parseOutcode() {
+        return PostcodeKey.outcodeOf(PostcodeKey.parse(input()));
+    }
+
+    @Benchmark
+    public Object canonicalCacheKey() {
+        return PostcodeKeyGenerator.canonical(input());
+    }
+
+    private String input() {
+        return INPUTS[next++ & (INPUTS.length - 1)];
+    }
+}
@@ -0,0 +1,76 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.service.PostcodeFilterService;
+import com.zonefinder.util.PostcodeKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking postcodes against the Bloom filter and negative cache, for
+ * postcodes in the filter and well formed ones that are not
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class PostcodeFilterBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    private PostcodeFilterService filterService;
+    private long[] known;
+    private long[] unknown;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Path csv = Files.createTempFile("postcode-filter", ".csv");
+        List<String> written = Fixtures.writePostcodeIndex(csv, 4);
+        filterService = new PostcodeFilterService(csv.toString(), 0.01, Duration.ofMinutes(10), 100_000, null,
+            new SimpleMeterRegistry());
+        Fixtures.postConstruct(filterService);
+        Files.delete(csv);
+
+        Random random = new Random(5);
+        known = new long[QUERIES];
+        unknown = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            known[i] = PostcodeKey.parse(written.get(random.nextInt(written.size())));
+            // Outcodes no London postcode uses
+            unknown[i] = PostcodeKey.parse("ZZ" + (1 + random.nextInt(99)) + " " + random.nextInt(10)
+                + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)));
+        }
+    }
+
+    @Benchmark
+    public boolean knownPostcode(Cursor cursor) {
+        return filterService.isKnownMissing(known[cursor.next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public boolean unknownPostcode(Cursor cursor) {
+        return filterService.isKnownMissing(unknown[cursor.next++ & (QUERIES - 1)]);
+    }
+}
@@ -0,0 +1,127 @@
+package com.zonefinder.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result against the committed baseline
+ * Exits with status 1 when any benchmark got slower, or allocates more per
+ * operation, by more than the threshold, so CI can fail the build. Scores are
+ * compared by their 99.9% confidence intervals rather than their means: a
+ * result only counts as a regression when its whole interval lies beyond the
+ * threshold from the baseline's, so run-to-run noise does not fail the build.
+ * A result missing from the baseline fails too: adding a suite or a parameter
+ * means regenerating the baseline with every suite, at the suites' default
+ * forks and iterations, on the machine that checks it:
+ * java -jar benchmarks/target/benchmarks.jar -rff benchmarks/baseline.json
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar com.zonefinder.benchmarks.RegressionCheck \
+ *     benchmarks/baseline.json target/jmh-result.json [threshold-percent, default 10]
+ */
+public class RegressionCheck {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // Allocation below this many bytes/op is noise (escape analysis, TLAB refills)
+    private static final double ALLOCATION_FLOOR = 16.0;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: RegressionCheck <baseline.json> <result.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = read(Path.of(args[0]));
+        Map<String, JsonNode> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        int missing = 0;
+        for (Map.Entry<String, JsonNode> result : current.entrySet()) {
+            JsonNode before = baseline.get(result.getKey());
+            if (before == null) {
+                System.out.println("NEW   " + result.getKey());
+                missing++;
+                continue;
+            }
+            JsonNode after = result.getValue();
+            // Throughput should not drop; all other modes report time per operation
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            if (compare(result.getKey(), before.path("primaryMetric"), after.path("primaryMetric"),
+                    higherIsBetter, threshold, 0.0)) {
+                regressions++;
+            }
+            if (compare(result.getKey() + " " + ALLOCATION,
+                    before.path("secondaryMetrics").path(ALLOCATION),
+                    after.path("secondaryMetrics").path(ALLOCATION), false, threshold, ALLOCATION_FLOOR)) {
+                regressions++;
+            }
+        }
+        if (missing > 0) {
+            System.out.println(missing + " result(s) without a baseline; regenerate " + args[0]);
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) over " + threshold + "% beyond the confidence interval");
+        }
+        if (missing > 0 || regressions > 0) {
+            System.exit(1);
+        }
+        System.out.println("No regressions over " + threshold + "%");
+    }
+
+    /**
+     * @return Whether the metric's confidence interval cleared the baseline's by more than the threshold
+     */
+    private static boolean compare(String name, JsonNode before, JsonNode after,
+                                   boolean higherIsBetter, double threshold, double floor) {
+        if (before.isMissingNode() || after.isMissingNode()) {
+            return false;
+        }
+        double was = before.path("score").asDouble();
+        double now = after.path("score").asDouble();
+        if (Math.max(was, now) < floor) {
+            return false;
+        }
+        double[] wasInterval = interval(before);
+        double[] nowInterval = interval(after);
+        double change = was == 0.0 ? (now == 0.0 ? 0.0 : 100.0) : (now - was) / was * 100.0;
+        boolean regressed = higherIsBetter
+            ? nowInterval[1] < wasInterval[0] * (1 - threshold / 100.0)
+            : nowInterval[0] > wasInterval[1] * (1 + threshold / 100.0);
+        System.out.printf(Locale.ROOT, "%s %s: %.3f ± %.3f -> %.3f ± %.3f %s (%+.1f%%)%n",
+            regressed ? "WORSE" : "ok   ", name, was, (wasInterval[1] - wasInterval[0]) / 2,
+            now, (nowInterval[1] - nowInterval[0]) / 2, after.path("scoreUnit").asText(), change);
+        return regressed;
+    }
+
+    // JMH's 99.9% confidence interval of a score; a single measurement has none, so it is the score itself
+    private static double[] interval(JsonNode metric) {
+        double score = metric.path("score").asDouble();
+        JsonNode confidence = metric.path("scoreConfidence");
+        double low = confidence.path(0).asDouble(Double.NaN);
+        double high = confidence.path(1).asDouble(Double.NaN);
+        if (Double.isNaN(low) || Double.isNaN(high)) {
+            return new double[] {score, score};
+        }
+        return new double[] {Math.min(low, score), Math.max(high, score)};
+    }
+
+    /**
+     * Results keyed by benchmark, mode and parameters
+     */
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                .append(" [").append(result.path("mode").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                key.append(", ").append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.append(']').toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,86 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.domain.PostcodeSuggestion;
+import com.zonefinder.service.PostcodeIndexService;
+import com.zonefinder.service.PostcodeSuggestionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Postcode suggestions per keystroke, with the default of 10 results: every
+ * prefix of real postcodes from the first character to the full code, only
+ * the spaced ones (outcode, space and up to two inward characters), or the
+ * spaced ones of districts like E1 that share their leading characters with
+ * longer districts (E10-E18)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class SuggestionBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"keystrokes", "spaced", "shared"})
+    public String typed;
+
+    private PostcodeSuggestionService suggestionService;
+    private String[] prefixes;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Path csv = Files.createTempFile("postcode-index", ".csv");
+        List<String> written = Fixtures.writePostcodeIndex(csv, 4);
+        PostcodeIndexService index = Fixtures.postcodeIndex(csv);
+        Files.delete(csv);
+        suggestionService = new PostcodeSuggestionService(Fixtures.zoneDataService(index), index);
+
+        List<String> postcodes = written;
+        if ("shared".equals(typed)) {
+            Set<String> outcodes = new HashSet<>();
+            written.forEach(postcode -> outcodes.add(postcode.substring(0, postcode.indexOf(' '))));
+            postcodes = written.stream()
+                .filter(postcode -> {
+                    String outcode = postcode.substring(0, postcode.indexOf(' '));
+                    return outcodes.stream().anyMatch(other -> other.length() > outcode.length()
+                        && other.startsWith(outcode));
+                })
+                .toList();
+        }
+        prefixes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String postcode = postcodes.get((int) ((long) (i / 8) * 8 * postcodes.size() / QUERIES));
+            prefixes[i] = "keystrokes".equals(typed)
+                ? postcode.substring(0, Math.min(postcode.length(), 1 + i % 8))
+                : postcode.substring(0, postcode.indexOf(' ') + 1 + i % 3);
+        }
+    }
+
+    @Benchmark
+    public List<PostcodeSuggestion> suggest(Cursor cursor) {
+        return suggestionService.suggest(prefixes[cursor.next++ & (QUERIES - 1)], 10);
+    }
+}
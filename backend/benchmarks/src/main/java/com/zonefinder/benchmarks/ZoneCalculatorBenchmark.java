@@ -0,0 +1,52 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.util.ZoneCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance-ring fallback: Haversine distance and ring lookup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ZoneCalculatorBenchmark {
+
+    private final ZoneCalculator zoneCalculator = new ZoneCalculator();
+    private double[] points;
+    private double[] distances;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        points = Fixtures.londonPoints(1024, 1);
+        distances = new double[1024];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = zoneCalculator.calculateDistanceFromCentre(points[2 * i], points[2 * i + 1]);
+        }
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        int i = next++ & 1023;
+        return zoneCalculator.calculateDistanceFromCentre(points[2 * i], points[2 * i + 1]);
+    }
+
+    @Benchmark
+    public int determineZoneNumber() {
+        return zoneCalculator.determineZoneNumber(distances[next++ & 1023]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.zonefinder.benchmarks;
+
+import com.zonefinder.domain.OutcodeZoneDistribution;
+import com.zonefinder.service.PostcodeIndexService;
+import com.zonefinder.service.ZoneDataService;
+import com.zonefinder.util.PostcodeKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dataset zone lookups: postcode -> Output Area -> zone, falling back to the district
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ZoneDataBenchmark {
+
+    private static final int QUERIES = 4096;
+
+    private ZoneDataService zoneDataService;
+    private String[] postcodes;
+    private long[] keys;
+    private String[] outcodes;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Path csv = Files.createTempFile("postcode-index", ".csv");
+        List<String> written = Fixtures.writePostcodeIndex(csv, 2);
+        PostcodeIndexService index = Fixtures.postcodeIndex(csv);
+        Files.delete(csv);
+        zoneDataService = Fixtures.zoneDataService(index);
+
+        postcodes = new String[QUERIES];
+        keys = new long[QUERIES];
+        outcodes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String postcode = written.get((int) ((long) i * written.size() / QUERIES));
+            postcodes[i] = postcode;
+            keys[i] = PostcodeKey.parse(postcode);
+            outcodes[i] = postcode.substring(0, postcode.indexOf(' '));
+        }
+    }
+
+    @Benchmark
+    public int findZoneNumber(Cursor cursor) {
+        return zoneDataService.findZoneNumber(postcodes[cursor.next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public int findZoneNumberByKey(Cursor cursor) {
+        return zoneDataService.findZoneNumber(keys[cursor.next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public int findZoneNumberByOutcode(Cursor cursor) {
+        return zoneDataService.findZoneNumber(outcodes[cursor.next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public Optional<OutcodeZoneDistribution> findOutcodeDistribution(Cursor cursor) {
+        return zoneDataService.findOutcodeDistribution(outcodes[cursor.next++ & (QUERIES - 1)]);
+    }
+}
@@ -0,0 +1,114 @@
+package com.zonefinder.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zonefinder.client.CoalescingPostcodeClient;
+import com.zonefinder.domain.Postcode;
+import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.metrics.LookupMetrics;
+import com.zonefinder.service.FareZoneBoundaryService;
+import com.zonefinder.service.PostcodeFilterService;
+import com.zonefinder.service.PostcodeIndexService;
+import com.zonefinder.service.ZoneLookupService;
+import com.zonefinder.util.PostcodeValidator;
+import com.zonefinder.util.ZoneCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full uncached lookup: validation, postcode resolution, zone, distance and fares
+ * "index" resolves postcodes from the offline index; "upstream" misses it and
+ * goes to a stubbed Postcodes.io client that answers immediately, so only our
+ * own overhead is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ZoneLookupBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"index", "upstream"})
+    public String source;
+
+    private ZoneLookupService zoneLookupService;
+    private String[] postcodes;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Path csv = Files.createTempFile("postcode-index", ".csv");
+        List<String> written = Fixtures.writePostcodeIndex(csv, 1);
+        PostcodeIndexService index = Fixtures.postcodeIndex("index".equals(source) ? csv : null);
+        Files.delete(csv);
+
+        postcodes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            postcodes[i] = written.get((int) ((long) i * written.size() / QUERIES));
+        }
+
+        // Bypasses the cache proxy; cache hits are covered by CacheSerializationBenchmark
+        zoneLookupService = new ZoneLookupService(
+            null,
+            new StubPostcodeClient(),
+            index,
+            new PostcodeFilterService("", 0.01, Duration.ofMinutes(10), 100_000, null, new SimpleMeterRegistry()),
+            Fixtures.zoneDataService(index),
+            new FareZoneBoundaryService(new ObjectMapper(), "", 1024),
+            new ZoneCalculator(),
+            Fixtures.fareService(),
+            new PostcodeValidator(),
+            null,
+            LookupMetrics.disabled(new SimpleMeterRegistry())
+        );
+    }
+
+    @Benchmark
+    public ZoneLookupResult lookupZone(Cursor cursor) {
+        return zoneLookupService.lookupZone(postcodes[cursor.next++ & (QUERIES - 1)]);
+    }
+
+    /**
+     * Postcodes.io stand-in answering every postcode with a location in central London
+     */
+    static class StubPostcodeClient extends CoalescingPostcodeClient {
+
+        StubPostcodeClient() {
+            super(null, null, null, new SimpleMeterRegistry(), false, Duration.ofSeconds(2), Duration.ofMillis(50));
+        }
+
+        @Override
+        public Postcode fetchPostcode(String postcode) {
+            return Postcode.builder()
+                .postcode(postcode)
+                .latitude(51.5155)
+                .longitude(-0.0922)
+                .adminDistrict("City of London")
+                .region("London")
+                .country("England")
+                .build();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.zonefinder.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reads the application's own view of a run from its actuator metrics
+ */
+public class ActuatorProbe {
+
+    private static final List<String> CIRCUIT_BREAKER_STATES = List.of(
+        "closed", "open", "half_open", "forced_open", "disabled", "metrics_only");
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String metricsUrl;
+
+    /**
+     * @param baseUrl Base URL the actuator endpoints are served under, e.g. http://localhost:8080
+     */
+    public ActuatorProbe(String baseUrl) {
+        this.metricsUrl = baseUrl + "/actuator/metrics/";
+    }
+
+    /**
+     * Lookups answered from either cache tier vs. all lookups, per cache
+     */
+    public CacheCounts cacheCounts(String cache) {
+        return new CacheCounts(
+            measurement("cache.lookups", "COUNT", "cache:" + cache, "result:hit"),
+            measurement("cache.lookups", "COUNT", "cache:" + cache, "result:miss"));
+    }
+
+    /**
+     * @param hits Lookups answered from the near cache or Redis
+     * @param misses Lookups that had to be computed
+     */
+    public record CacheCounts(double hits, double misses) {
+
+        public CacheCounts minus(CacheCounts other) {
+            return new CacheCounts(hits - other.hits, misses - other.misses);
+        }
+
+        public double hitRatio() {
+            return hits + misses == 0 ? 0.0 : hits / (hits + misses);
+        }
+    }
+
+    /**
+     * Current state of a circuit breaker, e.g. "closed" or "open"; "unknown" if it is not reported
+     */
+    public String circuitBreakerState(String name) {
+        for (String state : CIRCUIT_BREAKER_STATES) {
+            if (measurement("resilience4j.circuitbreaker.state", "VALUE", "name:" + name, "state:" + state) > 0) {
+                return state;
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * Calls rejected by an open circuit breaker so far
+     */
+    public double notPermittedCalls(String name) {
+        return measurement("resilience4j.circuitbreaker.not.permitted.calls", "COUNT", "name:" + name);
+    }
+
+    /**
+     * A metric statistic, or 0 if the metric or the tag combination does not exist (yet)
+     */
+    public double measurement(String metric, String statistic, String... tags) {
+        StringBuilder url = new StringBuilder(metricsUrl).append(metric);
+        for (int i = 0; i < tags.length; i++) {
+            url.append(i == 0 ? '?' : '&').append("tag=").append(URLEncoder.encode(tags[i], StandardCharsets.UTF_8));
+        }
+        try {
+            HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(url.toString())).timeout(Duration.ofSeconds(5)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return 0.0;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if (statistic.equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return 0.0;
+        } catch (IOException ex) {
+            return 0.0;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.zonefinder.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Replays a Zipf-distributed postcode mix against POST /api/zones/lookup
+ *
+ * Closed loop by default: each worker sends its next request as soon as the
+ * previous one returns. With a target rate the schedule is fixed up front and
+ * latency is measured from when a request was due rather than when it was
+ * sent, so a stalled server is not hidden by workers that stop sending
+ * (coordinated omission).
+ */
+public class LoadGenerator {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final HttpClient httpClient;
+    private final URI lookupUri;
+    private final ZipfSampler sampler;
+    private final List<String> postcodes;
+    private final Duration requestTimeout;
+
+    /**
+     * Outcome of a run or of one reporting interval
+     * @param elapsedNanos Measured time
+     * @param latencyMicros Latencies of all completed requests
+     * @param ok 2xx responses
+     * @param notFound 404 responses
+     * @param clientErrors Other 4xx responses
+     * @param serverErrors 5xx responses
+     * @param failures Requests that got no response (timeouts, refused connections)
+     */
+    public record Result(long elapsedNanos, Histogram latencyMicros, long ok, long notFound,
+                         long clientErrors, long serverErrors, long failures) {
+
+        public long requests() {
+            return ok + notFound + clientErrors + serverErrors + failures;
+        }
+
+        public double throughput() {
+            return elapsedNanos == 0 ? 0.0 : requests() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Latency at a percentile (0-100), in milliseconds
+         */
+        public double latencyMillis(double percentile) {
+            return latencyMicros.getTotalCount() == 0 ? 0.0 : latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    /**
+     * @param baseUrl Application base URL, e.g. http://localhost:8080
+     * @param postcodes Distinct postcodes; the first ones get the most traffic
+     * @param zipfExponent Skew of the mix; 0 is uniform, ~1 is typical of real lookups
+     */
+    public LoadGenerator(String baseUrl, List<String> postcodes, double zipfExponent, Duration requestTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        this.lookupUri = URI.create(baseUrl + "/api/zones/lookup");
+        this.postcodes = postcodes;
+        this.sampler = new ZipfSampler(postcodes.size(), zipfExponent);
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Postcodes in a stable random order, so popularity is not tied to district
+     */
+    public static List<String> shuffled(List<String> postcodes, long seed) {
+        List<String> copy = new ArrayList<>(postcodes);
+        Collections.shuffle(copy, new Random(seed));
+        return copy;
+    }
+
+    /**
+     * Run the load
+     * @param concurrency Concurrent workers (and connections)
+     * @param ratePerSecond Target request rate across all workers, 0 for closed loop
+     * @param warmup Time to run before measuring
+     * @param duration Time to measure for
+     * @param interval How often to pass interval results to {@code progress}
+     * @param measuring Called once warm-up is over, e.g. to snapshot server-side metrics
+     * @return Results over the measured period
+     */
+    public Result run(int concurrency, double ratePerSecond, Duration warmup, Duration duration,
+                      Duration interval, Runnable measuring, Consumer<Result> progress) throws InterruptedException {
+        Recorder recorder = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+        Counts counts = new Counts();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+        long periodNanos = ratePerSecond > 0 ? (long) (1e9 / ratePerSecond) : 0;
+
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work(recorder, counts, sequence, start, periodNanos, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        // Warm-up results are dropped
+        done.await(Math.max(0, measureFrom - System.nanoTime()), TimeUnit.NANOSECONDS);
+        recorder.getIntervalHistogram();
+        Snapshot measured = counts.snapshot();
+        measuring.run();
+
+        Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        Histogram intervalHistogram = null;
+        Snapshot previous = measured;
+        long intervalStart = System.nanoTime();
+        while (!done.await(Math.min(interval.toNanos(), Math.max(1, end - System.nanoTime())), TimeUnit.NANOSECONDS)
+                && System.nanoTime() < end) {
+            intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+            total.add(intervalHistogram);
+            Snapshot current = counts.snapshot();
+            long now = System.nanoTime();
+            progress.accept(current.minus(previous).toResult(now - intervalStart, intervalHistogram));
+            previous = current;
+            intervalStart = now;
+        }
+        done.await();
+        total.add(recorder.getIntervalHistogram());
+        return counts.snapshot().minus(measured).toResult(System.nanoTime() - measureFrom, total);
+    }
+
+    private void work(Recorder recorder, Counts counts, AtomicLong sequence, long start, long periodNanos, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long sent;
+            if (periodNanos > 0) {
+                sent = start + sequence.getAndIncrement() * periodNanos;
+                if (sent >= end) {
+                    return;
+                }
+                long wait = sent - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                sent = System.nanoTime();
+                if (sent >= end) {
+                    return;
+                }
+            }
+            String postcode = postcodes.get(sampler.sample(random));
+            HttpRequest request = HttpRequest.newBuilder(lookupUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postcode\":\"" + postcode + "\"}"))
+                .build();
+            try {
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                recorder.recordValue(Math.min(HIGHEST_LATENCY_MICROS, (System.nanoTime() - sent) / 1000));
+                counts.record(status);
+            } catch (IOException ex) {
+                recorder.recordValue(Math.min(HIGHEST_LATENCY_MICROS, (System.nanoTime() - sent) / 1000));
+                counts.failures.increment();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Response counts by class
+     */
+    private static final class Counts {
+
+        final LongAdder ok = new LongAdder();
+        final LongAdder notFound = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        void record(int status) {
+            if (status < 300) {
+                ok.increment();
+            } else if (status == 404) {
+                notFound.increment();
+            } else if (status < 500) {
+                clientErrors.increment();
+            } else {
+                serverErrors.increment();
+            }
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(ok.sum(), notFound.sum(), clientErrors.sum(), serverErrors.sum(), failures.sum());
+        }
+    }
+
+    private record Snapshot(long ok, long notFound, long clientErrors, long serverErrors, long failures) {
+
+        Snapshot minus(Snapshot other) {
+            return new Snapshot(ok - other.ok, notFound - other.notFound, clientErrors - other.clientErrors,
+                serverErrors - other.serverErrors, failures - other.failures);
+        }
+
+        Result toResult(long elapsedNanos, Histogram latencies) {
+            return new Result(elapsedNanos, latencies.copy(), ok, notFound, clientErrors, serverErrors, failures);
+        }
+    }
+
+    /**
+     * Ranks 0..n-1 drawn with probability proportional to 1 / (rank + 1)^s
+     */
+    static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0.0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
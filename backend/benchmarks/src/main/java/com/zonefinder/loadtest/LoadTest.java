@@ -0,0 +1,321 @@
+package com.zonefinder.loadtest;
+
+import com.zonefinder.ZoneFinderApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test on a single box
+ *
+ * By default starts the Postcodes.io and Redis stand-ins, boots the API
+ * in-process with the "loadtest" profile (no Postgres) and drives it:
+ * java -cp benchmarks/target/benchmarks.jar com.zonefinder.loadtest.LoadTest \
+ *     --duration=60s --concurrency=64 --postcodes=100000 --zipf=1.0
+ *
+ * To keep the API in its own JVM, start only the stand-ins on fixed ports with
+ * --stand-ins-only --upstream-port=8090 --redis-port=6380, run the API with
+ * --spring.profiles.active=loadtest --postcodes.api.base-url=http://127.0.0.1:8090
+ * --spring.data.redis.port=6380, then drive it with --target=http://localhost:8080.
+ *
+ * Options (defaults in brackets):
+ *   --duration [60s] --warmup [10s] --interval [5s] --timeout [10s]
+ *   --concurrency [64]         workers, each with one request in flight
+ *   --rate [0]                 fixed requests/s across workers instead of closed loop
+ *   --postcodes [100000]       distinct postcodes in the mix
+ *   --zipf [1.0]               popularity skew, 0 for uniform
+ *   --seed [1]
+ *   --upstream-latency [lognormal:30ms,250ms]   or none, fixed:20ms, uniform:5ms-50ms
+ *   --upstream-error-rate [0]  share of Postcodes.io calls failing with 500
+ *   --upstream-not-found-rate [0.01]
+ *   --outage [none]            e.g. 20s+10s: every upstream call fails for 10s, 20s into the measurement
+ *   --compare-threads          boot the API twice, on platform then virtual threads, against fresh
+ *                              stand-ins (upstream latency fixed:1s unless set) and print both reports
+ *                              side by side; needs a Java 21+ runtime
+ * Any other --option is passed on to the in-process application.
+ */
+public class LoadTest {
+
+    private static final String CIRCUIT_BREAKER = "postcodesApi";
+    private static final String INWARD_LETTERS = "ABDEFGHJLNPQRSTUWXYZ";
+    private static final Set<String> KNOWN_OPTIONS = Set.of(
+        "target", "stand-ins-only", "upstream-port", "redis-port", "duration", "warmup", "interval", "timeout",
+        "concurrency", "rate", "postcodes", "zipf", "seed", "upstream-latency", "upstream-error-rate",
+        "upstream-not-found-rate", "outage", "compare-threads");
+    private static final String SLOW_UPSTREAM = "fixed:1s";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+            if (KNOWN_OPTIONS.contains(parts[0])) {
+                options.put(parts[0], parts.length > 1 ? parts[1] : "true");
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        boolean compareThreads = options.containsKey("compare-threads");
+        PostcodesIoStub.Behaviour behaviour = new PostcodesIoStub.Behaviour(
+            PostcodesIoStub.Latency.parse(options.getOrDefault("upstream-latency",
+                compareThreads ? SLOW_UPSTREAM : "lognormal:30ms,250ms")),
+            Double.parseDouble(options.getOrDefault("upstream-error-rate", "0")),
+            Double.parseDouble(options.getOrDefault("upstream-not-found-rate", "0.01")));
+
+        if (options.containsKey("target")) {
+            drive(options, options.get("target"), null).print();
+            return;
+        }
+        if (compareThreads) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalArgumentException("--compare-threads needs a Java 21+ runtime, not Java "
+                    + Runtime.version().feature());
+            }
+            Report platform = runInProcess(options, withThreads(applicationArgs, false), behaviour);
+            Report virtual = runInProcess(options, withThreads(applicationArgs, true), behaviour);
+            System.out.println();
+            Report.printSideBySide("platform threads", platform, "virtual threads", virtual);
+            return;
+        }
+        if (options.containsKey("stand-ins-only")) {
+            try (PostcodesIoStub upstream = new PostcodesIoStub(intOption(options, "upstream-port", 0), behaviour);
+                 RedisStandIn redis = new RedisStandIn(intOption(options, "redis-port", 0))) {
+                System.out.printf("Postcodes.io stand-in on %s, Redis stand-in on port %d%n",
+                    upstream.getBaseUrl(), redis.getPort());
+                CountDownLatch stopped = new CountDownLatch(1);
+                Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+                stopped.await();
+            }
+            return;
+        }
+        runInProcess(options, applicationArgs, behaviour).print();
+    }
+
+    /**
+     * Start fresh stand-ins, boot the API in-process against them and drive it
+     */
+    private static Report runInProcess(Map<String, String> options, List<String> applicationArgs,
+                                       PostcodesIoStub.Behaviour behaviour) throws Exception {
+        try (PostcodesIoStub upstream = new PostcodesIoStub(intOption(options, "upstream-port", 0), behaviour);
+             RedisStandIn redis = new RedisStandIn(intOption(options, "redis-port", 0))) {
+            System.out.printf("Postcodes.io stand-in on %s, Redis stand-in on port %d%n",
+                upstream.getBaseUrl(), redis.getPort());
+            List<String> args = new ArrayList<>(applicationArgs);
+            args.add("--server.port=0");
+            args.add("--postcodes.api.base-url=" + upstream.getBaseUrl());
+            args.add("--spring.data.redis.host=127.0.0.1");
+            args.add("--spring.data.redis.port=" + redis.getPort());
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ZoneFinderApplication.class)
+                    .profiles("loadtest")
+                    .run(args.toArray(new String[0]))) {
+                String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+                Report report = drive(options, baseUrl, upstream);
+                report.add("Redis", String.format(Locale.ROOT, "%d keys", redis.size()));
+                return report;
+            }
+        }
+    }
+
+    private static List<String> withThreads(List<String> applicationArgs, boolean virtual) {
+        List<String> args = new ArrayList<>(applicationArgs);
+        args.add("--spring.threads.virtual.enabled=" + virtual);
+        return args;
+    }
+
+    private static Report drive(Map<String, String> options, String baseUrl, PostcodesIoStub upstream)
+            throws IOException, InterruptedException {
+        Report report = new Report();
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int concurrency = intOption(options, "concurrency", 64);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        Duration warmup = durationOption(options, "warmup", "10s");
+        Duration duration = durationOption(options, "duration", "60s");
+        List<String> postcodes = LoadGenerator.shuffled(
+            londonPostcodes(intOption(options, "postcodes", 100_000), seed), seed);
+        LoadGenerator generator = new LoadGenerator(baseUrl, postcodes,
+            Double.parseDouble(options.getOrDefault("zipf", "1.0")), durationOption(options, "timeout", "10s"));
+        ActuatorProbe probe = new ActuatorProbe(baseUrl);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (options.containsKey("outage")) {
+            scheduleOutage(scheduler, upstream, options.get("outage"), warmup);
+        }
+
+        System.out.printf("Driving %s with %d workers%s for %ss after %ss warm-up, %d postcodes%n", baseUrl,
+            concurrency, rate > 0 ? String.format(Locale.ROOT, " at %.0f req/s", rate) : "",
+            duration.toSeconds(), warmup.toSeconds(), postcodes.size());
+
+        Set<String> breakerStates = new TreeSet<>();
+        // Warm-up requests also count in the application's metrics, so deltas start when measuring does
+        ActuatorProbe.CacheCounts[] cachesBefore = new ActuatorProbe.CacheCounts[2];
+        double[] rejectedBefore = new double[2];
+        // Peak thread counts are JVM-wide and never reset, so sample live threads at each interval instead
+        double[] liveThreads = new double[1];
+        LoadGenerator.Result result = generator.run(concurrency, rate, warmup, duration,
+            durationOption(options, "interval", "5s"),
+            () -> {
+                cachesBefore[0] = probe.cacheCounts("zoneLookups");
+                cachesBefore[1] = probe.cacheCounts("postcodes");
+                rejectedBefore[0] = probe.notPermittedCalls(CIRCUIT_BREAKER);
+                rejectedBefore[1] = probe.measurement("postcodes.api.shed", "COUNT");
+            },
+            interval -> {
+                String state = probe.circuitBreakerState(CIRCUIT_BREAKER);
+                breakerStates.add(state);
+                liveThreads[0] = Math.max(liveThreads[0], probe.measurement("jvm.threads.live", "VALUE"));
+                System.out.printf(Locale.ROOT, "  %8.1f req/s  p50 %7.2fms  p99 %8.2fms  errors %d  breaker %s%n",
+                    interval.throughput(), interval.latencyMillis(50), interval.latencyMillis(99),
+                    interval.serverErrors() + interval.failures(), state);
+            });
+        scheduler.shutdownNow();
+
+        String finalState = probe.circuitBreakerState(CIRCUIT_BREAKER);
+        breakerStates.add(finalState);
+        ActuatorProbe.CacheCounts zoneCache = probe.cacheCounts("zoneLookups").minus(cachesBefore[0]);
+        ActuatorProbe.CacheCounts postcodeCache = probe.cacheCounts("postcodes").minus(cachesBefore[1]);
+
+        report.add("Requests", String.format(Locale.ROOT, "%d in %.1fs (%.1f req/s)",
+            result.requests(), result.elapsedNanos() / 1e9, result.throughput()));
+        report.add("Responses", String.format(Locale.ROOT, "2xx %d, 404 %d, other 4xx %d, 5xx %d, no response %d",
+            result.ok(), result.notFound(), result.clientErrors(), result.serverErrors(), result.failures()));
+        report.add("Latency", String.format(Locale.ROOT, "p50 %.2fms, p99 %.2fms, p99.9 %.2fms, max %.2fms",
+            result.latencyMillis(50), result.latencyMillis(99), result.latencyMillis(99.9),
+            result.latencyMicros().getMaxValue() / 1000.0));
+        report.add("Cache", String.format(Locale.ROOT, "zoneLookups hit ratio %.1f%% (%.0f lookups), "
+                + "postcodes hit ratio %.1f%% (%.0f lookups)",
+            zoneCache.hitRatio() * 100, zoneCache.hits() + zoneCache.misses(),
+            postcodeCache.hitRatio() * 100, postcodeCache.hits() + postcodeCache.misses()));
+        report.add("Breaker", String.format(Locale.ROOT, "%s now %s, seen %s, %.0f calls rejected", CIRCUIT_BREAKER,
+            finalState, breakerStates, probe.notPermittedCalls(CIRCUIT_BREAKER) - rejectedBefore[0]));
+        report.add("Limiter", String.format(Locale.ROOT, "concurrency limit now %.0f, %.0f calls shed",
+            probe.measurement("postcodes.api.concurrency.limit", "VALUE"),
+            probe.measurement("postcodes.api.shed", "COUNT") - rejectedBefore[1]));
+        report.add("Threads", String.format(Locale.ROOT, "at most %.0f live (sampled)", liveThreads[0]));
+        if (upstream != null) {
+            report.add("Upstream", String.format(Locale.ROOT, "%d single calls, %d bulk calls, %d failed",
+                upstream.getSingleCalls(), upstream.getBulkCalls(), upstream.getFailures()));
+        }
+        return report;
+    }
+
+    /**
+     * Summary lines of one run, in order
+     */
+    static final class Report {
+
+        private static final int LABEL_WIDTH = 15;
+
+        private final Map<String, String> lines = new LinkedHashMap<>();
+
+        void add(String label, String value) {
+            lines.put(label, value);
+        }
+
+        void print() {
+            System.out.println();
+            lines.forEach((label, value) -> System.out.println(pad(label, LABEL_WIDTH) + value));
+        }
+
+        static void printSideBySide(String leftTitle, Report left, String rightTitle, Report right) {
+            int width = Math.max(leftTitle.length(), left.lines.values().stream()
+                .mapToInt(String::length).max().orElse(0)) + 3;
+            System.out.println(pad("", LABEL_WIDTH) + pad(leftTitle, width) + rightTitle);
+            Set<String> labels = new LinkedHashSet<>(left.lines.keySet());
+            labels.addAll(right.lines.keySet());
+            for (String label : labels) {
+                System.out.println(pad(label, LABEL_WIDTH) + pad(left.lines.getOrDefault(label, "-"), width)
+                    + right.lines.getOrDefault(label, "-"));
+            }
+        }
+
+        private static String pad(String text, int width) {
+            return text.length() >= width ? text + ' ' : text + " ".repeat(width - text.length());
+        }
+    }
+
+    /**
+     * Make every upstream call fail for a while, e.g. "20s+10s" for 10s starting 20s into the measurement
+     */
+    private static void scheduleOutage(ScheduledExecutorService scheduler, PostcodesIoStub upstream,
+                                       String spec, Duration warmup) {
+        if (upstream == null) {
+            throw new IllegalArgumentException("--outage needs the in-process Postcodes.io stand-in");
+        }
+        String[] parts = spec.split("\\+");
+        long startNanos = warmup.plus(DurationStyle.detectAndParse(parts[0])).toNanos();
+        long lengthNanos = DurationStyle.detectAndParse(parts[1]).toNanos();
+        PostcodesIoStub.Behaviour normal = upstream.getBehaviour();
+        scheduler.schedule(() -> {
+            System.out.println("  -- upstream outage starts");
+            upstream.setBehaviour(normal.withErrorRate(1.0));
+        }, startNanos, TimeUnit.NANOSECONDS);
+        scheduler.schedule(() -> {
+            System.out.println("  -- upstream outage ends");
+            upstream.setBehaviour(normal);
+        }, startNanos + lengthNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Distinct, well-formed postcodes in the districts of the bundled MyLondon data
+     */
+    static List<String> londonPostcodes(int count, long seed) throws IOException {
+        List<String> districts;
+        try (InputStream input = new ClassPathResource("data/MyLondon_postcode_OA.csv").getInputStream()) {
+            Set<String> unique = new TreeSet<>();
+            String[] lines = new String(input.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                String[] columns = lines[i].trim().split(",");
+                if (columns.length >= 2 && !columns[1].isBlank()) {
+                    unique.add(columns[1].trim());
+                }
+            }
+            districts = new ArrayList<>(unique);
+        }
+        // Each district has 10 * 20 * 20 = 4000 possible inward codes
+        int capacity = districts.size() * 4000;
+        if (count > capacity / 2) {
+            throw new IllegalArgumentException("At most " + capacity / 2 + " distinct postcodes can be generated");
+        }
+        Random random = new Random(seed);
+        Set<String> postcodes = new LinkedHashSet<>();
+        while (postcodes.size() < count) {
+            postcodes.add(districts.get(random.nextInt(districts.size())) + " " + random.nextInt(10)
+                + INWARD_LETTERS.charAt(random.nextInt(INWARD_LETTERS.length()))
+                + INWARD_LETTERS.charAt(random.nextInt(INWARD_LETTERS.length())));
+        }
+        return new ArrayList<>(postcodes);
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static Duration durationOption(Map<String, String> options, String name, String defaultValue) {
+        return DurationStyle.detectAndParse(options.getOrDefault(name, defaultValue));
+    }
+}
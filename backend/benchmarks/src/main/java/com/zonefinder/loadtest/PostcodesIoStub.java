@@ -0,0 +1,245 @@
+package com.zonefinder.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zonefinder.util.PostcodeKey;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for api.postcodes.io
+ * Serves the single ("GET /postcodes/{postcode}") and bulk ("POST /postcodes")
+ * endpoints with the same response shapes, after a sampled latency. Every
+ * valid postcode resolves to a stable location in Greater London, except a
+ * fixed fraction that is always 404. A share of calls can fail with 500 to
+ * exercise retries and the circuit breaker.
+ */
+public class PostcodesIoStub implements AutoCloseable {
+
+    private static final double CENTRE_LAT = 51.5074;
+    private static final double CENTRE_LON = -0.1278;
+    private static final String[] DISTRICTS = {
+        "Westminster", "Camden", "Islington", "Hackney", "Southwark", "Lambeth", "Tower Hamlets",
+        "Greenwich", "Lewisham", "Wandsworth", "Barnet", "Croydon", "Ealing", "Hillingdon", "Bromley"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder singleCalls = new LongAdder();
+    private final LongAdder bulkCalls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile Behaviour behaviour;
+
+    /**
+     * How the stand-in answers
+     * @param latency Delay before each response
+     * @param errorRate Share of calls answered with a 500
+     * @param notFoundRate Share of postcodes that do not exist
+     */
+    public record Behaviour(Latency latency, double errorRate, double notFoundRate) {
+
+        public Behaviour withErrorRate(double rate) {
+            return new Behaviour(latency, rate, notFoundRate);
+        }
+    }
+
+    /**
+     * Response delay distribution
+     * Parsed from "none", "fixed:20ms", "uniform:5ms-50ms" or "lognormal:30ms,250ms"
+     * (median and 99th percentile).
+     */
+    public interface Latency {
+
+        long sampleNanos(ThreadLocalRandom random);
+
+        static Latency parse(String spec) {
+            String[] parts = spec.split(":", 2);
+            switch (parts[0].toLowerCase(Locale.ROOT)) {
+                case "none":
+                    return random -> 0L;
+                case "fixed": {
+                    long nanos = nanos(parts[1]);
+                    return random -> nanos;
+                }
+                case "uniform": {
+                    String[] range = parts[1].split("-");
+                    long min = nanos(range[0]);
+                    long max = nanos(range[1]);
+                    return random -> min + (long) (random.nextDouble() * (max - min));
+                }
+                case "lognormal": {
+                    String[] bounds = parts[1].split(",");
+                    double mu = Math.log(nanos(bounds[0]));
+                    // z(0.99) = 2.326
+                    double sigma = (Math.log(nanos(bounds[1])) - mu) / 2.326;
+                    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        }
+
+        private static long nanos(String value) {
+            return DurationStyle.detectAndParse(value.trim()).toNanos();
+        }
+    }
+
+    /**
+     * Start the stand-in
+     * @param port Port to listen on, 0 for any free port
+     */
+    public PostcodesIoStub(int port, Behaviour behaviour) throws IOException {
+        this.behaviour = behaviour;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        // Calls spend most of their time in the simulated latency, so every call gets a thread
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "postcodes-io-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/postcodes", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public Behaviour getBehaviour() {
+        return behaviour;
+    }
+
+    /**
+     * Change how calls are answered from now on, e.g. to simulate an outage
+     */
+    public void setBehaviour(Behaviour behaviour) {
+        this.behaviour = behaviour;
+    }
+
+    public long getSingleCalls() {
+        return singleCalls.sum();
+    }
+
+    public long getBulkCalls() {
+        return bulkCalls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Behaviour current = behaviour;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = current.latency().sampleNanos(random);
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            String path = exchange.getRequestURI().getRawPath();
+            boolean bulk = "POST".equals(exchange.getRequestMethod()) && "/postcodes".equals(path);
+            (bulk ? bulkCalls : singleCalls).increment();
+            if (random.nextDouble() < current.errorRate()) {
+                failures.increment();
+                respond(exchange, 500, Map.of("status", 500, "error", "Simulated upstream failure"));
+            } else if (bulk) {
+                respond(exchange, 200, bulkResult(exchange.getRequestBody(), current));
+            } else if ("GET".equals(exchange.getRequestMethod()) && path.startsWith("/postcodes/")) {
+                String query = URLDecoder.decode(path.substring("/postcodes/".length()), StandardCharsets.UTF_8);
+                Map<String, Object> result = lookup(query, current);
+                if (result == null) {
+                    respond(exchange, 404, Map.of("status", 404, "error", "Postcode not found"));
+                } else {
+                    respond(exchange, 200, Map.of("status", 200, "result", result));
+                }
+            } else {
+                respond(exchange, 404, Map.of("status", 404, "error", "Resource not found"));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Object> bulkResult(InputStream body, Behaviour current) throws IOException {
+        JsonNode request = objectMapper.readTree(body);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (JsonNode query : request.path("postcodes")) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("query", query.asText());
+            item.put("result", lookup(query.asText(), current));
+            results.add(item);
+        }
+        return Map.of("status", 200, "result", results);
+    }
+
+    /**
+     * Postcodes.io result for a postcode, or null if it does not exist
+     */
+    private Map<String, Object> lookup(String query, Behaviour current) {
+        long key = PostcodeKey.parse(query);
+        if (key == PostcodeKey.INVALID) {
+            return null;
+        }
+        // Stable per postcode, so a missing postcode stays missing
+        long hash = mix(key);
+        if ((hash >>> 11) * 0x1.0p-53 < current.notFoundRate()) {
+            return null;
+        }
+        double distance = 0.25 * ((hash >>> 20) & 0xFFFF) / 0xFFFF;
+        double angle = 2 * Math.PI * ((hash >>> 36) & 0xFFFF) / 0xFFFF;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("postcode", PostcodeKey.format(key));
+        result.put("latitude", CENTRE_LAT + distance * Math.sin(angle));
+        result.put("longitude", CENTRE_LON + 1.6 * distance * Math.cos(angle));
+        result.put("admin_district", DISTRICTS[(int) ((hash >>> 52) % DISTRICTS.length)]);
+        result.put("region", "London");
+        result.put("country", "England");
+        return result;
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,518 @@
+package com.zonefinder.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for a single Redis node, speaking RESP2
+ * Covers what the application uses: strings with expiry (GET, SET with
+ * EX/PX/NX/XX, MGET, DEL, KEYS, SCAN), channel pub/sub for near-cache
+ * invalidation, and the compare-and-delete script that releases coalescing
+ * leases. Anything else is answered with an error, so a missing command shows
+ * up in the load test instead of being silently ignored.
+ *
+ * Not a Redis replacement: there is no persistence, eviction or memory limit.
+ */
+public class RedisStandIn implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisStandIn.class);
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NIL = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final Pattern RELEASE_SCRIPT = Pattern.compile(
+        "(?s).*redis\\.call\\(\\s*'get'\\s*,\\s*KEYS\\[1]\\s*\\)\\s*==\\s*ARGV\\[1].*redis\\.call\\(\\s*'del'.*");
+
+    private final Map<Key, Value> data = new ConcurrentHashMap<>();
+    private final Map<Key, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+
+    private record Value(byte[] bytes, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiresAt != 0 && expiresAt <= now;
+        }
+    }
+
+    /**
+     * Binary-safe map key
+     */
+    private record Key(byte[] bytes) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Arrays.equals(bytes, key.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Start listening
+     * @param port Port on the loopback interface, 0 for any free port
+     */
+    public RedisStandIn(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "redis-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::accept);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Number of keys, including expired ones not yet dropped
+     */
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                executor.execute(() -> serve(socket));
+            } catch (IOException ex) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Redis stand-in failed to accept a connection: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket; Connection connection = new Connection(socket)) {
+            List<byte[]> command;
+            while ((command = connection.read()) != null) {
+                if (!command.isEmpty()) {
+                    execute(connection, command);
+                }
+                connection.flushIfIdle();
+            }
+        } catch (IOException ex) {
+            // Client went away
+        }
+    }
+
+    private void execute(Connection connection, List<byte[]> command) throws IOException {
+        String name = new String(command.get(0), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "PING" -> {
+                if (connection.subscriptions.isEmpty()) {
+                    connection.writeSimple("PONG");
+                } else {
+                    connection.writeArrayHeader(2);
+                    connection.writeBulk("pong".getBytes(StandardCharsets.US_ASCII));
+                    connection.writeBulk(new byte[0]);
+                }
+            }
+            case "AUTH", "SELECT", "CLIENT", "READONLY" -> connection.write(OK);
+            case "QUIT" -> {
+                connection.write(OK);
+                connection.flush();
+                connection.socket.close();
+            }
+            case "INFO" -> connection.writeBulk(("# Server\r\nredis_version:7.2.0\r\nredis_mode:standalone\r\n"
+                + "# Keyspace\r\ndb0:keys=" + data.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            case "GET" -> connection.writeBulk(get(new Key(command.get(1)), now));
+            case "MGET" -> {
+                connection.writeArrayHeader(command.size() - 1);
+                for (int i = 1; i < command.size(); i++) {
+                    connection.writeBulk(get(new Key(command.get(i)), now));
+                }
+            }
+            case "SET" -> set(connection, command, now);
+            case "DEL", "UNLINK" -> {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    Value value = data.remove(new Key(command.get(i)));
+                    if (value != null && !value.isExpired(now)) {
+                        removed++;
+                    }
+                }
+                connection.writeInteger(removed);
+            }
+            case "EXISTS" -> {
+                long found = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (get(new Key(command.get(i)), now) != null) {
+                        found++;
+                    }
+                }
+                connection.writeInteger(found);
+            }
+            case "PEXPIRE", "EXPIRE" -> {
+                long ttl = Long.parseLong(string(command.get(2)));
+                Value updated = data.computeIfPresent(new Key(command.get(1)), (key, value) -> value.isExpired(now)
+                    ? null
+                    : new Value(value.bytes(), now + ("EXPIRE".equals(name) ? ttl * 1000 : ttl)));
+                connection.writeInteger(updated != null ? 1 : 0);
+            }
+            case "PTTL", "TTL" -> {
+                Value value = data.get(new Key(command.get(1)));
+                long ttl;
+                if (value == null || value.isExpired(now)) {
+                    ttl = -2;
+                } else if (value.expiresAt() == 0) {
+                    ttl = -1;
+                } else {
+                    ttl = "TTL".equals(name) ? (value.expiresAt() - now) / 1000 : value.expiresAt() - now;
+                }
+                connection.writeInteger(ttl);
+            }
+            case "KEYS" -> writeKeys(connection, matching(string(command.get(1)), now));
+            case "SCAN" -> {
+                // Everything in one page
+                String pattern = "*";
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    if ("MATCH".equalsIgnoreCase(string(command.get(i)))) {
+                        pattern = string(command.get(i + 1));
+                    }
+                }
+                connection.writeArrayHeader(2);
+                connection.writeBulk("0".getBytes(StandardCharsets.US_ASCII));
+                writeKeys(connection, matching(pattern, now));
+            }
+            case "DBSIZE" -> connection.writeInteger(data.size());
+            case "FLUSHDB", "FLUSHALL" -> {
+                data.clear();
+                connection.write(OK);
+            }
+            case "PUBLISH" -> connection.writeInteger(publish(new Key(command.get(1)), command.get(2)));
+            case "SUBSCRIBE" -> {
+                for (int i = 1; i < command.size(); i++) {
+                    Key channel = new Key(command.get(i));
+                    subscribers.computeIfAbsent(channel, key -> new CopyOnWriteArraySet<>()).add(connection);
+                    connection.subscriptions.add(channel);
+                    connection.writeSubscription("subscribe", channel, connection.subscriptions.size());
+                }
+            }
+            case "UNSUBSCRIBE" -> {
+                List<Key> channels = new ArrayList<>();
+                if (command.size() > 1) {
+                    for (int i = 1; i < command.size(); i++) {
+                        channels.add(new Key(command.get(i)));
+                    }
+                } else {
+                    channels.addAll(connection.subscriptions);
+                }
+                for (Key channel : channels) {
+                    unsubscribe(connection, channel);
+                    connection.writeSubscription("unsubscribe", channel, connection.subscriptions.size());
+                }
+            }
+            case "EVAL" -> eval(connection, command, now);
+            // Makes script executors fall back to EVAL with the full script
+            case "EVALSHA" -> connection.writeError("NOSCRIPT No matching script. Please use EVAL.");
+            default -> connection.writeError("ERR unknown command '" + name + "'");
+        }
+    }
+
+    private byte[] get(Key key, long now) {
+        Value value = data.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.isExpired(now)) {
+            data.remove(key, value);
+            return null;
+        }
+        return value.bytes();
+    }
+
+    private void set(Connection connection, List<byte[]> command, long now) throws IOException {
+        Key key = new Key(command.get(1));
+        long expiresAt = 0;
+        boolean ifAbsent = false;
+        boolean ifPresent = false;
+        for (int i = 3; i < command.size(); i++) {
+            switch (string(command.get(i)).toUpperCase(Locale.ROOT)) {
+                case "EX" -> expiresAt = now + Long.parseLong(string(command.get(++i))) * 1000;
+                case "PX" -> expiresAt = now + Long.parseLong(string(command.get(++i)));
+                case "NX" -> ifAbsent = true;
+                case "XX" -> ifPresent = true;
+                default -> {
+                    connection.writeError("ERR syntax error");
+                    return;
+                }
+            }
+        }
+        Value value = new Value(command.get(2), expiresAt);
+        if (ifAbsent || ifPresent) {
+            boolean absent = ifAbsent;
+            boolean[] written = {false};
+            data.compute(key, (k, existing) -> {
+                boolean exists = existing != null && !existing.isExpired(now);
+                if (exists == absent) {
+                    return exists ? existing : null;
+                }
+                written[0] = true;
+                return value;
+            });
+            connection.write(written[0] ? OK : NIL);
+        } else {
+            data.put(key, value);
+            connection.write(OK);
+        }
+    }
+
+    /**
+     * Only the lease release script is understood: delete KEYS[1] if it holds ARGV[1]
+     */
+    private void eval(Connection connection, List<byte[]> command, long now) throws IOException {
+        if (command.size() < 5 || !RELEASE_SCRIPT.matcher(string(command.get(1))).matches()) {
+            connection.writeError("ERR the Redis stand-in only supports the lease release script");
+            return;
+        }
+        Key key = new Key(command.get(3));
+        byte[] expected = command.get(4);
+        boolean[] deleted = {false};
+        data.computeIfPresent(key, (k, value) -> {
+            if (!value.isExpired(now) && Arrays.equals(value.bytes(), expected)) {
+                deleted[0] = true;
+                return null;
+            }
+            return value;
+        });
+        connection.writeInteger(deleted[0] ? 1 : 0);
+    }
+
+    private long publish(Key channel, byte[] message) {
+        Set<Connection> listeners = subscribers.getOrDefault(channel, Set.of());
+        long delivered = 0;
+        for (Connection listener : listeners) {
+            try {
+                listener.writeMessage(channel, message);
+                delivered++;
+            } catch (IOException ex) {
+                unsubscribe(listener, channel);
+            }
+        }
+        return delivered;
+    }
+
+    private void unsubscribe(Connection connection, Key channel) {
+        connection.subscriptions.remove(channel);
+        Set<Connection> listeners = subscribers.get(channel);
+        if (listeners != null) {
+            listeners.remove(connection);
+        }
+    }
+
+    private List<byte[]> matching(String glob, long now) {
+        Pattern pattern = Pattern.compile(globToRegex(glob), Pattern.DOTALL);
+        List<byte[]> keys = new ArrayList<>();
+        data.forEach((key, value) -> {
+            if (!value.isExpired(now) && pattern.matcher(key.toString()).matches()) {
+                keys.add(key.bytes());
+            }
+        });
+        return keys;
+    }
+
+    private static void writeKeys(Connection connection, List<byte[]> keys) throws IOException {
+        connection.writeArrayHeader(keys.size());
+        for (byte[] key : keys) {
+            connection.writeBulk(key);
+        }
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                case '\\' -> {
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One client connection; replies are buffered and flushed once the
+     * pipeline the client sent has been drained
+     */
+    private final class Connection implements AutoCloseable {
+
+        private final Socket socket;
+        private final InputStream input;
+        private final OutputStream output;
+        private final Set<Key> subscriptions = ConcurrentHashMap.newKeySet();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.input = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            this.output = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+        }
+
+        /**
+         * Next command as its arguments, or null at end of stream
+         */
+        List<byte[]> read() throws IOException {
+            int first = input.read();
+            if (first == -1) {
+                return null;
+            }
+            if (first != '*') {
+                // Inline command, as typed into telnet
+                String line = (char) first + readLine();
+                List<byte[]> inline = new ArrayList<>();
+                for (String part : line.trim().split("\\s+")) {
+                    if (!part.isEmpty()) {
+                        inline.add(part.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                return inline;
+            }
+            int count = Integer.parseInt(readLine());
+            List<byte[]> arguments = new ArrayList<>(Math.max(count, 0));
+            for (int i = 0; i < count; i++) {
+                if (input.read() != '$') {
+                    throw new IOException("Protocol error: expected bulk string");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] argument = input.readNBytes(length);
+                if (argument.length < length) {
+                    throw new EOFException();
+                }
+                input.skipNBytes(2);
+                arguments.add(argument);
+            }
+            return arguments;
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(16);
+            int c;
+            while ((c = input.read()) != '\r') {
+                if (c == -1) {
+                    throw new EOFException();
+                }
+                line.write(c);
+            }
+            input.read();
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+
+        void flushIfIdle() throws IOException {
+            if (input.available() == 0) {
+                flush();
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            output.flush();
+        }
+
+        synchronized void write(byte[] bytes) throws IOException {
+            output.write(bytes);
+        }
+
+        synchronized void writeSimple(String value) throws IOException {
+            output.write(('+' + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        synchronized void writeError(String message) throws IOException {
+            output.write(('-' + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        synchronized void writeInteger(long value) throws IOException {
+            output.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        synchronized void writeArrayHeader(int size) throws IOException {
+            output.write(("*" + size + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        synchronized void writeBulk(byte[] value) throws IOException {
+            if (value == null) {
+                output.write(NIL);
+                return;
+            }
+            output.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.write(value);
+            output.write('\r');
+            output.write('\n');
+        }
+
+        synchronized void writeSubscription(String kind, Key channel, int count) throws IOException {
+            writeArrayHeader(3);
+            writeBulk(kind.getBytes(StandardCharsets.US_ASCII));
+            writeBulk(channel.bytes());
+            writeInteger(count);
+        }
+
+        /**
+         * Pushed from a publisher's thread, so it is flushed right away
+         */
+        synchronized void writeMessage(Key channel, byte[] message) throws IOException {
+            writeArrayHeader(3);
+            writeBulk("message".getBytes(StandardCharsets.US_ASCII));
+            writeBulk(channel.bytes());
+            writeBulk(message);
+            output.flush();
+        }
+
+        @Override
+        public void close() {
+            for (Key channel : List.copyOf(subscriptions)) {
+                unsubscribe(this, channel);
+            }
+        }
+    }
+}
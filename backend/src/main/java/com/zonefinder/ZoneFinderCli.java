@@ -0,0 +1,141 @@
+package com.zonefinder;
+
+import com.zonefinder.client.CoalescingPostcodeClient;
+import com.zonefinder.client.PostcodesIoClient;
+import com.zonefinder.config.ResilienceConfig;
+import com.zonefinder.metrics.LookupMetrics;
+import com.zonefinder.service.BulkZoneResolver;
+import com.zonefinder.service.FareService;
+import com.zonefinder.service.FareZoneBoundaryService;
+import com.zonefinder.service.PostcodeFilterService;
+import com.zonefinder.service.PostcodeIndexService;
+import com.zonefinder.service.ZoneDataService;
+import com.zonefinder.service.ZoneDataset;
+import com.zonefinder.service.ZoneLookupService;
+import com.zonefinder.util.PostcodeValidator;
+import com.zonefinder.util.ZoneCalculator;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line entry point for offline jobs
+ * Runs the same lookup services as the API, without the web server,
+ * database or Redis caches.
+ *
+ * Usage (from the packaged jar):
+ * java -Dloader.main=com.zonefinder.ZoneFinderCli -cp app.jar \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher bulk input.csv output.ndjson [ndjson|csv] [--property=value...]
+ *
+ * The snapshot command compiles the MyLondon CSVs into the binary snapshot
+ * loaded at startup, without starting Spring at all:
+ * ... PropertiesLauncher snapshot <csv-dir|classpath> [output]
+ */
+public class ZoneFinderCli {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && "snapshot".equals(args[0])) {
+            snapshot(args);
+            return;
+        }
+        if (args.length < 3 || !"bulk".equals(args[0])) {
+            System.err.println("Usage: ZoneFinderCli bulk <input|-> <output|-> [ndjson|csv] [--property=value...]");
+            System.err.println("       ZoneFinderCli snapshot <csv-dir|classpath> [output]");
+            System.exit(2);
+        }
+        boolean formatGiven = args.length > 3 && !args[3].startsWith("--");
+        BulkZoneResolver.Format format = formatGiven
+            ? BulkZoneResolver.Format.parse(args[3])
+            : BulkZoneResolver.Format.NDJSON;
+        List<String> properties = new ArrayList<>(Arrays.asList(args).subList(formatGiven ? 4 : 3, args.length));
+        if ("-".equals(args[2])) {
+            // Keep stdout for the results
+            properties.add(0, "--logging.pattern.console=");
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BulkContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(properties.toArray(String[]::new));
+             InputStream input = openInput(args[1]);
+             OutputStream output = openOutput(args[2])) {
+            long rows = context.getBean(BulkZoneResolver.class).resolve(input, output, format);
+            System.err.println("Resolved " + rows + " postcodes");
+        }
+    }
+
+    /**
+     * Only the beans a lookup needs; every lookup goes to postcodes.io or
+     * the local index since the cache manager is absent
+     * Deliberately not a {@code @Configuration}: the API's component scan
+     * would pick it up and apply its exclusions there too.
+     */
+    @EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        JpaRepositoriesAutoConfiguration.class,
+        RedisAutoConfiguration.class,
+        RedisReactiveAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class
+    })
+    @Import({
+        BulkZoneResolver.class,
+        ZoneLookupService.class,
+        CoalescingPostcodeClient.class,
+        PostcodesIoClient.class,
+        ResilienceConfig.class,
+        PostcodeIndexService.class,
+        PostcodeFilterService.class,
+        ZoneDataService.class,
+        FareZoneBoundaryService.class,
+        ZoneCalculator.class,
+        FareService.class,
+        PostcodeValidator.class,
+        LookupMetrics.class
+    })
+    static class BulkContext {
+    }
+
+    private static void snapshot(String[] args) throws IOException {
+        Path csvDirectory = "classpath".equals(args[1]) ? null : Path.of(args[1]);
+        Path output;
+        if (args.length > 2) {
+            output = Path.of(args[2]);
+        } else if (csvDirectory != null) {
+            output = csvDirectory.resolve(ZoneDataService.SNAPSHOT_FILE);
+        } else {
+            output = Path.of(ZoneDataService.SNAPSHOT_FILE);
+        }
+        ZoneDataset dataset = ZoneDataService.compileSnapshot(csvDirectory, output);
+        System.err.println("Compiled dataset " + dataset.getVersion() + " (" + dataset.outputAreaCount()
+            + " Output Areas, " + dataset.outcodeCount() + " districts) to " + output);
+    }
+
+    private static InputStream openInput(String path) throws IOException {
+        return "-".equals(path) ? System.in : new BufferedInputStream(Files.newInputStream(Path.of(path)));
+    }
+
+    private static OutputStream openOutput(String path) throws IOException {
+        return "-".equals(path) ? System.out : new BufferedOutputStream(Files.newOutputStream(Path.of(path)));
+    }
+}
@@ -0,0 +1,17 @@
+package com.zonefinder.cache;
+
+import java.io.Serializable;
+
+/**
+ * Cached value with its soft expiry
+ * Past {@code softExpiresAt} the value is still served but a refresh is due;
+ * {@code loadMillis} is how long the value took to compute, which scales how
+ * early a probabilistic refresh may start.
+ *
+ * @param value Cached value
+ * @param softExpiresAt Epoch millis after which the value is stale
+ * @param loadMillis Time the last load took
+ * @param tag Version of the data the value was computed from, if the cache is versioned
+ */
+public record CacheEntry(Object value, long softExpiresAt, int loadMillis, String tag) implements Serializable {
+}
@@ -0,0 +1,59 @@
+package com.zonefinder.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts near-cache invalidations to the other nodes over Redis pub/sub
+ * Messages are "nodeId|cacheName|key"; an empty key clears the whole cache.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR);
+    }
+
+    /**
+     * Parse a received message, ignoring the ones this node sent itself
+     * @return {cacheName, key} with an empty key for clears, or null to ignore
+     */
+    String[] parse(String message) {
+        int first = message.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+        if (second < 0 || first == nodeId.length() && message.startsWith(nodeId)) {
+            return null;
+        }
+        return new String[] { message.substring(first + 1, second), message.substring(second + 1) };
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException ex) {
+            // Near caches also expire on their own TTL, so a lost message only delays coherence
+            log.warn("Failed to publish cache invalidation: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.zonefinder.cache;
+
+/**
+ * Version tags for the entries of a cache
+ * Entries are tagged with the version of the data they were computed from;
+ * on read, an entry whose tag is no longer valid for its key counts as a miss.
+ * This lets a data change invalidate just the affected keys instead of
+ * flushing the whole cache.
+ */
+public interface CacheVersioning {
+
+    /**
+     * Tag for entries computed now
+     */
+    String currentTag();
+
+    /**
+     * Whether an entry computed under a tag is still valid
+     * @param key Cache key of the entry
+     * @param tag Tag stored with the entry, or null for entries written before tagging
+     */
+    boolean isCurrent(Object key, String tag);
+}
@@ -0,0 +1,328 @@
+package com.zonefinder.cache;
+
+import com.zonefinder.domain.Postcode;
+import com.zonefinder.domain.ZoneLookupResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, versioned Redis value codec for the lookup caches
+ *
+ * Every entry starts with a magic byte, a format version and a type tag, followed
+ * by a fixed field layout: coordinates as micro-degree ints, fares in pence,
+ * distances in metres and strings either as a one-byte dictionary reference or
+ * a length-prefixed UTF-8 literal. Entries with an unknown magic or version
+ * decode to null, which the cache treats as a miss, so a schema change never
+ * poisons the cache. Entries written before this codec (plain JDK
+ * serialization) are still read, so they can be moved to canonical keys until
+ * they expire. Types other than
+ * {@link ZoneLookupResult} and {@link Postcode} fall back to JDK serialization.
+ * A {@link CacheEntry} envelope is written as its own type tag, soft expiry,
+ * load time and (for versioned caches) version tag, followed by the type tag
+ * and body of the value it wraps.
+ *
+ * Changing the field layout or the dictionary requires bumping {@link #VERSION}.
+ */
+@Slf4j
+public class LookupCacheSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = 0x5A;
+    static final byte VERSION = 1;
+
+    // Stream header of JDK serialization, which the caches used before this codec
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private static final byte TYPE_JDK = 0;
+    private static final byte TYPE_ZONE_LOOKUP = 1;
+    private static final byte TYPE_POSTCODE = 2;
+    private static final byte TYPE_ENTRY = 3;
+    private static final byte TYPE_TAGGED_ENTRY = 4;
+
+    private static final byte STRING_NULL = 0;
+    private static final int STRING_LITERAL = 0x80;
+    private static final int MAX_LITERAL_LENGTH = 0xFFFF;
+
+    private static final byte HAS_ZONE_NUMBER = 1;
+    private static final byte HAS_LATITUDE = 1 << 1;
+    private static final byte HAS_LONGITUDE = 1 << 2;
+    private static final byte HAS_DISTANCE = 1 << 3;
+    private static final byte HAS_FARE_INFO = 1 << 4;
+    private static final byte HAS_PEAK_FARE = 1 << 5;
+    private static final byte HAS_OFF_PEAK_FARE = 1 << 6;
+
+    private static final double MICRO_DEGREES = 1_000_000.0;
+    private static final double METRES_PER_KM = 1_000.0;
+    private static final double PENCE = 100.0;
+
+    // Strings that appear in most entries are written as a single byte
+    private static final List<String> DICTIONARY = List.of(
+        "GBP", "England", "Scotland", "Wales", "Northern Ireland", "London",
+        "Zone 1", "Zone 2", "Zone 3", "Zone 4", "Zone 5", "Zone 6", "Zone 7", "Zone 8", "Zone 9",
+        "Barking and Dagenham", "Barnet", "Bexley", "Brent", "Bromley", "Camden", "City of London",
+        "Croydon", "Ealing", "Enfield", "Greenwich", "Hackney", "Hammersmith and Fulham", "Haringey",
+        "Harrow", "Havering", "Hillingdon", "Hounslow", "Islington", "Kensington and Chelsea",
+        "Kingston upon Thames", "Lambeth", "Lewisham", "Merton", "Newham", "Redbridge",
+        "Richmond upon Thames", "Southwark", "Sutton", "Tower Hamlets", "Waltham Forest",
+        "Wandsworth", "Westminster"
+    );
+    private static final Map<String, Integer> DICTIONARY_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.size(); i++) {
+            DICTIONARY_IDS.put(DICTIONARY.get(i), i + 1);
+        }
+    }
+
+    private static final int MAX_INTERNED = 4096;
+
+    private final JdkSerializationRedisSerializer fallback = new JdkSerializationRedisSerializer();
+    // Decoded literals are shared so near-cached entries don't each hold their own copy
+    private final Map<String, String> interned = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC);
+        out.write(VERSION);
+        if (value instanceof CacheEntry entry) {
+            out.write(entry.tag() != null ? TYPE_TAGGED_ENTRY : TYPE_ENTRY);
+            writeLong(out, entry.softExpiresAt());
+            writeInt(out, entry.loadMillis());
+            if (entry.tag() != null) {
+                writeString(out, entry.tag());
+            }
+            value = entry.value();
+        }
+        writeValue(out, value);
+        return out.toByteArray();
+    }
+
+    private void writeValue(ByteArrayOutputStream out, Object value) {
+        if (value instanceof ZoneLookupResult result) {
+            out.write(TYPE_ZONE_LOOKUP);
+            writeZoneLookup(out, result);
+        } else if (value instanceof Postcode postcode) {
+            out.write(TYPE_POSTCODE);
+            writePostcode(out, postcode);
+        } else {
+            out.write(TYPE_JDK);
+            out.writeBytes(fallback.serialize(value));
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < 3) {
+            return null;
+        }
+        if (bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return readLegacy(bytes);
+        }
+        if (bytes[0] != MAGIC || bytes[1] != VERSION) {
+            log.debug("Ignoring cache entry with unknown format {}/{}", bytes[0], bytes[1]);
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        try {
+            byte type = buffer.get(2);
+            if (type != TYPE_ENTRY && type != TYPE_TAGGED_ENTRY) {
+                return readValue(buffer);
+            }
+            buffer.get();
+            long softExpiresAt = buffer.getLong();
+            int loadMillis = buffer.getInt();
+            String tag = type == TYPE_TAGGED_ENTRY ? readString(buffer, true) : null;
+            Object value = readValue(buffer);
+            return value != null ? new CacheEntry(value, softExpiresAt, loadMillis, tag) : null;
+        } catch (RuntimeException ex) {
+            log.warn("Ignoring unreadable cache entry: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    // Remove once entries written before the codec (24h TTL) can no longer exist
+    private Object readLegacy(byte[] bytes) {
+        try {
+            return fallback.deserialize(bytes);
+        } catch (SerializationException ex) {
+            log.debug("Ignoring unreadable legacy cache entry: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private Object readValue(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case TYPE_ZONE_LOOKUP -> readZoneLookup(in);
+            case TYPE_POSTCODE -> readPostcode(in);
+            case TYPE_JDK -> fallback.deserialize(Arrays.copyOfRange(in.array(), in.position(), in.limit()));
+            default -> null;
+        };
+    }
+
+    private void writeZoneLookup(ByteArrayOutputStream out, ZoneLookupResult result) {
+        ZoneLookupResult.FareInfo fareInfo = result.getFareInfo();
+        int flags = flag(result.getZoneNumber(), HAS_ZONE_NUMBER)
+            | flag(result.getLatitude(), HAS_LATITUDE)
+            | flag(result.getLongitude(), HAS_LONGITUDE)
+            | flag(result.getDistanceFromCentreKm(), HAS_DISTANCE)
+            | flag(fareInfo, HAS_FARE_INFO);
+        if (fareInfo != null) {
+            flags |= flag(fareInfo.getPeakFare(), HAS_PEAK_FARE) | flag(fareInfo.getOffPeakFare(), HAS_OFF_PEAK_FARE);
+        }
+        out.write(flags);
+        writeString(out, result.getPostcode());
+        writeString(out, result.getZone());
+        writeString(out, result.getArea());
+        out.write(result.getZoneNumber() != null ? result.getZoneNumber() : 0);
+        writeInt(out, scale(result.getLatitude(), MICRO_DEGREES));
+        writeInt(out, scale(result.getLongitude(), MICRO_DEGREES));
+        writeInt(out, scale(result.getDistanceFromCentreKm(), METRES_PER_KM));
+        writeInt(out, fareInfo != null ? scale(fareInfo.getPeakFare(), PENCE) : 0);
+        writeInt(out, fareInfo != null ? scale(fareInfo.getOffPeakFare(), PENCE) : 0);
+        writeString(out, fareInfo != null ? fareInfo.getCurrency() : null);
+    }
+
+    private ZoneLookupResult readZoneLookup(ByteBuffer in) {
+        byte flags = in.get();
+        String postcode = readString(in, false);
+        String zone = readString(in, true);
+        String area = readString(in, true);
+        int zoneNumber = in.get();
+        int latitude = in.getInt();
+        int longitude = in.getInt();
+        int distance = in.getInt();
+        int peakFare = in.getInt();
+        int offPeakFare = in.getInt();
+        String currency = readString(in, true);
+
+        ZoneLookupResult.FareInfo fareInfo = null;
+        if ((flags & HAS_FARE_INFO) != 0) {
+            fareInfo = ZoneLookupResult.FareInfo.builder()
+                .peakFare(unscale(flags, HAS_PEAK_FARE, peakFare, PENCE))
+                .offPeakFare(unscale(flags, HAS_OFF_PEAK_FARE, offPeakFare, PENCE))
+                .currency(currency)
+                .build();
+        }
+        return ZoneLookupResult.builder()
+            .postcode(postcode)
+            .zone(zone)
+            .zoneNumber((flags & HAS_ZONE_NUMBER) != 0 ? zoneNumber : null)
+            .area(area)
+            .latitude(unscale(flags, HAS_LATITUDE, latitude, MICRO_DEGREES))
+            .longitude(unscale(flags, HAS_LONGITUDE, longitude, MICRO_DEGREES))
+            .distanceFromCentreKm(unscale(flags, HAS_DISTANCE, distance, METRES_PER_KM))
+            .fareInfo(fareInfo)
+            .build();
+    }
+
+    private void writePostcode(ByteArrayOutputStream out, Postcode postcode) {
+        out.write(flag(postcode.getLatitude(), HAS_LATITUDE) | flag(postcode.getLongitude(), HAS_LONGITUDE));
+        writeString(out, postcode.getPostcode());
+        writeInt(out, scale(postcode.getLatitude(), MICRO_DEGREES));
+        writeInt(out, scale(postcode.getLongitude(), MICRO_DEGREES));
+        writeString(out, postcode.getAdminDistrict());
+        writeString(out, postcode.getRegion());
+        writeString(out, postcode.getCountry());
+    }
+
+    private Postcode readPostcode(ByteBuffer in) {
+        byte flags = in.get();
+        String postcode = readString(in, false);
+        int latitude = in.getInt();
+        int longitude = in.getInt();
+        return Postcode.builder()
+            .postcode(postcode)
+            .latitude(unscale(flags, HAS_LATITUDE, latitude, MICRO_DEGREES))
+            .longitude(unscale(flags, HAS_LONGITUDE, longitude, MICRO_DEGREES))
+            .adminDistrict(readString(in, true))
+            .region(readString(in, true))
+            .country(readString(in, true))
+            .build();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(STRING_NULL);
+            return;
+        }
+        Integer id = DICTIONARY_IDS.get(value);
+        if (id != null) {
+            out.write(id);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_LITERAL_LENGTH) {
+            throw new SerializationException("String too long for cache codec: " + bytes.length + " bytes");
+        }
+        out.write(STRING_LITERAL);
+        out.write(bytes.length >>> 8);
+        out.write(bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private String readString(ByteBuffer in, boolean shared) {
+        int tag = in.get() & 0xFF;
+        if (tag == STRING_NULL) {
+            return null;
+        }
+        if (tag != STRING_LITERAL) {
+            return DICTIONARY.get(tag - 1);
+        }
+        int length = in.getShort() & 0xFFFF;
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return shared ? intern(value) : value;
+    }
+
+    private String intern(String value) {
+        String existing = interned.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() >= MAX_INTERNED) {
+            return value;
+        }
+        existing = interned.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    private static int flag(Object value, byte flag) {
+        return value != null ? flag : 0;
+    }
+
+    private static int scale(Double value, double factor) {
+        return value != null ? (int) Math.round(value * factor) : 0;
+    }
+
+    private static Double unscale(byte flags, byte flag, int value, double factor) {
+        return (flags & flag) != 0 ? value / factor : null;
+    }
+}
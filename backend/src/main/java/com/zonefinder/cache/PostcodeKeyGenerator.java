@@ -0,0 +1,58 @@
+package com.zonefinder.cache;
+
+import com.zonefinder.util.PostcodeKey;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Cache keys for the postcode-keyed caches
+ * Postcodes are reduced to their packed {@link PostcodeKey}, so "sw1a1aa",
+ * "SW1A 1AA" and " SW1A  1AA" share one entry in both tiers. Arguments that
+ * are not postcodes are used as they are.
+ *
+ * Before keys were canonical, entries were stored under the postcode as given,
+ * mostly in its formatted or compact spelling; {@link #legacyKeys(Object)}
+ * lists those so existing entries can still be found and moved over.
+ */
+public class PostcodeKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return canonical(params.length > 0 ? params[0] : null);
+    }
+
+    /**
+     * Canonical cache key of a postcode
+     * @param postcode Postcode in any spacing or case, or an already canonical key
+     * @return Packed key as a Long, or the argument itself if it is not a postcode
+     */
+    public static Object canonical(Object postcode) {
+        if (postcode instanceof CharSequence text) {
+            long key = PostcodeKey.parse(text);
+            if (key != PostcodeKey.INVALID) {
+                return key;
+            }
+        }
+        return postcode;
+    }
+
+    /**
+     * Formatted postcode behind a cache key, e.g. for refreshing its entry
+     */
+    public static String postcode(Object key) {
+        return key instanceof Long packed ? PostcodeKey.format(packed) : String.valueOf(key);
+    }
+
+    /**
+     * Keys the entry for a canonical key may still be stored under: the formatted and compact spellings
+     */
+    public static List<Object> legacyKeys(Object key) {
+        if (!(key instanceof Long packed)) {
+            return List.of();
+        }
+        String formatted = PostcodeKey.format(packed);
+        return List.of(formatted, formatted.replace(" ", ""));
+    }
+}
@@ -0,0 +1,118 @@
+package com.zonefinder.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stale-while-revalidate policy shared by the two-tier caches
+ *
+ * Entries carry a soft expiry ({@link CacheEntry}). Reads past it still return
+ * the stale value and queue a background refresh, so expiry never costs a
+ * request an upstream round trip. Reads shortly before it refresh early with a
+ * probability that rises towards the expiry (XFetch), which spreads out hot keys
+ * loaded at the same time. Redis keeps entries for the longer hard TTL, which
+ * only comes into play when refreshes keep failing, e.g. during an outage.
+ */
+@Slf4j
+public class RefreshPolicy implements DisposableBean {
+
+    private final Duration softTtl;
+    private final Duration hardTtl;
+    private final double beta;
+    private final int defaultLoadMillis;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param softTtl Age after which entries are refreshed in the background
+     * @param hardTtl Age after which Redis drops entries that could not be refreshed
+     * @param beta XFetch factor; larger values start early refreshes sooner
+     * @param defaultLoadTime Assumed load time for entries stored without one
+     * @param threads Background refresh threads
+     * @param queueCapacity Refreshes that may wait for a thread before new ones are skipped
+     */
+    public RefreshPolicy(Duration softTtl, Duration hardTtl, double beta, Duration defaultLoadTime,
+                         int threads, int queueCapacity) {
+        if (hardTtl.compareTo(softTtl) < 0) {
+            throw new IllegalArgumentException("Hard TTL " + hardTtl + " is shorter than soft TTL " + softTtl);
+        }
+        this.softTtl = softTtl;
+        this.hardTtl = hardTtl;
+        this.beta = beta;
+        this.defaultLoadMillis = (int) defaultLoadTime.toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Duration getHardTtl() {
+        return hardTtl;
+    }
+
+    /**
+     * Wrap a freshly loaded value with its soft expiry
+     * @param loadMillis How long the load took, or a negative value if unknown
+     * @param tag Version tag of the value, may be null
+     */
+    public CacheEntry wrap(Object value, long loadMillis, String tag) {
+        int load = loadMillis >= 0 ? (int) Math.min(loadMillis, Integer.MAX_VALUE) : defaultLoadMillis;
+        return new CacheEntry(value, System.currentTimeMillis() + softTtl.toMillis(), load, tag);
+    }
+
+    /**
+     * Whether the entry is stale, or close enough to going stale to refresh early
+     */
+    public boolean isDue(CacheEntry entry, long now) {
+        if (now >= entry.softExpiresAt()) {
+            return true;
+        }
+        // XFetch: -ln(u) is exponentially distributed, so the odds grow as expiry nears
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return now - entry.loadMillis() * beta * Math.log(u) >= entry.softExpiresAt();
+    }
+
+    /**
+     * Queue a refresh unless one for the same entry is already pending
+     * @param id Identifies the entry across caches
+     * @return false when the refresh was skipped (duplicate or queue full)
+     */
+    boolean submit(String id, Runnable refresh) {
+        if (!refreshing.add(id)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh.run();
+                } finally {
+                    refreshing.remove(id);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            refreshing.remove(id);
+            log.debug("Refresh queue full, skipping refresh of {}", id);
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+package com.zonefinder.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.dto.ZoneLookupResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Serialized JSON bodies of zone lookup responses, per packed postcode
+ *
+ * A body is reused only while the lookup still returns the very result object
+ * it was serialized from, i.e. while that result sits unchanged in the near
+ * cache. A refresh, an eviction or a dataset/tariff change replaces the result
+ * and so the body, without this cache having to be told. Bodies carry no
+ * timestamp, so equal results give byte-identical bodies and the same strong
+ * ETag on every node.
+ */
+public class ResponseBodyCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, Body> bodies;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * A serialized response and the result it was built from
+     * @param etag Quoted strong entity tag derived from the bytes
+     */
+    public record Body(ZoneLookupResult source, byte[] json, String etag) {
+    }
+
+    public ResponseBodyCache(ObjectMapper objectMapper, long maximumSize, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.hits = bodyCounter(meterRegistry, "hit");
+        this.misses = bodyCounter(meterRegistry, "miss");
+    }
+
+    /**
+     * Serialized success response for a lookup result
+     * @param key Packed postcode of the lookup
+     * @param result What the lookup returned
+     */
+    public Body get(long key, ZoneLookupResult result) throws JsonProcessingException {
+        Body cached = bodies.getIfPresent(key);
+        if (cached != null && cached.source() == result) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        byte[] json = objectMapper.writeValueAsBytes(ZoneLookupResponse.builder()
+            .success(true)
+            .data(result)
+            .build());
+        Body body = new Body(result, json, etagOf(json));
+        // Degraded results are never cached, so their bodies would not be reused
+        if (!result.isDegraded()) {
+            bodies.put(key, body);
+        }
+        return body;
+    }
+
+    // First 64 bits of the SHA-256 of the body
+    private static String etagOf(byte[] json) {
+        try {
+            return '"' + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 8) + '"';
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static Counter bodyCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("zone.response.body.cache")
+            .tag("result", result)
+            .description("Zone lookup responses written from cached JSON bodies")
+            .register(meterRegistry);
+    }
+}
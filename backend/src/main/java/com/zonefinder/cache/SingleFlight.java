@@ -0,0 +1,108 @@
+package com.zonefinder.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-key de-duplication of in-flight loads
+ * The first caller for a key runs the loader; callers arriving while it is
+ * still running wait for and share its result (or failure) instead of
+ * starting their own. Once the load finishes the key is free again.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter originating;
+    private final Counter coalesced;
+
+    /**
+     * @param meterRegistry Registry for the zone.coalescing counters
+     * @param name Value of the "flight" tag identifying this instance
+     */
+    public SingleFlight(MeterRegistry meterRegistry, String name) {
+        this.originating = counter(meterRegistry, name, "originating");
+        this.coalesced = counter(meterRegistry, name, "coalesced");
+    }
+
+    /**
+     * Run a blocking load on the calling thread, or join the one already running
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+        originating.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Start an asynchronous load, or return the one already running
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        originating.increment();
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(ex);
+        }
+        return flight;
+    }
+
+    /**
+     * Number of keys currently being loaded
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String role) {
+        return Counter.builder("zone.coalescing")
+            .tag("flight", name)
+            .tag("role", role)
+            .description("Loads started vs. joined by per-key request coalescing")
+            .register(meterRegistry);
+    }
+}
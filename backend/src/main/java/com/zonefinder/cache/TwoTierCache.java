@@ -0,0 +1,572 @@
+package com.zonefinder.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.zonefinder.metrics.LookupMetrics;
+import com.zonefinder.metrics.LookupMetrics.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Cache with an in-heap Caffeine near cache (L1) in front of a Redis cache (L2)
+ * Reads are served from L1 when possible and L2 hits are promoted into L1.
+ * Writes go to both tiers and are broadcast so other nodes drop their L1 copy.
+ *
+ * Both tiers hold {@link CacheEntry} envelopes. Once a refresher is registered,
+ * reads of stale or nearly stale entries return the cached value and refresh it
+ * in the background as decided by the {@link RefreshPolicy}. With a
+ * {@link CacheVersioning} set, entries are tagged when written and entries whose
+ * tag is no longer current for their key are treated as misses.
+ *
+ * When keys change representation, a key alias function lists the keys an
+ * entry may still be stored under. Redis misses then try those, and entries
+ * found there are copied to the new key. Values written before entries had an
+ * envelope are copied as untagged entries with a fresh soft expiry.
+ */
+@Slf4j
+public class TwoTierCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final Cache<Object, Object> nearCache;
+    private final RedisCache redisCache;
+    private final RedisConnectionFactory connectionFactory;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final RefreshPolicy refreshPolicy;
+    private volatile Function<Object, Object> refresher;
+    private volatile CacheVersioning versioning;
+    private final Function<Object, List<Object>> keyAliases;
+    private final LookupMetrics lookupMetrics;
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter redisEvictions;
+    private final Counter staleServed;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+    private final Counter outdated;
+    private final Counter lookupHits;
+    private final Counter lookupMisses;
+    private final Counter legacyHits;
+
+    public TwoTierCache(
+        String name,
+        Cache<Object, Object> nearCache,
+        RedisCache redisCache,
+        RedisConnectionFactory connectionFactory,
+        CacheInvalidationPublisher invalidationPublisher,
+        RefreshPolicy refreshPolicy,
+        Function<Object, List<Object>> keyAliases,
+        MeterRegistry meterRegistry,
+        LookupMetrics lookupMetrics
+    ) {
+        this.name = name;
+        this.nearCache = nearCache;
+        this.redisCache = redisCache;
+        this.connectionFactory = connectionFactory;
+        this.invalidationPublisher = invalidationPublisher;
+        this.refreshPolicy = refreshPolicy;
+        this.keyAliases = keyAliases;
+        this.lookupMetrics = lookupMetrics;
+        this.redisHits = redisGetCounter(meterRegistry, "hit");
+        this.redisMisses = redisGetCounter(meterRegistry, "miss");
+        this.redisEvictions = Counter.builder("cache.evictions")
+            .tag("cache", name)
+            .tag("tier", "l2")
+            .description("Explicit evictions from the Redis tier")
+            .register(meterRegistry);
+        this.staleServed = Counter.builder("cache.stale.served")
+            .tag("cache", name)
+            .description("Reads answered with a stale value while it was refreshed")
+            .register(meterRegistry);
+        this.refreshSuccesses = refreshCounter(meterRegistry, "success");
+        this.refreshFailures = refreshCounter(meterRegistry, "failure");
+        this.outdated = Counter.builder("cache.outdated")
+            .tag("cache", name)
+            .description("Entries dropped on read because their version tag is no longer current")
+            .register(meterRegistry);
+        this.lookupHits = lookupCounter(meterRegistry, "hit");
+        this.lookupMisses = lookupCounter(meterRegistry, "miss");
+        this.legacyHits = Counter.builder("cache.legacy.hits")
+            .tag("cache", name)
+            .description("Redis misses found under a legacy key and copied to the current key")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Register how entries of this cache are recomputed in the background
+     * The loader must bypass this cache; returning null evicts the entry and
+     * throwing keeps serving the stale value until the hard TTL.
+     */
+    public void setRefresher(Function<Object, Object> refresher) {
+        this.refresher = refresher;
+    }
+
+    /**
+     * Tag entries with a data version and drop outdated ones on read
+     */
+    public void setVersioning(CacheVersioning versioning) {
+        this.versioning = versioning;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookup(key);
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(key);
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            long started = System.nanoTime();
+            T loaded = valueLoader.call();
+            if (loaded != null) {
+                store(key, entry(loaded, elapsedMillis(started)));
+            }
+            return loaded;
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        store(key, wrap(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        CacheEntry entry = wrap(value);
+        ValueWrapper existing = redisCache.putIfAbsent(key, entry);
+        if (existing == null) {
+            nearCache.put(key, entry);
+            invalidationPublisher.publishEvict(name, String.valueOf(key));
+            return null;
+        }
+        Object current = unwrap(key, existing.get());
+        if (current == null) {
+            // The existing entry is outdated, so it is replaced
+            store(key, entry);
+            return null;
+        }
+        return new SimpleValueWrapper(current);
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        redisEvictions.increment();
+        nearCache.invalidate(key);
+        invalidationPublisher.publishEvict(name, String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        nearCache.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Look up many keys at once: near cache first, then one Redis MGET for the rest
+     * @param keys Keys to look up
+     * @return Cached values by key; keys without an entry are absent
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new HashMap<>();
+        List<Object> remaining = new ArrayList<>();
+        for (Object key : keys) {
+            Object value = nearCache.getIfPresent(key);
+            value = value != null ? unwrap(key, value) : null;
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            getAllFromRedis(remaining, found);
+        }
+        lookupHits.increment(found.size());
+        lookupMisses.increment(keys.size() - found.size());
+        return found;
+    }
+
+    /**
+     * Store many entries in both tiers, writing Redis in a single pipeline
+     * Freshly loaded entries were misses on this node, so no invalidation is
+     * broadcast; other nodes' near caches cannot outlive the Redis entry anyway.
+     */
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<Object, Object> wrapped = new HashMap<>();
+        entries.forEach((key, value) -> wrapped.put(key, wrap(value)));
+        writeAll(wrapped);
+        wrapped.forEach((key, value) -> nearCache.put(key, value));
+    }
+
+    /**
+     * Near-cache-only lookup, for callers that reach Redis themselves (reactive path)
+     */
+    public Object getLocal(Object key) {
+        Object stored = nearCache.getIfPresent(key);
+        return stored != null ? unwrap(key, stored) : null;
+    }
+
+    /**
+     * Store in the near cache only, for callers that wrote Redis themselves
+     * @param stored Value as stored in Redis, i.e. as returned by {@link #wrap(Object)}
+     */
+    public void putLocal(Object key, Object stored) {
+        nearCache.put(key, stored);
+    }
+
+    /**
+     * Envelope a value the way this cache stores it in either tier
+     */
+    public CacheEntry wrap(Object value) {
+        return entry(value, -1);
+    }
+
+    /**
+     * Value held by a stored entry, queueing a refresh if the entry is due for one
+     * @return The value, or null if the entry is outdated (it is then dropped from the near cache)
+     */
+    public Object unwrap(Object key, Object stored) {
+        CacheVersioning currentVersioning = versioning;
+        if (currentVersioning != null
+            && !currentVersioning.isCurrent(key, stored instanceof CacheEntry entry ? entry.tag() : null)) {
+            outdated.increment();
+            nearCache.invalidate(key);
+            return null;
+        }
+        if (!(stored instanceof CacheEntry entry)) {
+            return stored;
+        }
+        long now = System.currentTimeMillis();
+        if (refresher != null && refreshPolicy.isDue(entry, now)) {
+            if (now >= entry.softExpiresAt()) {
+                staleServed.increment();
+            }
+            refreshPolicy.submit(name + '|' + key, () -> refresh(key));
+        }
+        return entry.value();
+    }
+
+    /**
+     * Record the outcome of a Redis lookup made outside this class
+     */
+    public void recordRedisLookup(boolean hit) {
+        (hit ? redisHits : redisMisses).increment();
+    }
+
+    /**
+     * Record the overall outcome of a lookup made outside this class
+     */
+    public void recordLookup(boolean hit) {
+        (hit ? lookupHits : lookupMisses).increment();
+    }
+
+    /**
+     * Keys an entry may still be stored under, for callers that reach Redis themselves
+     */
+    public List<Object> legacyKeys(Object key) {
+        return keyAliases != null ? keyAliases.apply(key) : List.of();
+    }
+
+    /**
+     * Entry to copy to the current key for a value found under a legacy key
+     */
+    public CacheEntry migrate(Object stored) {
+        return stored instanceof CacheEntry entry ? entry : refreshPolicy.wrap(stored, -1, null);
+    }
+
+    /**
+     * Record that a Redis miss was found under a legacy key (and copied by the caller)
+     */
+    public void recordLegacyHit() {
+        legacyHits.increment();
+    }
+
+    /**
+     * Full Redis key used for an entry, including the cache prefix
+     */
+    public String redisKey(Object key) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String converted = config.getConversionService().convert(key, String.class);
+        return config.usePrefix() ? config.getKeyPrefixFor(name) + converted : converted;
+    }
+
+    /**
+     * Redis time-to-live applied to an entry
+     */
+    public Duration timeToLive(Object key, Object value) {
+        return redisCache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+    }
+
+    /**
+     * Drop a key from this node's near cache only (remote invalidation)
+     * Keys travel in their string form; canonical postcode keys are Longs.
+     */
+    void evictLocal(String key) {
+        nearCache.invalidate(key);
+        if (!key.isEmpty() && key.chars().allMatch(Character::isDigit) && key.length() < 19) {
+            nearCache.invalidate(Long.valueOf(key));
+        }
+    }
+
+    /**
+     * Drop this node's near cache only (remote invalidation)
+     */
+    void clearLocal() {
+        nearCache.invalidateAll();
+    }
+
+    private Object lookup(Object key) {
+        LookupMetrics.Sample near = lookupMetrics.start(Stage.CACHE_L1).source(name);
+        Object stored = nearCache.getIfPresent(key);
+        near.outcome(stored != null ? "hit" : "miss").stop();
+        if (stored == null) {
+            LookupMetrics.Sample redis = lookupMetrics.start(Stage.CACHE_L2).source(name);
+            try {
+                ValueWrapper wrapper = redisCache.get(key);
+                stored = wrapper != null ? wrapper.get() : null;
+                (stored != null ? redisHits : redisMisses).increment();
+                if (stored == null) {
+                    stored = lookupLegacy(key);
+                }
+                redis.outcome(stored != null ? "hit" : "miss");
+            } catch (RuntimeException ex) {
+                redis.error(ex);
+                throw ex;
+            } finally {
+                redis.stop();
+            }
+            if (stored != null) {
+                nearCache.put(key, stored);
+            }
+        }
+        Object value = stored != null ? unwrap(key, stored) : null;
+        (value != null ? lookupHits : lookupMisses).increment();
+        return value;
+    }
+
+    private Object lookupLegacy(Object key) {
+        for (Object alias : legacyKeys(key)) {
+            ValueWrapper wrapper = redisCache.get(alias);
+            if (wrapper != null && wrapper.get() != null) {
+                // Copied rather than moved, so nodes still on the old keys keep finding it
+                legacyHits.increment();
+                CacheEntry migrated = migrate(wrapper.get());
+                redisCache.put(key, migrated);
+                return migrated;
+            }
+        }
+        return null;
+    }
+
+    private void getAllFromRedis(List<Object> keys, Map<Object, Object> found) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        List<Object> missed = new ArrayList<>();
+        List<byte[]> values = mGet(config, keys);
+        for (int i = 0; i < keys.size(); i++) {
+            Object stored = read(config, values, i);
+            Object key = keys.get(i);
+            if (stored == null) {
+                redisMisses.increment();
+                missed.add(key);
+                continue;
+            }
+            redisHits.increment();
+            nearCache.put(key, stored);
+            Object value = unwrap(key, stored);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        if (missed.isEmpty() || keyAliases == null) {
+            return;
+        }
+
+        List<Object> owners = new ArrayList<>();
+        List<Object> aliases = new ArrayList<>();
+        for (Object key : missed) {
+            for (Object alias : keyAliases.apply(key)) {
+                owners.add(key);
+                aliases.add(alias);
+            }
+        }
+        if (aliases.isEmpty()) {
+            return;
+        }
+        Map<Object, Object> migrated = new HashMap<>();
+        List<byte[]> aliasValues = mGet(config, aliases);
+        for (int i = 0; i < aliases.size(); i++) {
+            Object stored = read(config, aliasValues, i);
+            if (stored != null && !migrated.containsKey(owners.get(i))) {
+                migrated.put(owners.get(i), migrate(stored));
+            }
+        }
+        if (migrated.isEmpty()) {
+            return;
+        }
+        legacyHits.increment(migrated.size());
+        writeAll(migrated);
+        migrated.forEach((key, stored) -> {
+            nearCache.put(key, stored);
+            Object value = unwrap(key, stored);
+            if (value != null) {
+                found.put(key, value);
+            }
+        });
+    }
+
+    private List<byte[]> mGet(RedisCacheConfiguration config, List<Object> keys) {
+        byte[][] redisKeys = new byte[keys.size()][];
+        for (int i = 0; i < redisKeys.length; i++) {
+            redisKeys[i] = redisKey(config, keys.get(i));
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return connection.stringCommands().mGet(redisKeys);
+        }
+    }
+
+    private static Object read(RedisCacheConfiguration config, List<byte[]> values, int index) {
+        byte[] bytes = values != null ? values.get(index) : null;
+        return bytes != null ? config.getValueSerializationPair().read(ByteBuffer.wrap(bytes)) : null;
+    }
+
+    // Write already wrapped entries to Redis in a single pipeline
+    private void writeAll(Map<Object, Object> wrapped) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            wrapped.forEach((key, value) -> {
+                Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                byte[] bytes = toBytes(config.getValueSerializationPair().write(value));
+                Expiration expiration = ttl.isZero() || ttl.isNegative()
+                    ? Expiration.persistent()
+                    : Expiration.from(ttl);
+                connection.stringCommands().set(redisKey(config, key), bytes, expiration, SetOption.upsert());
+            });
+            connection.closePipeline();
+        }
+    }
+
+    private void refresh(Object key) {
+        Function<Object, Object> loader = refresher;
+        long started = System.nanoTime();
+        Object value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException ex) {
+            // Keep serving the stale entry; Redis drops it once the hard TTL passes
+            refreshFailures.increment();
+            log.debug("Background refresh of {} in '{}' failed: {}", key, name, ex.getMessage());
+            return;
+        }
+        refreshSuccesses.increment();
+        if (value == null) {
+            evict(key);
+        } else {
+            store(key, entry(value, elapsedMillis(started)));
+        }
+    }
+
+    private CacheEntry entry(Object value, long loadMillis) {
+        CacheVersioning currentVersioning = versioning;
+        return refreshPolicy.wrap(value, loadMillis, currentVersioning != null ? currentVersioning.currentTag() : null);
+    }
+
+    private void store(Object key, CacheEntry entry) {
+        redisCache.put(key, entry);
+        nearCache.put(key, entry);
+        invalidationPublisher.publishEvict(name, String.valueOf(key));
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    private byte[] redisKey(RedisCacheConfiguration config, Object key) {
+        return toBytes(config.getKeySerializationPair().write(redisKey(key)));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private Counter refreshCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.refreshes")
+            .tag("cache", name)
+            .tag("result", result)
+            .description("Background refreshes of stale or nearly stale entries")
+            .register(meterRegistry);
+    }
+
+    private Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.lookups")
+            .tag("cache", name)
+            .tag("result", result)
+            .description("Lookups answered from either tier vs. misses, for the overall hit ratio")
+            .register(meterRegistry);
+    }
+
+    private Counter redisGetCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.gets")
+            .tag("cache", name)
+            .tag("tier", "l2")
+            .tag("result", result)
+            .description("Lookups served by the Redis tier")
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,114 @@
+package com.zonefinder.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zonefinder.metrics.LookupMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Cache manager layering a bounded per-node Caffeine cache over Redis
+ * Each cache gets its own L1 (size- and TTL-evicting) while Redis stays the
+ * shared L2. It also listens for invalidations published by other nodes.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final RedisCacheManager redisCacheManager;
+    private final RedisConnectionFactory connectionFactory;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final RefreshPolicy refreshPolicy;
+    private final MeterRegistry meterRegistry;
+    private final long nearMaximumSize;
+    private final Duration nearTtl;
+    private final Function<Object, List<Object>> keyAliases;
+    private final LookupMetrics lookupMetrics;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(
+        RedisCacheManager redisCacheManager,
+        RedisConnectionFactory connectionFactory,
+        CacheInvalidationPublisher invalidationPublisher,
+        RefreshPolicy refreshPolicy,
+        MeterRegistry meterRegistry,
+        long nearMaximumSize,
+        Duration nearTtl,
+        Function<Object, List<Object>> keyAliases,
+        LookupMetrics lookupMetrics
+    ) {
+        this.redisCacheManager = redisCacheManager;
+        this.connectionFactory = connectionFactory;
+        this.invalidationPublisher = invalidationPublisher;
+        this.refreshPolicy = refreshPolicy;
+        this.meterRegistry = meterRegistry;
+        this.nearMaximumSize = nearMaximumSize;
+        this.nearTtl = nearTtl;
+        this.keyAliases = keyAliases;
+        this.lookupMetrics = lookupMetrics;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return getTwoTierCache(name);
+    }
+
+    /**
+     * Same as {@link #getCache(String)}, exposing the batch operations
+     */
+    public TwoTierCache getTwoTierCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parsed = invalidationPublisher.parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (parsed == null) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parsed[0]);
+        if (cache == null) {
+            return;
+        }
+        if (parsed[1].isEmpty()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parsed[1]);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache = Caffeine.newBuilder()
+            .maximumSize(nearMaximumSize)
+            .expireAfterWrite(nearTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, name, Tags.of("tier", "l1"));
+
+        RedisCache redisCache = (RedisCache) redisCacheManager.getCache(name);
+        log.info("Created two-tier cache '{}' (near cache max {} entries, ttl {})", name, nearMaximumSize, nearTtl);
+        return new TwoTierCache(name, nearCache, redisCache, connectionFactory, invalidationPublisher,
+            refreshPolicy, keyAliases, meterRegistry, lookupMetrics);
+    }
+}
@@ -0,0 +1,114 @@
+package com.zonefinder.client;
+
+/**
+ * AIMD limit on concurrent calls to an upstream, driven by its latency
+ *
+ * A call may start while fewer than the current limit are in flight; otherwise
+ * it is shed straight away instead of queueing behind the slow ones. The limit
+ * grows by one on each fast success while at least half of it is in use, and
+ * shrinks multiplicatively on each failure or on a success much slower than
+ * the baseline. The baseline is a slow moving average of latency over about
+ * the last 500 calls (Vegas-style): a sudden slowdown stands out against it,
+ * while a lasting change in upstream latency becomes the new normal.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final int BASELINE_CALLS = 500;
+
+    /**
+     * How a call ended, for adjusting the limit
+     */
+    public enum Outcome {
+        /** Completed normally; its latency is a sample */
+        SUCCESS,
+        /** Failed or timed out; a sign of overload */
+        DROPPED,
+        /** Says nothing about load, e.g. a not-found answer or a call of a different kind */
+        IGNORED
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+    private int samples;
+
+    /**
+     * @param initialLimit Concurrent calls allowed before any feedback
+     * @param minLimit Floor the limit never drops below
+     * @param maxLimit Ceiling the limit never grows past
+     * @param latencyTolerance Successes slower than this multiple of the average count as overload
+     * @param backoffRatio Factor the limit is multiplied by on overload, below 1
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double latencyTolerance, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                "Need 1 <= min <= initial <= max, got " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        if (latencyTolerance <= 1.0 || backoffRatio <= 0.0 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("Need tolerance > 1 and 0 < backoff ratio < 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Take a slot for a call
+     * @return false if the limit is reached and the call should be shed
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Give back the slot of a call acquired with {@link #tryAcquire()}
+     * @param latencyNanos How long the call took
+     */
+    public synchronized void release(Outcome outcome, long latencyNanos) {
+        boolean busy = inFlight * 2 >= limit;
+        inFlight--;
+        switch (outcome) {
+            case DROPPED -> backOff();
+            case SUCCESS -> {
+                if (samples > 0 && latencyNanos > baselineNanos * latencyTolerance) {
+                    backOff();
+                } else if (busy) {
+                    limit = Math.min(maxLimit, limit + 1);
+                }
+                sample(latencyNanos);
+            }
+            case IGNORED -> {
+            }
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void backOff() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void sample(long latencyNanos) {
+        // Plain mean of the first calls, then an exponential average with the same weight
+        samples = Math.min(samples + 1, BASELINE_CALLS);
+        baselineNanos += (latencyNanos - baselineNanos) / samples;
+    }
+}
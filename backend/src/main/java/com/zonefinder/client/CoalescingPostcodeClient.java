@@ -0,0 +1,179 @@
+package com.zonefinder.client;
+
+import com.zonefinder.cache.PostcodeKeyGenerator;
+import com.zonefinder.cache.SingleFlight;
+import com.zonefinder.cache.TwoTierCacheManager;
+import com.zonefinder.domain.Postcode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single-flight front for {@link PostcodesIoClient}
+ *
+ * Concurrent requests for the same postcode share one upstream call instead of
+ * each missing the cache and calling Postcodes.io. With the distributed mode
+ * enabled, nodes also take a short Redis lease per postcode; nodes that find the
+ * lease taken wait for the owner's result to appear in the shared "postcodes"
+ * cache, falling back to their own call once the lease would have expired.
+ */
+@Component
+@Slf4j
+public class CoalescingPostcodeClient {
+
+    private static final String LEASE_PREFIX = "zonefinder:lease:postcodes:";
+    private static final RedisScript<Long> RELEASE_LEASE = RedisScript.of(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+    private static final Duration REFRESH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final PostcodesIoClient postcodesIoClient;
+    private final TwoTierCacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final SingleFlight<String, Postcode> flights;
+    // Refreshes must never join a cached read, which could hand back the stale entry being refreshed
+    private final SingleFlight<String, Postcode> refreshFlights;
+    private final Counter remoteHits;
+    private final boolean distributed;
+    private final Duration leaseTtl;
+    private final Duration pollInterval;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CoalescingPostcodeClient(
+        PostcodesIoClient postcodesIoClient,
+        @Nullable TwoTierCacheManager cacheManager,
+        @Nullable StringRedisTemplate redisTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${postcodes.coalescing.distributed:false}") boolean distributed,
+        @Value("${postcodes.coalescing.lease-ttl:2s}") Duration leaseTtl,
+        @Value("${postcodes.coalescing.poll-interval:50ms}") Duration pollInterval
+    ) {
+        this.postcodesIoClient = postcodesIoClient;
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.flights = new SingleFlight<>(meterRegistry, "postcodes");
+        this.refreshFlights = new SingleFlight<>(meterRegistry, "postcodes-refresh");
+        this.remoteHits = Counter.builder("zone.coalescing")
+            .tag("flight", "postcodes")
+            .tag("role", "remote")
+            .description("Loads started vs. joined by per-key request coalescing")
+            .register(meterRegistry);
+        this.distributed = distributed && redisTemplate != null;
+        this.leaseTtl = leaseTtl;
+        this.pollInterval = pollInterval;
+    }
+
+    @PostConstruct
+    void registerRefresher() {
+        if (cacheManager == null) {
+            return;
+        }
+        cacheManager.getTwoTierCache("postcodes")
+            .setRefresher(key -> fetchUncached(PostcodeKeyGenerator.postcode(key)));
+    }
+
+    /**
+     * Fetch a postcode without reading the postcodes cache, and store the
+     * result there so it is no staler than whatever was built from it
+     * @param postcode Canonical (formatted) postcode
+     */
+    public Postcode refreshPostcode(String postcode) {
+        Postcode postcodeData = fetchUncached(postcode);
+        if (postcodeData != null && cacheManager != null) {
+            cacheManager.getTwoTierCache("postcodes").put(PostcodeKeyGenerator.canonical(postcode), postcodeData);
+        }
+        return postcodeData;
+    }
+
+    private Postcode fetchUncached(String postcode) {
+        // Refreshes must not read through the cache, so they use the uncached reactive call
+        return refreshFlights.execute(postcode,
+            () -> postcodesIoClient.fetchPostcodeReactive(postcode).block(REFRESH_TIMEOUT));
+    }
+
+    /**
+     * Fetch a postcode, sharing any identical fetch already in flight
+     * @param postcode Canonical (formatted) postcode, so variants share a flight
+     */
+    public Postcode fetchPostcode(String postcode) {
+        return flights.execute(postcode, () -> distributed
+            ? fetchWithLease(postcode)
+            : postcodesIoClient.fetchPostcode(postcode));
+    }
+
+    /**
+     * Reactive variant; shares flights with the blocking path on this node
+     * @param postcode Canonical (formatted) postcode
+     */
+    public Mono<Postcode> fetchPostcodeReactive(String postcode) {
+        // Cancelling one subscriber must not cancel the flight other callers share
+        return Mono.fromFuture(() -> flights.executeAsync(postcode,
+            () -> postcodesIoClient.fetchPostcodeReactive(postcode).toFuture()), true);
+    }
+
+    private Postcode fetchWithLease(String postcode) {
+        String leaseKey = LEASE_PREFIX + postcode;
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey, nodeId, leaseTtl);
+        } catch (RuntimeException ex) {
+            log.warn("Could not take upstream lease for {}: {}", postcode, ex.getMessage());
+            acquired = Boolean.TRUE;
+        }
+
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                return postcodesIoClient.fetchPostcode(postcode);
+            } finally {
+                releaseLease(leaseKey);
+            }
+        }
+
+        Postcode remote = awaitRemoteResult(postcode);
+        if (remote != null) {
+            remoteHits.increment();
+            return remote;
+        }
+        return postcodesIoClient.fetchPostcode(postcode);
+    }
+
+    private Postcode awaitRemoteResult(String postcode) {
+        Cache postcodes = cacheManager.getCache("postcodes");
+        Object key = PostcodeKeyGenerator.canonical(postcode);
+        long deadline = System.nanoTime() + leaseTtl.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Postcode cached = postcodes != null ? postcodes.get(key, Postcode.class) : null;
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private void releaseLease(String leaseKey) {
+        try {
+            redisTemplate.execute(RELEASE_LEASE, List.of(leaseKey), nodeId);
+        } catch (RuntimeException ex) {
+            // The lease expires on its own shortly
+            log.debug("Could not release upstream lease {}: {}", leaseKey, ex.getMessage());
+        }
+    }
+}
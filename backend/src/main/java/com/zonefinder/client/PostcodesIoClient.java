@@ -2,33 +2,96 @@ package com.zonefinder.client;
 
 import com.zonefinder.domain.Postcode;
 import com.zonefinder.exception.PostcodeNotFoundException;
+import com.zonefinder.exception.UpstreamUnavailableException;
+import com.zonefinder.metrics.LookupMetrics;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Client for Postcodes.io API
  * Handles all external API calls with circuit breaker and retry logic
+ *
+ * Every attempt also needs a slot from the {@link AdaptiveConcurrencyLimiter};
+ * when none is free the call fails fast with {@link UpstreamUnavailableException}
+ * rather than queueing, and is neither retried nor counted by the circuit breaker.
+ * Successful calls top up the {@link RetryBudget} that retries draw from.
  */
 @Component
 @Slf4j
 public class PostcodesIoClient {
     
+    /**
+     * Largest number of postcodes Postcodes.io accepts in one bulk request
+     */
+    public static final int MAX_BULK_SIZE = 100;
+    
+    /**
+     * Message of lookups Postcodes.io could not answer
+     */
+    public static final String UNAVAILABLE = "Postcode service temporarily unavailable. Please try again later.";
+    
+    private static final String INSTANCE = "postcodesApi";
+    
     private final WebClient webClient;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RetryRegistry retryRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryBudget retryBudget;
+    private final Counter shedCalls;
     
     public PostcodesIoClient(
-        @Value("${postcodes.api.base-url:https://api.postcodes.io}") String baseUrl
+        @Value("${postcodes.api.base-url:https://api.postcodes.io}") String baseUrl,
+        @Value("${postcodes.api.max-connections:500}") int maxConnections,
+        CircuitBreakerRegistry circuitBreakerRegistry,
+        RetryRegistry retryRegistry,
+        AdaptiveConcurrencyLimiter concurrencyLimiter,
+        RetryBudget retryBudget,
+        LookupMetrics lookupMetrics,
+        MeterRegistry meterRegistry
     ) {
+        // Reactive callers can have far more lookups in flight than there are
+        // connections, so waiters queue for a connection instead of failing
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("postcodes-io")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(-1)
+            .build();
         this.webClient = WebClient.builder()
             .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
             .build();
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryRegistry = retryRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.retryBudget = retryBudget;
+        this.shedCalls = Counter.builder("postcodes.api.shed")
+            .description("Postcodes.io calls failed fast because the concurrency limit was reached")
+            .register(meterRegistry);
+        // The retry predicate is asked again after the last attempt and withdraws
+        // a token for a retry that never happens; hand it back once retries run out
+        retryRegistry.retry(INSTANCE).getEventPublisher()
+            .onRetry(event -> lookupMetrics.recordRetry())
+            .onError(event -> retryBudget.refund());
     }
     
     /**
@@ -39,11 +102,14 @@ public class PostcodesIoClient {
      * @return Postcode domain object
      * @throws PostcodeNotFoundException if postcode not found
      */
-    @Cacheable(value = "postcodes", key = "#postcode", unless = "#result == null")
+    @Cacheable(value = "postcodes", keyGenerator = "postcodeKeyGenerator", unless = "#result == null")
     @CircuitBreaker(name = "postcodesApi", fallbackMethod = "fetchPostcodeFallback")
     @Retry(name = "postcodesApi")
     public Postcode fetchPostcode(String postcode) {
         log.info("Fetching postcode data for: {}", postcode);
+        acquireSlot();
+        long started = System.nanoTime();
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.DROPPED;
         
         try {
             Map<String, Object> response = webClient
@@ -54,29 +120,130 @@ public class PostcodesIoClient {
                 .block();
             
             if (response == null || !response.containsKey("result")) {
+                outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORED;
                 throw new PostcodeNotFoundException("Postcode not found: " + postcode);
             }
             
             Map<String, Object> result = (Map<String, Object>) response.get("result");
             
-            return Postcode.builder()
-                .postcode((String) result.get("postcode"))
-                .latitude((Double) result.get("latitude"))
-                .longitude((Double) result.get("longitude"))
-                .adminDistrict((String) result.get("admin_district"))
-                .region((String) result.get("region"))
-                .country((String) result.get("country"))
-                .build();
+            outcome = AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+            return toPostcode(result);
                 
+        } catch (PostcodeNotFoundException e) {
+            throw e;
         } catch (WebClientResponseException.NotFound e) {
             log.warn("Postcode not found: {}", postcode);
+            outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORED;
             throw new PostcodeNotFoundException("Postcode not found: " + postcode);
         } catch (Exception e) {
             log.error("Error fetching postcode: {}", postcode, e);
             throw new RuntimeException("Failed to fetch postcode data", e);
+        } finally {
+            releaseSlot(outcome, started);
+        }
+    }
+    
+    /**
+     * Non-blocking variant of {@link #fetchPostcode(String)}
+     * The same circuit breaker and retry instances are applied through their
+     * Reactor operators, so retry back-off waits never hold a thread.
+     * Not cached here; callers handle caching reactively.
+     * 
+     * @param postcode The postcode to look up
+     * @return Postcode data, or an error with PostcodeNotFoundException if not found
+     */
+    public Mono<Postcode> fetchPostcodeReactive(String postcode) {
+        return Mono.defer(() -> {
+            acquireSlot();
+            long started = System.nanoTime();
+            return webClient
+                .get()
+                .uri("/postcodes/{postcode}", postcode)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .map(response -> {
+                    if (!(response.get("result") instanceof Map<?, ?> result)) {
+                        throw new PostcodeNotFoundException("Postcode not found: " + postcode);
+                    }
+                    return toPostcode((Map<String, Object>) result);
+                })
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                    e -> new PostcodeNotFoundException("Postcode not found: " + postcode))
+                .doOnSuccess(data -> releaseSlot(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, started))
+                .doOnError(e -> releaseSlot(e instanceof PostcodeNotFoundException
+                    ? AdaptiveConcurrencyLimiter.Outcome.IGNORED : AdaptiveConcurrencyLimiter.Outcome.DROPPED, started))
+                .doOnCancel(() -> releaseSlot(AdaptiveConcurrencyLimiter.Outcome.IGNORED, started));
+        })
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(INSTANCE)))
+            .transformDeferred(RetryOperator.of(retryRegistry.retry(INSTANCE)))
+            .onErrorMap(CallNotPermittedException.class, e -> {
+                log.error("Circuit breaker open for postcode: {}", postcode);
+                return new UpstreamUnavailableException(UNAVAILABLE);
+            });
+    }
+    
+    /**
+     * Fetch up to {@link #MAX_BULK_SIZE} postcodes with one bulk request
+     * Uses the same circuit breaker and retry policy as single lookups
+     * 
+     * @param postcodes The postcodes to look up
+     * @return Postcode data keyed by the query string; unknown postcodes are absent
+     */
+    @CircuitBreaker(name = "postcodesApi", fallbackMethod = "fetchPostcodesFallback")
+    @Retry(name = "postcodesApi")
+    public Map<String, Postcode> fetchPostcodes(List<String> postcodes) {
+        if (postcodes.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " postcodes per bulk request");
+        }
+        log.info("Fetching bulk postcode data for {} postcodes", postcodes.size());
+        acquireSlot();
+        long started = System.nanoTime();
+        // Bulk latency is not comparable with single lookups, so it does not move the limit
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.DROPPED;
+        
+        try {
+            Map<String, Object> response = webClient
+                .post()
+                .uri("/postcodes")
+                .bodyValue(Map.of("postcodes", postcodes))
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block();
+            
+            retryBudget.recordSuccess();
+            outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+            Map<String, Postcode> found = new HashMap<>();
+            if (response == null || !(response.get("result") instanceof List<?> results)) {
+                return found;
+            }
+            for (Object item : results) {
+                Map<String, Object> entry = (Map<String, Object>) item;
+                Map<String, Object> result = (Map<String, Object>) entry.get("result");
+                if (result != null) {
+                    found.put((String) entry.get("query"), toPostcode(result));
+                }
+            }
+            return found;
+            
+        } catch (Exception e) {
+            log.error("Error fetching bulk postcodes", e);
+            throw new RuntimeException("Failed to fetch bulk postcode data", e);
+        } finally {
+            releaseSlot(outcome, started);
         }
     }
     
+    private Postcode toPostcode(Map<String, Object> result) {
+        return Postcode.builder()
+            .postcode((String) result.get("postcode"))
+            .latitude((Double) result.get("latitude"))
+            .longitude((Double) result.get("longitude"))
+            .adminDistrict((String) result.get("admin_district"))
+            .region((String) result.get("region"))
+            .country((String) result.get("country"))
+            .build();
+    }
+    
     /**
      * Fallback method when circuit breaker is open
      */
@@ -85,7 +252,44 @@ public class PostcodesIoClient {
             // Propagate functional 404 errors without wrapping so the controller can respond with 404
             throw pne;
         }
+        throwIfNotCalled(e);
         log.error("Circuit breaker fallback triggered for postcode: {}", postcode, e);
-        throw new RuntimeException("Postcode service temporarily unavailable. Please try again later.");
+        throw new RuntimeException(UNAVAILABLE);
+    }
+    
+    /**
+     * Fallback method for bulk lookups when circuit breaker is open
+     */
+    private Map<String, Postcode> fetchPostcodesFallback(List<String> postcodes, Exception e) {
+        throwIfNotCalled(e);
+        log.error("Circuit breaker fallback triggered for bulk lookup of {} postcodes", postcodes.size(), e);
+        throw new RuntimeException(UNAVAILABLE);
+    }
+    
+    /**
+     * Calls rejected before reaching Postcodes.io fail fast and are not retried
+     */
+    private void throwIfNotCalled(Exception e) {
+        if (e instanceof UpstreamUnavailableException unavailable) {
+            throw unavailable;
+        }
+        if (e instanceof CallNotPermittedException) {
+            log.debug("Circuit breaker open; Postcodes.io not called");
+            throw new UpstreamUnavailableException(UNAVAILABLE);
+        }
+    }
+    
+    private void acquireSlot() {
+        if (!concurrencyLimiter.tryAcquire()) {
+            shedCalls.increment();
+            throw new UpstreamUnavailableException(UNAVAILABLE);
+        }
+    }
+    
+    private void releaseSlot(AdaptiveConcurrencyLimiter.Outcome outcome, long started) {
+        concurrencyLimiter.release(outcome, System.nanoTime() - started);
+        if (outcome == AdaptiveConcurrencyLimiter.Outcome.SUCCESS) {
+            retryBudget.recordSuccess();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.zonefinder.client;
+
+/**
+ * Caps retries to a share of successful calls
+ *
+ * Each success deposits {@code ratio} of a token and each retry withdraws a
+ * whole one, so retries can add at most that share to the traffic a healthy
+ * upstream gets. While the upstream is failing nothing is deposited, and once
+ * the balance is spent failed calls are no longer retried instead of
+ * multiplying the load on it.
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+    private final double maxBalance;
+    private double balance;
+
+    /**
+     * @param ratio Retries allowed per successful call, e.g. 0.1
+     * @param maxBalance Retries that can be saved up, also the starting balance
+     */
+    public RetryBudget(double ratio, double maxBalance) {
+        if (ratio < 0.0 || maxBalance < 1.0) {
+            throw new IllegalArgumentException("Need ratio >= 0 and max balance >= 1");
+        }
+        this.ratio = ratio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    public synchronized void recordSuccess() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * Withdraw a retry
+     * @return false if the budget is spent and the call should not be retried
+     */
+    public synchronized boolean tryRetry() {
+        if (balance < 1.0) {
+            return false;
+        }
+        balance -= 1.0;
+        return true;
+    }
+
+    /**
+     * Return a retry withdrawn for an attempt that was never made
+     */
+    public synchronized void refund() {
+        balance = Math.min(maxBalance, balance + 1.0);
+    }
+
+    public synchronized double getBalance() {
+        return balance;
+    }
+}
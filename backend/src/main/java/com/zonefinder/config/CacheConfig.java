@@ -1,12 +1,25 @@
 package com.zonefinder.config;
 
-import org.springframework.cache.CacheManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zonefinder.cache.CacheInvalidationPublisher;
+import com.zonefinder.cache.LookupCacheSerializer;
+import com.zonefinder.cache.PostcodeKeyGenerator;
+import com.zonefinder.cache.RefreshPolicy;
+import com.zonefinder.cache.ResponseBodyCache;
+import com.zonefinder.cache.TwoTierCacheManager;
+import com.zonefinder.metrics.LookupMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 
 import java.time.Duration;
 
@@ -15,13 +28,78 @@ import java.time.Duration;
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheInvalidationPublisher cacheInvalidationPublisher(
+            StringRedisTemplate redisTemplate,
+            @Value("${cache.near.invalidation-channel:zonefinder:cache-invalidation}") String channel) {
+        return new CacheInvalidationPublisher(redisTemplate, channel);
+    }
+
+    @Bean
+    public LookupCacheSerializer lookupCacheSerializer() {
+        return new LookupCacheSerializer();
+    }
+
+    @Bean
+    public PostcodeKeyGenerator postcodeKeyGenerator() {
+        return new PostcodeKeyGenerator();
+    }
+
+    @Bean
+    public ResponseBodyCache responseBodyCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cache.response-bodies.maximum-size:20000}") long maximumSize) {
+        return new ResponseBodyCache(objectMapper, maximumSize, meterRegistry);
+    }
+
+    @Bean
+    public RefreshPolicy cacheRefreshPolicy(
+            @Value("${cache.refresh.soft-ttl:24h}") Duration softTtl,
+            @Value("${cache.refresh.hard-ttl:7d}") Duration hardTtl,
+            @Value("${cache.refresh.beta:1.0}") double beta,
+            @Value("${cache.refresh.default-load-time:200ms}") Duration defaultLoadTime,
+            @Value("${cache.refresh.threads:2}") int threads,
+            @Value("${cache.refresh.queue-capacity:1000}") int queueCapacity) {
+        return new RefreshPolicy(softTtl, hardTtl, beta, defaultLoadTime, threads, queueCapacity);
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            LookupCacheSerializer lookupCacheSerializer,
+            CacheInvalidationPublisher invalidationPublisher,
+            RefreshPolicy refreshPolicy,
+            MeterRegistry meterRegistry,
+            LookupMetrics lookupMetrics,
+            @Value("${cache.near.maximum-size:20000}") long nearMaximumSize,
+            @Value("${cache.near.ttl:10m}") Duration nearTtl,
+            @Value("${cache.keys.legacy-aliases:true}") boolean legacyAliases) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Duration.ofHours(24))
-            .disableCachingNullValues();
+            // Entries go stale after the soft TTL; Redis only drops ones that could not be refreshed
+            .entryTtl(refreshPolicy.getHardTtl())
+            .disableCachingNullValues()
+            .serializeValuesWith(SerializationPair.fromSerializer(lookupCacheSerializer));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
             .cacheDefaults(config)
             .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, connectionFactory, invalidationPublisher,
+            refreshPolicy, meterRegistry, nearMaximumSize, nearTtl,
+            // Both caches are keyed by postcode; entries written before keys were canonical stay readable
+            legacyAliases ? PostcodeKeyGenerator::legacyKeys : null,
+            lookupMetrics);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoTierCacheManager cacheManager,
+            CacheInvalidationPublisher invalidationPublisher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationPublisher.getChannel()));
+        return container;
     }
-}
\ No newline at end of file
+}
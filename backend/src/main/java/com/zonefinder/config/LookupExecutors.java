@@ -0,0 +1,50 @@
+package com.zonefinder.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for blocking lookup work
+ *
+ * With spring.threads.virtual.enabled=true on a Java 21+ runtime, Spring Boot
+ * runs Tomcat request handling on virtual threads; lookup executors made here
+ * do the same. Blocking Postcodes.io calls and Resilience4j retry back-off
+ * sleeps then park a virtual thread instead of holding a worker. Otherwise
+ * lookups run on a bounded platform thread pool.
+ *
+ * Executors are handed to their owner rather than registered as beans: any
+ * Executor bean makes Spring Boot skip its applicationTaskExecutor, and MVC
+ * async work such as streaming responses would fall back to an unbounded
+ * executor.
+ */
+@Slf4j
+public final class LookupExecutors {
+
+    private LookupExecutors() {
+    }
+
+    /**
+     * Executor for blocking lookups, started and ready to use
+     * @param concurrency Threads of the platform pool; virtual threads are not limited
+     */
+    public static AsyncTaskExecutor create(Environment environment, String threadNamePrefix, int concurrency) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Running lookups on virtual threads");
+            return new VirtualThreadTaskExecutor(threadNamePrefix);
+        }
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("Virtual threads requested but Java {} does not support them; using platform threads",
+                Runtime.version().feature());
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,52 @@
+package com.zonefinder.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zonefinder.metrics.LookupMetrics;
+import com.zonefinder.metrics.LookupMetrics.Stage;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Instrumentation for the parts of a lookup that run outside our own services
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final String OWN_PACKAGE = "com.zonefinder.";
+
+    /**
+     * JSON converter that times writing our response bodies as the serialization stage
+     * Replaces the one Spring Boot would otherwise configure, with the same ObjectMapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper,
+            LookupMetrics lookupMetrics) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                if (!object.getClass().getName().startsWith(OWN_PACKAGE)) {
+                    super.writeInternal(object, type, outputMessage);
+                    return;
+                }
+                LookupMetrics.Sample serialization = lookupMetrics.start(Stage.SERIALIZATION)
+                    .source(object.getClass().getSimpleName());
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                    serialization.outcome("success");
+                } catch (IOException | RuntimeException ex) {
+                    serialization.error(ex);
+                    throw ex;
+                } finally {
+                    serialization.stop();
+                }
+            }
+        };
+    }
+}
@@ -1,10 +1,15 @@
 package com.zonefinder.config;
 
+import com.zonefinder.cache.LookupCacheSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @Configuration
 public class RedisConfig {
@@ -21,4 +26,19 @@ public class RedisConfig {
         }
         return new LettuceConnectionFactory(config);
     }
+
+    /**
+     * Reactive access to the lookup caches, using the same keys and value codec
+     * as the Spring cache so both paths share entries
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> lookupCacheRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory,
+            LookupCacheSerializer lookupCacheSerializer) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+            .<String, Object>newSerializationContext(RedisSerializer.string())
+            .value(lookupCacheSerializer)
+            .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
 }
\ No newline at end of file
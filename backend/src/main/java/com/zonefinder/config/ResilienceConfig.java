@@ -0,0 +1,71 @@
+package com.zonefinder.config;
+
+import com.zonefinder.client.AdaptiveConcurrencyLimiter;
+import com.zonefinder.client.RetryBudget;
+import com.zonefinder.exception.PostcodeNotFoundException;
+import com.zonefinder.exception.UpstreamUnavailableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.common.retry.configuration.RetryConfigCustomizer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Predicate;
+
+/**
+ * Load control for Postcodes.io on top of the Resilience4j circuit breaker and retry
+ */
+@Configuration
+public class ResilienceConfig {
+
+    private static final String POSTCODES_API = "postcodesApi";
+
+    @Bean
+    public AdaptiveConcurrencyLimiter postcodesApiLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${postcodes.api.limit.initial:20}") int initialLimit,
+            @Value("${postcodes.api.limit.min:4}") int minLimit,
+            @Value("${postcodes.api.limit.max:200}") int maxLimit,
+            @Value("${postcodes.api.limit.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${postcodes.api.limit.backoff-ratio:0.9}") double backoffRatio) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            initialLimit, minLimit, maxLimit, latencyTolerance, backoffRatio);
+        Gauge.builder("postcodes.api.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Concurrent Postcodes.io calls currently allowed")
+            .register(meterRegistry);
+        Gauge.builder("postcodes.api.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("Postcodes.io calls in flight")
+            .register(meterRegistry);
+        return limiter;
+    }
+
+    @Bean
+    public RetryBudget postcodesApiRetryBudget(
+            MeterRegistry meterRegistry,
+            @Value("${postcodes.api.retry-budget.ratio:0.1}") double ratio,
+            @Value("${postcodes.api.retry-budget.max-balance:10}") double maxBalance) {
+        RetryBudget budget = new RetryBudget(ratio, maxBalance);
+        Gauge.builder("postcodes.api.retry.budget", budget, RetryBudget::getBalance)
+            .description("Postcodes.io retries currently available")
+            .register(meterRegistry);
+        return budget;
+    }
+
+    /**
+     * Retry failed Postcodes.io calls only while the retry budget allows, and
+     * never calls that were not made because the upstream is unavailable or
+     * that were answered with not found
+     */
+    @Bean
+    public RetryConfigCustomizer postcodesApiRetryCustomizer(RetryBudget postcodesApiRetryBudget) {
+        // Resilience4j also asks after the last attempt; PostcodesIoClient
+        // refunds that token when a call runs out of retries
+        Predicate<Throwable> retryable = ex ->
+            !(ex instanceof UpstreamUnavailableException || ex instanceof CallNotPermittedException
+                || ex instanceof PostcodeNotFoundException)
+                && postcodesApiRetryBudget.tryRetry();
+        return RetryConfigCustomizer.of(POSTCODES_API, builder -> builder.retryOnException(retryable));
+    }
+}
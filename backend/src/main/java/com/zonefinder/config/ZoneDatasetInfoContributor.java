@@ -0,0 +1,33 @@
+package com.zonefinder.config;
+
+import com.zonefinder.service.ZoneDataService;
+import com.zonefinder.service.ZoneDataset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adds the active MyLondon dataset version to /actuator/info
+ */
+@Component
+@RequiredArgsConstructor
+public class ZoneDatasetInfoContributor implements InfoContributor {
+
+    private final ZoneDataService zoneDataService;
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        ZoneDataset dataset = zoneDataService.getDataset();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("version", dataset.getVersion());
+        details.put("source", dataset.getSource());
+        details.put("loadedAt", dataset.getLoadedAt().toString());
+        details.put("outputAreas", dataset.outputAreaCount());
+        details.put("outcodes", dataset.outcodeCount());
+        builder.withDetail("zoneDataset", details);
+    }
+}
@@ -0,0 +1,71 @@
+package com.zonefinder.controller;
+
+import com.zonefinder.dto.ZoneLookupRequest;
+import com.zonefinder.dto.ZoneLookupResponse;
+import com.zonefinder.exception.PostcodeNotFoundException;
+import com.zonefinder.exception.UpstreamUnavailableException;
+import com.zonefinder.service.CacheWarmupService;
+import com.zonefinder.service.ReactiveZoneLookupService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of the zone lookup endpoints
+ * Handlers return a Mono, so the servlet thread is released as soon as the
+ * lookup is started and upstream latency no longer pins request threads.
+ */
+@RestController
+@RequestMapping("/api/zones/reactive")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins:http://localhost:3000}")
+public class ReactiveZoneController {
+    
+    private final ReactiveZoneLookupService reactiveZoneLookupService;
+    private final CacheWarmupService cacheWarmupService;
+    
+    /**
+     * Lookup zone by postcode
+     * POST /api/zones/reactive/lookup
+     */
+    @PostMapping("/lookup")
+    public Mono<ResponseEntity<ZoneLookupResponse>> lookupZone(@Valid @RequestBody ZoneLookupRequest request) {
+        return lookup(request.getPostcode());
+    }
+    
+    /**
+     * Get zone by postcode
+     * GET /api/zones/reactive/{postcode}
+     */
+    @GetMapping("/{postcode}")
+    public Mono<ResponseEntity<ZoneLookupResponse>> getZone(@PathVariable String postcode) {
+        return lookup(postcode);
+    }
+    
+    private Mono<ResponseEntity<ZoneLookupResponse>> lookup(String postcode) {
+        cacheWarmupService.recordRequest(postcode);
+        return reactiveZoneLookupService.lookupZone(postcode)
+            .map(result -> ResponseEntity.ok(ZoneLookupResponse.success(result)))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                log.warn("Invalid request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(ZoneLookupResponse.error(e.getMessage())));
+            })
+            .onErrorResume(PostcodeNotFoundException.class, e -> Mono.just(
+                ResponseEntity.status(HttpStatus.NOT_FOUND).body(ZoneLookupResponse.error(e.getMessage()))))
+            .onErrorResume(UpstreamUnavailableException.class, e -> Mono.just(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(UpstreamUnavailableException.RETRY_AFTER_SECONDS))
+                    .body(ZoneLookupResponse.error(e.getMessage()))))
+            .onErrorResume(e -> {
+                log.error("Error processing reactive zone lookup", e);
+                return Mono.just(ResponseEntity.internalServerError()
+                    .body(ZoneLookupResponse.error("Internal server error. Please try again later.")));
+            });
+    }
+}
@@ -1,15 +1,43 @@
 package com.zonefinder.controller;
 
+import com.zonefinder.cache.ResponseBodyCache;
 import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.dto.CoordinateZoneResponse;
+import com.zonefinder.dto.JourneyFareResponse;
+import com.zonefinder.dto.OutcodeZoneResponse;
+import com.zonefinder.dto.PostcodeSuggestResponse;
+import com.zonefinder.dto.ZoneBatchLookupRequest;
+import com.zonefinder.dto.ZoneBatchLookupResponse;
 import com.zonefinder.dto.ZoneLookupRequest;
 import com.zonefinder.dto.ZoneLookupResponse;
+import com.zonefinder.exception.PostcodeNotFoundException;
+import com.zonefinder.exception.UpstreamUnavailableException;
+import com.zonefinder.service.BulkZoneResolver;
+import com.zonefinder.service.CacheWarmupService;
+import com.zonefinder.service.CoordinateZoneService;
+import com.zonefinder.service.FareTariff;
+import com.zonefinder.service.JourneyFareService;
+import com.zonefinder.service.PostcodeSuggestionService;
+import com.zonefinder.service.ZoneDataService;
 import com.zonefinder.service.ZoneLookupService;
+import com.zonefinder.util.PostcodeKey;
 import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 
 /**
  * REST Controller for zone lookup operations
@@ -17,12 +45,41 @@ import org.springframework.web.bind.annotation.*;
  */
 @RestController
 @RequestMapping("/api/zones")
-@RequiredArgsConstructor
 @Slf4j
 @CrossOrigin(origins = "${cors.allowed-origins:http://localhost:3000}")
 public class ZoneController {
     
     private final ZoneLookupService zoneLookupService;
+    private final BulkZoneResolver bulkZoneResolver;
+    private final ZoneDataService zoneDataService;
+    private final CacheWarmupService cacheWarmupService;
+    private final CoordinateZoneService coordinateZoneService;
+    private final JourneyFareService journeyFareService;
+    private final PostcodeSuggestionService postcodeSuggestionService;
+    private final ResponseBodyCache responseBodyCache;
+    private final CacheControl cacheControl;
+    
+    public ZoneController(
+        ZoneLookupService zoneLookupService,
+        BulkZoneResolver bulkZoneResolver,
+        ZoneDataService zoneDataService,
+        CacheWarmupService cacheWarmupService,
+        CoordinateZoneService coordinateZoneService,
+        JourneyFareService journeyFareService,
+        PostcodeSuggestionService postcodeSuggestionService,
+        ResponseBodyCache responseBodyCache,
+        @Value("${cache.http.max-age:5m}") Duration maxAge
+    ) {
+        this.zoneLookupService = zoneLookupService;
+        this.bulkZoneResolver = bulkZoneResolver;
+        this.zoneDataService = zoneDataService;
+        this.cacheWarmupService = cacheWarmupService;
+        this.coordinateZoneService = coordinateZoneService;
+        this.journeyFareService = journeyFareService;
+        this.postcodeSuggestionService = postcodeSuggestionService;
+        this.responseBodyCache = responseBodyCache;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
     
     /**
      * Lookup zone by postcode
@@ -35,16 +92,24 @@ public class ZoneController {
     @Timed(value = "zone.lookup", description = "Time taken to lookup zone")
     public ResponseEntity<ZoneLookupResponse> lookupZone(@Valid @RequestBody ZoneLookupRequest request) {
         log.info("Received zone lookup request for postcode: {}", request.getPostcode());
+        cacheWarmupService.recordRequest(request.getPostcode());
         
         try {
             ZoneLookupResult result = zoneLookupService.lookupZone(request.getPostcode());
             return ResponseEntity.ok(ZoneLookupResponse.success(result));
             
+        } catch (PostcodeNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ZoneLookupResponse.error(e.getMessage()));
+                
         } catch (IllegalArgumentException e) {
             log.warn("Invalid request: {}", e.getMessage());
             return ResponseEntity.badRequest()
                 .body(ZoneLookupResponse.error(e.getMessage()));
                 
+        } catch (UpstreamUnavailableException e) {
+            return unavailable(e);
+                
         } catch (Exception e) {
             log.error("Error processing zone lookup", e);
             return ResponseEntity.internalServerError()
@@ -52,18 +117,183 @@ public class ZoneController {
         }
     }
     
+    /**
+     * Lookup zones for many postcodes at once
+     * POST /api/zones/lookup/batch
+     * 
+     * @param request Batch request containing the postcodes
+     * @return Per-postcode results in request order
+     */
+    @PostMapping("/lookup/batch")
+    @Timed(value = "zone.lookup.batch", description = "Time taken to lookup a batch of zones")
+    public ResponseEntity<ZoneBatchLookupResponse> lookupZones(@Valid @RequestBody ZoneBatchLookupRequest request) {
+        log.info("Received batch zone lookup request for {} postcodes", request.getPostcodes().size());
+        
+        try {
+            return ResponseEntity.ok(ZoneBatchLookupResponse.of(zoneLookupService.lookupZones(request.getPostcodes())));
+            
+        } catch (Exception e) {
+            log.error("Error processing batch zone lookup", e);
+            return ResponseEntity.internalServerError()
+                .body(ZoneBatchLookupResponse.error("Internal server error. Please try again later."));
+        }
+    }
+    
+    /**
+     * Stream zone lookups for a large file of postcodes
+     * POST /api/zones/lookup/stream?format=ndjson|csv
+     * 
+     * The body is read line by line (one postcode per line, or CSV with the
+     * postcode first) and results are written as they complete, in input order.
+     * 
+     * @param format Output format, ndjson (default) or csv
+     * @return Streaming NDJSON or CSV body
+     */
+    @PostMapping(value = "/lookup/stream", consumes = {MediaType.TEXT_PLAIN_VALUE, "text/csv"})
+    public ResponseEntity<StreamingResponseBody> streamZones(
+        @RequestParam(defaultValue = "ndjson") String format,
+        HttpServletRequest request
+    ) throws IOException {
+        BulkZoneResolver.Format outputFormat = BulkZoneResolver.Format.parse(format);
+        log.info("Received streaming zone lookup request ({})", outputFormat);
+        
+        InputStream body = request.getInputStream();
+        MediaType contentType = outputFormat == BulkZoneResolver.Format.CSV
+            ? MediaType.parseMediaType("text/csv")
+            : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .body(output -> bulkZoneResolver.resolve(body, output, outputFormat));
+    }
+    
+    /**
+     * Fare zone split of a postcode district, for when only the outcode is known
+     * GET /api/zones/outcode/{outcode}
+     * 
+     * @param outcode Postcode district, e.g. E14
+     * @return Share of the district's Output Areas in each zone
+     */
+    @GetMapping("/outcode/{outcode}")
+    @Timed(value = "zone.outcode", description = "Time taken to get an outcode zone distribution")
+    public ResponseEntity<OutcodeZoneResponse> getOutcodeZones(@PathVariable String outcode) {
+        return zoneDataService.findOutcodeDistribution(outcode)
+            .map(distribution -> ResponseEntity.ok(OutcodeZoneResponse.success(distribution)))
+            .orElseGet(() -> ResponseEntity.status(404)
+                .body(OutcodeZoneResponse.error("No fare zone data for postcode district: " + outcode)));
+    }
+    
+    /**
+     * Zone of a coordinate and the stations nearest to it
+     * GET /api/zones/at?lat=51.5&lon=-0.12&k=3
+     * 
+     * @param lat Latitude
+     * @param lon Longitude
+     * @param k Number of nearby stations to list (0-10)
+     * @return Zone, fares and nearest stations with distances
+     */
+    @GetMapping("/at")
+    @Timed(value = "zone.at", description = "Time taken to get the zone of a coordinate")
+    public ResponseEntity<CoordinateZoneResponse> getZoneAt(
+        @RequestParam double lat,
+        @RequestParam double lon,
+        @RequestParam(defaultValue = "3") int k
+    ) {
+        try {
+            return ResponseEntity.ok(CoordinateZoneResponse.success(coordinateZoneService.lookupZone(lat, lon, k)));
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                .body(CoordinateZoneResponse.error(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Complete a partly typed postcode, for suggestions while typing
+     * GET /api/zones/suggest?prefix=E14&limit=10
+     * 
+     * @param prefix What has been typed so far
+     * @param limit Most suggestions to return (1-20)
+     * @return Districts and full postcodes starting with the prefix, with their zones
+     */
+    @GetMapping("/suggest")
+    @Timed(value = "zone.suggest", description = "Time taken to suggest postcodes")
+    public ResponseEntity<PostcodeSuggestResponse> suggestPostcodes(
+        @RequestParam String prefix,
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        try {
+            return ResponseEntity.ok(PostcodeSuggestResponse.success(postcodeSuggestionService.suggest(prefix, limit)));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(PostcodeSuggestResponse.error(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Single fare of a journey
+     * GET /api/zones/fare?from=SW1A 1AA&to=E14 5AB&type=payg
+     * 
+     * @param from Origin postcode or zone number
+     * @param to Destination postcode or zone number
+     * @param type Fare type, payg (default) or cash
+     * @return Peak and off-peak fares
+     */
+    @GetMapping("/fare")
+    @Timed(value = "zone.fare", description = "Time taken to quote a journey fare")
+    public ResponseEntity<JourneyFareResponse> getFare(
+        @RequestParam String from,
+        @RequestParam String to,
+        @RequestParam(defaultValue = "payg") String type
+    ) {
+        try {
+            FareTariff.FareType fareType;
+            try {
+                fareType = FareTariff.FareType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported fare type: " + type);
+            }
+            return ResponseEntity.ok(JourneyFareResponse.success(journeyFareService.quote(from, to, fareType)));
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                .body(JourneyFareResponse.error(e.getMessage()));
+        }
+    }
+    
     /**
      * Get zone by postcode (Alternative GET endpoint)
      * GET /api/zones/{postcode}
+     * 
+     * Answers with the cached JSON body of the lookup and a strong ETag, or
+     * 304 Not Modified when If-None-Match already has it. Degraded answers
+     * are not to be stored by clients.
      */
     @GetMapping("/{postcode}")
     @Timed(value = "zone.get", description = "Time taken to get zone")
-    public ResponseEntity<ZoneLookupResponse> getZone(@PathVariable String postcode) {
+    public ResponseEntity<?> getZone(@PathVariable String postcode) {
         log.info("Received GET request for postcode: {}", postcode);
+        cacheWarmupService.recordRequest(postcode);
         
         try {
             ZoneLookupResult result = zoneLookupService.lookupZone(postcode);
-            return ResponseEntity.ok(ZoneLookupResponse.success(result));
+            ResponseBodyCache.Body body = responseBodyCache.get(PostcodeKey.parse(postcode), result);
+            CacheControl control = result.isDegraded() ? CacheControl.noStore() : cacheControl;
+            // Spring answers a matching If-None-Match with 304 from the ETag set here
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(control)
+                .eTag(body.etag())
+                .body(body.json());
+            
+        } catch (PostcodeNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ZoneLookupResponse.error(e.getMessage()));
+            
+        } catch (UpstreamUnavailableException e) {
+            return unavailable(e);
             
         } catch (Exception e) {
             log.error("Error getting zone", e);
@@ -72,6 +302,16 @@ public class ZoneController {
         }
     }
     
+    /**
+     * 503 for a lookup Postcodes.io could not answer and no degraded answer covers
+     */
+    private ResponseEntity<ZoneLookupResponse> unavailable(UpstreamUnavailableException e) {
+        log.warn("Postcode service unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(UpstreamUnavailableException.RETRY_AFTER_SECONDS))
+            .body(ZoneLookupResponse.error(e.getMessage()));
+    }
+    
     /**
      * Health check endpoint
      * GET /api/zones/health
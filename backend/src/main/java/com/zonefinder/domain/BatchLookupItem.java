@@ -0,0 +1,37 @@
+package com.zonefinder.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one postcode within a batch lookup
+ * Carries either the lookup result or the reason it failed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLookupItem {
+    private String postcode;
+    private boolean success;
+    private ZoneLookupResult data;
+    private String message;
+    
+    public static BatchLookupItem success(String postcode, ZoneLookupResult result) {
+        return BatchLookupItem.builder()
+            .postcode(postcode)
+            .success(true)
+            .data(result)
+            .build();
+    }
+    
+    public static BatchLookupItem error(String postcode, String message) {
+        return BatchLookupItem.builder()
+            .postcode(postcode)
+            .success(false)
+            .message(message)
+            .build();
+    }
+}
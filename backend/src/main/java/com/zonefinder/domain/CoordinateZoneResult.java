@@ -0,0 +1,36 @@
+package com.zonefinder.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Fare zone of a coordinate and the stations nearest to it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoordinateZoneResult implements Serializable {
+    private Double latitude;
+    private Double longitude;
+    private String zone;
+    private Integer zoneNumber;
+    private Double distanceFromCentreKm;
+    private ZoneLookupResult.FareInfo fareInfo;
+    private List<NearbyStation> nearestStations;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NearbyStation implements Serializable {
+        private String name;
+        private String zone;
+        private Double distanceKm;
+    }
+}
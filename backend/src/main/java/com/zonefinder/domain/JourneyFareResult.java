@@ -0,0 +1,36 @@
+package com.zonefinder.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Single fare of a journey between two postcodes or zones
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JourneyFareResult implements Serializable {
+    private Endpoint from;
+    private Endpoint to;
+    private String fareType;
+    private Double peakFare;
+    private Double offPeakFare;
+    private String currency;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Endpoint implements Serializable {
+        /**
+         * Formatted postcode, absent when a zone was given
+         */
+        private String postcode;
+        private Integer zoneNumber;
+    }
+}
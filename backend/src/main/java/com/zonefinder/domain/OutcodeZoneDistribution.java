@@ -0,0 +1,34 @@
+package com.zonefinder.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * How the Output Areas of a postcode district split across fare zones
+ * Used when only the outcode is known (e.g. E14: zone 2 60%, zone 3 40%).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutcodeZoneDistribution implements Serializable {
+    private String outcode;
+    private Integer primaryZone;
+    private Integer outputAreas;
+    private List<ZoneShare> zones;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ZoneShare implements Serializable {
+        private Integer zone;
+        private Integer outputAreas;
+        private Double share;
+    }
+}
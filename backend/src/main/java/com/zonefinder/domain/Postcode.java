@@ -1,5 +1,6 @@
 package com.zonefinder.domain;
 
+import com.zonefinder.util.PostcodeKey;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,9 @@ import java.io.Serializable;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Postcode implements Serializable {
+    // Pinned to the computed value, so entries cached by older builds keep deserializing
+    private static final long serialVersionUID = -2166628813827686873L;
+
     private String postcode;
     private Double latitude;
     private Double longitude;
@@ -26,6 +30,6 @@ public class Postcode implements Serializable {
      * Normalize postcode format (remove spaces, uppercase)
      */
     public String getNormalizedPostcode() {
-        return postcode != null ? postcode.replaceAll("\\s+", "").toUpperCase() : null;
+        return PostcodeKey.normalize(postcode);
     }
 }
\ No newline at end of file
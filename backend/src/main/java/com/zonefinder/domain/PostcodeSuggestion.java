@@ -0,0 +1,24 @@
+package com.zonefinder.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Completion of a partly typed postcode: a district or a full postcode
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostcodeSuggestion implements Serializable {
+    private String postcode;
+    /**
+     * "outcode" for a postcode district, "postcode" for a full postcode
+     */
+    private String type;
+    private Integer zoneNumber;
+}
@@ -1,5 +1,6 @@
 package com.zonefinder.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,9 @@ import java.io.Serializable;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ZoneLookupResult implements Serializable {
+    // Pinned to the value computed before fields were added, so entries cached then still deserialize
+    private static final long serialVersionUID = -7439622972031766345L;
+
     private String postcode;
     private String zone;
     private Integer zoneNumber;
@@ -23,12 +27,23 @@ public class ZoneLookupResult implements Serializable {
     private Double longitude;
     private Double distanceFromCentreKm;
     private FareInfo fareInfo;
+    /**
+     * Answered from the offline dataset alone because Postcodes.io was unavailable;
+     * the zone is the district's most common one and there are no coordinates
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean degraded;
     
+    /**
+     * Pay as you go fares between the postcode's zone and zone 1
+     */
     @Data
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor
     public static class FareInfo implements Serializable {
+        private static final long serialVersionUID = -9052761866263820370L;
+
         private Double peakFare;
         private Double offPeakFare;
         private String currency;
@@ -37,5 +52,5 @@ public class ZoneLookupResult implements Serializable {
     /**
      * Internal helper record used by services when constructing a response.
      */
-    public record ZoneInfo(String name, int number, double peakFare, double offPeakFare) {}
+    public record ZoneInfo(String name, int number, FareInfo fareInfo) {}
 }
\ No newline at end of file
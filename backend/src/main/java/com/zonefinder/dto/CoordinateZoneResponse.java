@@ -0,0 +1,37 @@
+package com.zonefinder.dto;
+
+import com.zonefinder.domain.CoordinateZoneResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the coordinate zone lookup endpoint
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoordinateZoneResponse {
+    private boolean success;
+    private CoordinateZoneResult data;
+    private String message;
+    private Long timestamp;
+
+    public static CoordinateZoneResponse success(CoordinateZoneResult result) {
+        return CoordinateZoneResponse.builder()
+            .success(true)
+            .data(result)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+
+    public static CoordinateZoneResponse error(String message) {
+        return CoordinateZoneResponse.builder()
+            .success(false)
+            .message(message)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+}
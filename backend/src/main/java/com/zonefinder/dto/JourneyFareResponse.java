@@ -0,0 +1,37 @@
+package com.zonefinder.dto;
+
+import com.zonefinder.domain.JourneyFareResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the journey fare endpoint
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JourneyFareResponse {
+    private boolean success;
+    private JourneyFareResult data;
+    private String message;
+    private Long timestamp;
+
+    public static JourneyFareResponse success(JourneyFareResult result) {
+        return JourneyFareResponse.builder()
+            .success(true)
+            .data(result)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+
+    public static JourneyFareResponse error(String message) {
+        return JourneyFareResponse.builder()
+            .success(false)
+            .message(message)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+}
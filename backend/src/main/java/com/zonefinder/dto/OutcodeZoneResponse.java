@@ -0,0 +1,37 @@
+package com.zonefinder.dto;
+
+import com.zonefinder.domain.OutcodeZoneDistribution;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the outcode zone distribution endpoint
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutcodeZoneResponse {
+    private boolean success;
+    private OutcodeZoneDistribution data;
+    private String message;
+    private Long timestamp;
+    
+    public static OutcodeZoneResponse success(OutcodeZoneDistribution distribution) {
+        return OutcodeZoneResponse.builder()
+            .success(true)
+            .data(distribution)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+    
+    public static OutcodeZoneResponse error(String message) {
+        return OutcodeZoneResponse.builder()
+            .success(false)
+            .message(message)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.zonefinder.dto;
+
+import com.zonefinder.domain.PostcodeSuggestion;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for the postcode suggestion endpoint
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostcodeSuggestResponse {
+    private boolean success;
+    private List<PostcodeSuggestion> data;
+    private String message;
+    private Long timestamp;
+
+    public static PostcodeSuggestResponse success(List<PostcodeSuggestion> suggestions) {
+        return PostcodeSuggestResponse.builder()
+            .success(true)
+            .data(suggestions)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+
+    public static PostcodeSuggestResponse error(String message) {
+        return PostcodeSuggestResponse.builder()
+            .success(false)
+            .message(message)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+}
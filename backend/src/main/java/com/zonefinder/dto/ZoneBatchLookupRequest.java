@@ -0,0 +1,24 @@
+package com.zonefinder.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for the batch zone lookup endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZoneBatchLookupRequest {
+    
+    public static final int MAX_POSTCODES = 1000;
+    
+    @NotEmpty(message = "At least one postcode is required")
+    @Size(max = MAX_POSTCODES, message = "At most " + MAX_POSTCODES + " postcodes per request")
+    private List<String> postcodes;
+}
@@ -0,0 +1,45 @@
+package com.zonefinder.dto;
+
+import com.zonefinder.domain.BatchLookupItem;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for the batch zone lookup endpoint
+ * Results are in request order, each with its own success flag
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZoneBatchLookupResponse {
+    private boolean success;
+    private List<BatchLookupItem> results;
+    private int resolved;
+    private int failed;
+    private String message;
+    private Long timestamp;
+    
+    public static ZoneBatchLookupResponse of(List<BatchLookupItem> results) {
+        int resolved = (int) results.stream().filter(BatchLookupItem::isSuccess).count();
+        return ZoneBatchLookupResponse.builder()
+            .success(true)
+            .results(results)
+            .resolved(resolved)
+            .failed(results.size() - resolved)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+    
+    public static ZoneBatchLookupResponse error(String message) {
+        return ZoneBatchLookupResponse.builder()
+            .success(false)
+            .message(message)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.zonefinder.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.zonefinder.domain.ZoneLookupResult;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,6 +18,10 @@ public class ZoneLookupResponse {
     private boolean success;
     private ZoneLookupResult data;
     private String message;
+    /**
+     * Absent from bodies served pre-serialized, which must not change per request
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Long timestamp;
     
     public static ZoneLookupResponse success(ZoneLookupResult result) {
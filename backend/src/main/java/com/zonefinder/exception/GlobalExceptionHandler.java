@@ -2,6 +2,7 @@ package com.zonefinder.exception;
 
 import com.zonefinder.dto.ZoneLookupResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -47,6 +48,19 @@ public class GlobalExceptionHandler {
             .body(ZoneLookupResponse.error(ex.getMessage()));
     }
     
+    /**
+     * Handle Postcodes.io being unavailable
+     */
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<ZoneLookupResponse> handleUpstreamUnavailable(
+        UpstreamUnavailableException ex
+    ) {
+        log.warn("Postcode service unavailable: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(UpstreamUnavailableException.RETRY_AFTER_SECONDS))
+            .body(ZoneLookupResponse.error(ex.getMessage()));
+    }
+    
     /**
      * Handle illegal arguments
      */
@@ -2,9 +2,10 @@ package com.zonefinder.exception;
 
 /**
  * Exception thrown when a postcode is not found
+ * An expected answer rather than a fault, so it is built without a stack trace.
  */
 public class PostcodeNotFoundException extends RuntimeException {
     public PostcodeNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.zonefinder.exception;
+
+/**
+ * Exception thrown when Postcodes.io is not called because its circuit is open
+ * or it is already at its concurrency limit, or when it is called and fails
+ * once retries are exhausted
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+    
+    /**
+     * Seconds a client should wait before trying again, the circuit breaker's wait in the open state
+     */
+    public static final long RETRY_AFTER_SECONDS = 10;
+    
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+    
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.zonefinder.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-stage timing of the lookup path
+ * Each stage runs as a Micrometer {@link Observation} named "zone.lookup.stage",
+ * which the actuator turns into a timer tagged by stage, outcome and source,
+ * and a tracing bridge (if one is added) into a span under the HTTP request.
+ *
+ * Only a sample of lookups is observed. The decision is made once per request
+ * and stored on the enclosing observation, so a sampled request has all of its
+ * stages and an unsampled one costs a thread-local read per stage. Timer counts
+ * are therefore sampled too; use the cache and request counters for rates.
+ */
+@Component
+public class LookupMetrics {
+
+    public static final String OBSERVATION = "zone.lookup.stage";
+
+    private static final String SAMPLED = LookupMetrics.class.getName() + ".sampled";
+    private static final String ATTEMPTS = LookupMetrics.class.getName() + ".attempts";
+    private static final String NONE = "none";
+
+    private final ObservationRegistry observationRegistry;
+    private final double sampleRate;
+    private final DistributionSummary upstreamAttempts;
+
+    /**
+     * Stages of a lookup, in the order they usually run
+     */
+    public enum Stage {
+        VALIDATION, CACHE_L1, CACHE_L2, UPSTREAM, DATASET, DISTANCE, SERIALIZATION;
+
+        private final String tag = name().toLowerCase(Locale.ROOT).replace('_', '.');
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    public LookupMetrics(
+        ObservationRegistry observationRegistry,
+        MeterRegistry meterRegistry,
+        @Value("${zones.metrics.sample-rate:0.1}") double sampleRate
+    ) {
+        this.observationRegistry = observationRegistry;
+        this.sampleRate = sampleRate;
+        this.upstreamAttempts = DistributionSummary.builder("zone.lookup.upstream.attempts")
+            .description("Postcodes.io attempts per sampled upstream fetch, including retries")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Instrumentation that records nothing, e.g. for benchmarks and offline tools
+     */
+    public static LookupMetrics disabled(MeterRegistry meterRegistry) {
+        return new LookupMetrics(ObservationRegistry.NOOP, meterRegistry, 0.0);
+    }
+
+    /**
+     * Start timing a stage
+     * @return The running sample; a no-op when this request is not sampled
+     */
+    public Sample start(Stage stage) {
+        return start(stage, observationRegistry.getCurrentObservation());
+    }
+
+    /**
+     * Start timing a stage of the request that {@code parent} belongs to
+     * For reactive stages, which may start on a thread where the request's
+     * observation is not current; capture it with {@link #current()} first.
+     */
+    public Sample start(Stage stage, Observation parent) {
+        if (!isSampled(parent)) {
+            return Sample.NOOP;
+        }
+        Observation observation = Observation.createNotStarted(OBSERVATION, observationRegistry)
+            .parentObservation(parent)
+            .contextualName("lookup " + stage.getTag())
+            .lowCardinalityKeyValue("stage", stage.getTag())
+            .lowCardinalityKeyValue("outcome", NONE)
+            .lowCardinalityKeyValue("source", NONE)
+            .start();
+        return new Sample(observation, stage == Stage.UPSTREAM ? upstreamAttempts : null);
+    }
+
+    /**
+     * Count a retried Postcodes.io call against the upstream stage whose scope is open
+     * on this thread; calls made without a scope (the reactive path) are not counted
+     */
+    public void recordRetry() {
+        Observation current = observationRegistry.getCurrentObservation();
+        if (current != null && OBSERVATION.equals(current.getContext().getName())) {
+            AtomicInteger count = current.getContext().get(ATTEMPTS);
+            if (count != null) {
+                count.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The observation current on this thread, e.g. the HTTP request's
+     */
+    public Observation current() {
+        return observationRegistry.getCurrentObservation();
+    }
+
+    private boolean isSampled(Observation parent) {
+        if (sampleRate >= 1.0) {
+            return true;
+        }
+        if (sampleRate <= 0.0) {
+            return false;
+        }
+        if (parent == null) {
+            return ThreadLocalRandom.current().nextDouble() < sampleRate;
+        }
+        if (OBSERVATION.equals(parent.getContext().getName())) {
+            // Nested in a stage that was sampled
+            return true;
+        }
+        return parent.getContext().computeIfAbsent(SAMPLED,
+            key -> ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * A running stage; tag it with what happened, then stop it exactly once
+     */
+    public static final class Sample {
+
+        static final Sample NOOP = new Sample(null, null);
+
+        private final Observation observation;
+        private final DistributionSummary attempts;
+
+        private Sample(Observation observation, DistributionSummary attempts) {
+            this.observation = observation;
+            this.attempts = attempts;
+        }
+
+        /**
+         * What happened, e.g. "hit"/"miss" or "success"/"not_found"/"error"
+         */
+        public Sample outcome(String outcome) {
+            if (observation != null) {
+                observation.lowCardinalityKeyValue("outcome", outcome);
+            }
+            return this;
+        }
+
+        /**
+         * Where the answer came from, e.g. "dataset" or "calculated", or the cache name
+         */
+        public Sample source(String source) {
+            if (observation != null) {
+                observation.lowCardinalityKeyValue("source", source);
+            }
+            return this;
+        }
+
+        public Sample error(Throwable error) {
+            if (observation != null) {
+                observation.lowCardinalityKeyValue("outcome", "error").error(error);
+            }
+            return this;
+        }
+
+        /**
+         * Make this stage current on the calling thread, so nested work can see it
+         */
+        public Observation.Scope openScope() {
+            if (observation == null) {
+                return Observation.Scope.NOOP;
+            }
+            if (attempts != null) {
+                // Retries made under the scope are counted by recordRetry()
+                observation.getContext().computeIfAbsent(ATTEMPTS, key -> new AtomicInteger(1));
+            }
+            return observation.openScope();
+        }
+
+        public void stop() {
+            if (observation == null) {
+                return;
+            }
+            AtomicInteger count = observation.getContext().get(ATTEMPTS);
+            if (attempts != null && count != null) {
+                attempts.record(count.get());
+                observation.highCardinalityKeyValue("attempts", Integer.toString(count.get()));
+            }
+            observation.stop();
+        }
+    }
+}
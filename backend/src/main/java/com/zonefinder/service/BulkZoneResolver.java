@@ -0,0 +1,237 @@
+package com.zonefinder.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zonefinder.client.PostcodesIoClient;
+import com.zonefinder.config.LookupExecutors;
+import com.zonefinder.domain.BatchLookupItem;
+import com.zonefinder.domain.ZoneLookupResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Zone-tags arbitrarily large postcode files as a stream
+ *
+ * Input is read line by line and grouped into chunks that go through the batch
+ * lookup path on a lookup executor of its own. At most {@code concurrency} chunks are in
+ * flight; once the window is full the reader waits for the oldest chunk and
+ * writes it out, so results stay in input order and heap use stays flat no
+ * matter how big the file is.
+ */
+@Service
+@Slf4j
+public class BulkZoneResolver {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String format) {
+            for (Format candidate : values()) {
+                if (candidate.name().equalsIgnoreCase(format)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+    private static final int CHUNK_SIZE = PostcodesIoClient.MAX_BULK_SIZE;
+    private static final String CSV_HEADER =
+        "postcode,success,zone,zone_number,area,latitude,longitude,distance_km,peak_fare,off_peak_fare,degraded,message";
+
+    private final ZoneLookupService zoneLookupService;
+    private final ObjectMapper objectMapper;
+    private final AsyncTaskExecutor executor;
+    private final int concurrency;
+    private final MeterRegistry meterRegistry;
+
+    public BulkZoneResolver(
+        ZoneLookupService zoneLookupService,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        Environment environment,
+        @Value("${zones.bulk.concurrency:4}") int concurrency
+    ) {
+        this.zoneLookupService = zoneLookupService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.executor = LookupExecutors.create(environment, "lookup-", concurrency);
+        this.concurrency = concurrency;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Resolve every postcode in the input and write one result per line
+     * Blank lines are skipped, a leading "postcode" header is ignored and only
+     * the first column of CSV input is used.
+     *
+     * @param input Postcodes, one per line
+     * @param output Destination for NDJSON or CSV results
+     * @param format Output format
+     * @return Number of rows written
+     */
+    public long resolve(InputStream input, OutputStream output, Format format) throws IOException {
+        Counter rows = Counter.builder("zone.bulk.rows")
+            .tag("format", format.name().toLowerCase())
+            .description("Postcodes resolved by bulk streaming")
+            .register(meterRegistry);
+        long started = System.nanoTime();
+        long written = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        Deque<Future<List<BatchLookupItem>>> inFlight = new ArrayDeque<>();
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            boolean firstLine = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String postcode = firstColumn(line);
+                if (postcode.isEmpty()) {
+                    continue;
+                }
+                boolean header = firstLine && postcode.equalsIgnoreCase("postcode");
+                firstLine = false;
+                if (header) {
+                    continue;
+                }
+                chunk.add(postcode);
+                if (chunk.size() == CHUNK_SIZE) {
+                    if (inFlight.size() == concurrency) {
+                        written += writeChunk(inFlight.removeFirst(), writer, format, rows);
+                    }
+                    List<String> submitted = chunk;
+                    inFlight.addLast(executor.submit(() -> zoneLookupService.lookupZones(submitted)));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<String> submitted = chunk;
+                inFlight.addLast(executor.submit(() -> zoneLookupService.lookupZones(submitted)));
+            }
+            while (!inFlight.isEmpty()) {
+                written += writeChunk(inFlight.removeFirst(), writer, format, rows);
+            }
+            writer.flush();
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+
+        double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-9);
+        DistributionSummary.builder("zone.bulk.throughput")
+            .baseUnit("rows/s")
+            .description("Rows per second achieved by each bulk job")
+            .register(meterRegistry)
+            .record(written / seconds);
+        log.info("Bulk resolved {} postcodes in {}s ({} rows/s)", written, String.format("%.1f", seconds),
+            Math.round(written / seconds));
+        return written;
+    }
+
+    private int writeChunk(Future<List<BatchLookupItem>> future, Writer writer, Format format, Counter rows)
+        throws IOException {
+        List<BatchLookupItem> items;
+        try {
+            items = future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bulk resolution interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Bulk resolution failed", ex.getCause());
+        }
+        for (BatchLookupItem item : items) {
+            if (format == Format.CSV) {
+                writeCsv(item, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(item));
+            }
+            writer.write('\n');
+        }
+        // Push each chunk to the client as soon as it is ready
+        writer.flush();
+        rows.increment(items.size());
+        return items.size();
+    }
+
+    private static void writeCsv(BatchLookupItem item, Writer writer) throws IOException {
+        ZoneLookupResult data = item.getData();
+        ZoneLookupResult.FareInfo fare = data != null ? data.getFareInfo() : null;
+        writer.write(csv(item.getPostcode()));
+        writer.write(',');
+        writer.write(Boolean.toString(item.isSuccess()));
+        writer.write(',');
+        writer.write(csv(data != null ? data.getZone() : null));
+        writer.write(',');
+        writer.write(csv(data != null ? data.getZoneNumber() : null));
+        writer.write(',');
+        writer.write(csv(data != null ? data.getArea() : null));
+        writer.write(',');
+        writer.write(csv(data != null ? data.getLatitude() : null));
+        writer.write(',');
+        writer.write(csv(data != null ? data.getLongitude() : null));
+        writer.write(',');
+        writer.write(csv(data != null ? data.getDistanceFromCentreKm() : null));
+        writer.write(',');
+        writer.write(csv(fare != null ? fare.getPeakFare() : null));
+        writer.write(',');
+        writer.write(csv(fare != null ? fare.getOffPeakFare() : null));
+        writer.write(',');
+        writer.write(csv(data != null ? data.isDegraded() : null));
+        writer.write(',');
+        writer.write(csv(item.getMessage()));
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static String firstColumn(String line) {
+        int comma = line.indexOf(',');
+        String column = (comma >= 0 ? line.substring(0, comma) : line).trim();
+        if (column.length() >= 2 && column.charAt(0) == '"' && column.charAt(column.length() - 1) == '"') {
+            column = column.substring(1, column.length() - 1).trim();
+        }
+        return column;
+    }
+}
@@ -0,0 +1,193 @@
+package com.zonefinder.service;
+
+import com.zonefinder.client.PostcodesIoClient;
+import com.zonefinder.domain.BatchLookupItem;
+import com.zonefinder.util.HeavyHitters;
+import com.zonefinder.util.PostcodeKey;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the lookup caches warm across deploys
+ *
+ * Single-postcode lookups are counted in a {@link HeavyHitters} sketch and the
+ * current top postcodes are saved to Redis periodically, halving all counts
+ * each time so the list follows recent traffic. On startup the saved list is
+ * resolved through the bulk lookup path, rate limited by the "cacheWarmup"
+ * rate limiter (in postcodes per period), before the application reports
+ * ready: runners finish before Spring Boot switches the readiness state to
+ * accepting traffic, so the readiness probe stays down while this runs.
+ *
+ * All nodes write the same key; traffic is balanced, so whichever list was
+ * saved last is as good as any.
+ */
+@Service
+@Slf4j
+public class CacheWarmupService implements ApplicationRunner {
+
+    private static final String RATE_LIMITER = "cacheWarmup";
+
+    private final ZoneLookupService zoneLookupService;
+    private final StringRedisTemplate redisTemplate;
+    private final RateLimiter rateLimiter;
+    private final HeavyHitters popular;
+    private final boolean enabled;
+    private final String redisKey;
+    private final Duration persistInterval;
+    private final Duration timeout;
+    private final ScheduledExecutorService scheduler;
+
+    public CacheWarmupService(
+        ZoneLookupService zoneLookupService,
+        StringRedisTemplate redisTemplate,
+        RateLimiterRegistry rateLimiterRegistry,
+        @Value("${zones.warmup.enabled:true}") boolean enabled,
+        @Value("${zones.warmup.top-postcodes:2000}") int topPostcodes,
+        @Value("${zones.warmup.sketch-width:16384}") int sketchWidth,
+        @Value("${zones.warmup.redis-key:zonefinder:warmup:top-postcodes}") String redisKey,
+        @Value("${zones.warmup.persist-interval:5m}") Duration persistInterval,
+        @Value("${zones.warmup.timeout:60s}") Duration timeout
+    ) {
+        this.zoneLookupService = zoneLookupService;
+        this.redisTemplate = redisTemplate;
+        this.rateLimiter = rateLimiterRegistry.rateLimiter(RATE_LIMITER);
+        this.popular = new HeavyHitters(topPostcodes, sketchWidth);
+        this.enabled = enabled;
+        this.redisKey = redisKey;
+        this.persistInterval = persistInterval;
+        this.timeout = timeout;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Count a requested postcode; invalid ones are ignored
+     */
+    public void recordRequest(String postcode) {
+        long key = PostcodeKey.parse(postcode);
+        if (enabled && key != PostcodeKey.INVALID) {
+            popular.add(key);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        List<HeavyHitters.Entry> saved = load();
+        // Saved counts carry over, so a node restarted soon after a deploy still saves a sensible list
+        saved.forEach(entry -> popular.add(entry.key(), entry.count()));
+        warm(saved);
+        scheduler.scheduleAtFixedRate(this::persist, persistInterval.toMillis(), persistInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    // Before Redis connections are stopped along with other lifecycle beans
+    @EventListener(ContextClosedEvent.class)
+    void shutdown() {
+        scheduler.shutdownNow();
+        if (enabled) {
+            persist();
+        }
+    }
+
+    private void warm(List<HeavyHitters.Entry> saved) {
+        if (saved.isEmpty()) {
+            log.info("No saved popular postcodes; starting with cold caches");
+            return;
+        }
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+        int permitsPerPeriod = rateLimiter.getRateLimiterConfig().getLimitForPeriod();
+        int warmed = 0;
+        int failed = 0;
+        for (int from = 0; from < saved.size(); ) {
+            int size = Math.min(Math.min(PostcodesIoClient.MAX_BULK_SIZE, permitsPerPeriod), saved.size() - from);
+            if (System.nanoTime() >= deadline) {
+                log.warn("Cache warm-up timed out after {}; {} of {} popular postcodes left cold",
+                    timeout, saved.size() - from, saved.size());
+                break;
+            }
+            if (!rateLimiter.acquirePermission(size)) {
+                continue;
+            }
+            List<String> chunk = new ArrayList<>(size);
+            for (HeavyHitters.Entry entry : saved.subList(from, from + size)) {
+                chunk.add(PostcodeKey.format(entry.key()));
+            }
+            try {
+                for (BatchLookupItem item : zoneLookupService.lookupZones(chunk)) {
+                    if (item.isSuccess()) {
+                        warmed++;
+                    } else {
+                        failed++;
+                    }
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Cache warm-up chunk of {} postcodes failed: {}", chunk.size(), ex.getMessage());
+                failed += chunk.size();
+            }
+            from += size;
+        }
+        log.info("Warmed caches with {} popular postcodes in {} ms ({} not resolved)",
+            warmed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), failed);
+    }
+
+    // One "postcode count" pair per line, most popular first
+    private List<HeavyHitters.Entry> load() {
+        List<HeavyHitters.Entry> entries = new ArrayList<>();
+        try {
+            String saved = redisTemplate.opsForValue().get(redisKey);
+            if (saved == null) {
+                return entries;
+            }
+            for (String line : saved.split("\n")) {
+                int separator = line.lastIndexOf(' ');
+                long key = separator > 0 ? PostcodeKey.parse(line.substring(0, separator)) : PostcodeKey.INVALID;
+                if (key != PostcodeKey.INVALID) {
+                    entries.add(new HeavyHitters.Entry(key, Long.parseLong(line.substring(separator + 1))));
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not read saved popular postcodes: {}", ex.getMessage());
+        }
+        return entries;
+    }
+
+    private void persist() {
+        List<HeavyHitters.Entry> top = popular.top();
+        popular.decay();
+        if (top.isEmpty()) {
+            return;
+        }
+        StringBuilder saved = new StringBuilder(top.size() * 16);
+        for (HeavyHitters.Entry entry : top) {
+            saved.append(PostcodeKey.format(entry.key())).append(' ').append(entry.count()).append('\n');
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey, saved.toString());
+            log.debug("Saved {} popular postcodes", top.size());
+        } catch (RuntimeException ex) {
+            log.warn("Could not save popular postcodes: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.zonefinder.service;
+
+import com.zonefinder.domain.CoordinateZoneResult;
+import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.util.ZoneCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Zone lookups by coordinate rather than postcode, e.g. from a device's location
+ * Needs no network call: the zone comes from the boundaries or distance rings
+ * and the nearby stations from the in-memory station index.
+ */
+@Service
+@RequiredArgsConstructor
+public class CoordinateZoneService {
+
+    public static final int MAX_STATIONS = 10;
+
+    private final ZoneLookupService zoneLookupService;
+    private final StationIndexService stationIndexService;
+    private final ZoneCalculator zoneCalculator;
+
+    /**
+     * Zone of a location and the stations nearest to it
+     * @param stationCount How many nearby stations to list, up to {@link #MAX_STATIONS}
+     */
+    public CoordinateZoneResult lookupZone(double latitude, double longitude, int stationCount) {
+        if (!Double.isFinite(latitude) || latitude < -90 || latitude > 90
+            || !Double.isFinite(longitude) || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+        if (stationCount < 0 || stationCount > MAX_STATIONS) {
+            throw new IllegalArgumentException("Number of stations must be between 0 and " + MAX_STATIONS);
+        }
+
+        double distanceKm = zoneCalculator.calculateDistanceFromCentre(latitude, longitude);
+        ZoneLookupResult.ZoneInfo zoneInfo = zoneLookupService.zoneAt(latitude, longitude, distanceKm);
+        return CoordinateZoneResult.builder()
+            .latitude(latitude)
+            .longitude(longitude)
+            .zone(zoneInfo.name())
+            .zoneNumber(zoneInfo.number())
+            .distanceFromCentreKm(Math.round(distanceKm * 10.0) / 10.0)
+            .fareInfo(zoneInfo.fareInfo())
+            .nearestStations(stationIndexService.findNearest(latitude, longitude, stationCount))
+            .build();
+    }
+}
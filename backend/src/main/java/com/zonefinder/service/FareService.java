@@ -0,0 +1,198 @@
+package com.zonefinder.service;
+
+import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.service.FareTariff.FareType;
+import com.zonefinder.service.FareTariff.TimeBand;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fares between fare zones
+ *
+ * The tariff is an immutable {@link FareTariff} behind a volatile reference,
+ * so lookups need no locking and allocate nothing. It comes from the file at
+ * {@code zones.fares.path} when set, else the copy bundled in the jar. A
+ * configured file is watched and a changed one is swapped in whole. Cached
+ * zone lookups carry fares, so their version tag includes the tariff version
+ * (see {@link ZoneDataService}) and entries from an older tariff read as misses.
+ */
+@Component
+@Slf4j
+public class FareService {
+
+    static final String TARIFF_FILE = "tariff.csv";
+
+    private static final String CURRENCY = "GBP";
+
+    private final Resource bundledTariff;
+    private final String tariffPath;
+    private final Duration quietPeriod;
+
+    private volatile FareTariff tariff = FareTariff.EMPTY;
+    private WatchService watchService;
+
+    public FareService(
+        @Value("classpath:data/" + TARIFF_FILE) Resource bundledTariff,
+        @Value("${zones.fares.path:}") String tariffPath,
+        @Value("${zones.fares.quiet-period:1s}") Duration quietPeriod
+    ) {
+        this.bundledTariff = bundledTariff;
+        this.tariffPath = tariffPath;
+        this.quietPeriod = quietPeriod;
+    }
+
+    @PostConstruct
+    void loadTariff() {
+        try {
+            tariff = readTariff();
+            log.info("Loaded {} fares from tariff {} ({})", tariff.fareCount(), tariff.getVersion(),
+                isWatching() ? tariffPath : "classpath:data");
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to load fare tariff; fares will be missing from lookups", ex);
+        }
+        if (isWatching()) {
+            startWatching(Path.of(tariffPath).toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Fare of a journey between two zones
+     * @return Fare in pence, or {@link FareTariff#NO_FARE} if the tariff does not cover it
+     */
+    public int farePence(int fromZone, int toZone, TimeBand band, FareType type) {
+        return tariff.farePence(fromZone, toZone, band, type);
+    }
+
+    /**
+     * Fare of a journey between two zones
+     * @return Fare in pounds, or null if the tariff does not cover it
+     */
+    public Double fare(int fromZone, int toZone, TimeBand band, FareType type) {
+        int pence = tariff.farePence(fromZone, toZone, band, type);
+        return pence != FareTariff.NO_FARE ? pence / 100.0 : null;
+    }
+
+    /**
+     * Pay as you go fares between a zone and zone 1, as shown with zone lookups
+     */
+    public ZoneLookupResult.FareInfo centralFares(int zone) {
+        return ZoneLookupResult.FareInfo.builder()
+            .peakFare(fare(zone, 1, TimeBand.PEAK, FareType.PAYG))
+            .offPeakFare(fare(zone, 1, TimeBand.OFF_PEAK, FareType.PAYG))
+            .currency(CURRENCY)
+            .build();
+    }
+
+    public String getCurrency() {
+        return CURRENCY;
+    }
+
+    /**
+     * Version of the tariff in use
+     */
+    public String getVersion() {
+        return tariff.getVersion();
+    }
+
+    /**
+     * Re-read the tariff and swap it in if it changed
+     * @return true if a new tariff is now in use
+     */
+    public synchronized boolean reload() {
+        FareTariff loaded;
+        try {
+            loaded = readTariff();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to reload fare tariff, keeping version {}", tariff.getVersion(), ex);
+            return false;
+        }
+        FareTariff previous = tariff;
+        if (loaded.getVersion().equals(previous.getVersion())) {
+            return false;
+        }
+        tariff = loaded;
+        log.info("Switched fare tariff {} -> {}: {} fares", previous.getVersion(), loaded.getVersion(),
+            loaded.fareCount());
+        return true;
+    }
+
+    private boolean isWatching() {
+        return tariffPath != null && !tariffPath.isBlank();
+    }
+
+    private FareTariff readTariff() throws IOException {
+        if (isWatching()) {
+            return FareTariff.parse(Files.readAllBytes(Path.of(tariffPath)));
+        }
+        try (InputStream input = bundledTariff.getInputStream()) {
+            return FareTariff.parse(input.readAllBytes());
+        }
+    }
+
+    private void startWatching(Path file) {
+        Path directory = file.getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            log.error("Cannot watch {} for tariff changes", directory, ex);
+            return;
+        }
+        Thread watcher = new Thread(() -> watch(file.getFileName().toString()), "fare-tariff-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for tariff changes", file);
+    }
+
+    private void watch(String fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || fileName.equals(String.valueOf(event.context()));
+                }
+                key.reset();
+                if (!relevant) {
+                    continue;
+                }
+                // Let the file finish writing before reading it
+                WatchKey more;
+                while ((more = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Shutting down
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.zonefinder.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Immutable fare table: zone pair x time band x fare type -> fare in pence
+ *
+ * Fares live in one dense int array indexed by
+ * {@code ((from * ZONE_SLOTS + to) * BANDS + band) * TYPES + type}, so a
+ * lookup is a bounds check and an array read. Files only need to list each
+ * zone pair in one direction; the other is filled in unless listed too.
+ */
+public final class FareTariff {
+
+    /**
+     * Returned when the tariff has no fare for a journey
+     */
+    public static final int NO_FARE = -1;
+
+    static final int ZONE_SLOTS = 10;
+
+    private static final int BANDS = TimeBand.values().length;
+    private static final int TYPES = FareType.values().length;
+
+    static final FareTariff EMPTY = new FareTariff("none", newFares());
+
+    /**
+     * When the journey is made
+     */
+    public enum TimeBand {
+        PEAK,
+        OFF_PEAK
+    }
+
+    /**
+     * How the journey is paid for
+     */
+    public enum FareType {
+        /** Oyster or contactless pay as you go */
+        PAYG,
+        /** Paper single ticket */
+        CASH
+    }
+
+    private final String version;
+    private final int[] fares;
+
+    private FareTariff(String version, int[] fares) {
+        this.version = version;
+        this.fares = fares;
+    }
+
+    /**
+     * Parse a tariff CSV with from_zone, to_zone, band, fare_type and fare (in pounds) columns
+     */
+    public static FareTariff parse(byte[] csv) throws IOException {
+        int[] fares = newFares();
+        boolean[] listed = new boolean[fares.length];
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("Tariff file is empty");
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] columns = line.split(",", -1);
+                if (columns.length < 5) {
+                    throw new IllegalArgumentException("Tariff line " + lineNumber + " needs 5 columns: " + line);
+                }
+                try {
+                    int from = zone(columns[0]);
+                    int to = zone(columns[1]);
+                    TimeBand band = TimeBand.valueOf(columns[2].trim().toUpperCase(Locale.ROOT));
+                    FareType type = FareType.valueOf(columns[3].trim().toUpperCase(Locale.ROOT));
+                    int pence = Math.toIntExact(Math.round(Double.parseDouble(columns[4].trim()) * 100.0));
+                    if (pence < 0) {
+                        throw new IllegalArgumentException("negative fare");
+                    }
+                    fares[index(from, to, band, type)] = pence;
+                    listed[index(from, to, band, type)] = true;
+                    if (!listed[index(to, from, band, type)]) {
+                        fares[index(to, from, band, type)] = pence;
+                    }
+                } catch (IllegalArgumentException | ArithmeticException ex) {
+                    throw new IllegalArgumentException("Invalid tariff line " + lineNumber + ": " + line, ex);
+                }
+            }
+        }
+        return new FareTariff(contentVersion(csv), fares);
+    }
+
+    /**
+     * Fare of a journey between two zones
+     * @return Fare in pence, or {@link #NO_FARE} if the tariff does not cover it
+     */
+    public int farePence(int fromZone, int toZone, TimeBand band, FareType type) {
+        if (fromZone < 1 || fromZone >= ZONE_SLOTS || toZone < 1 || toZone >= ZONE_SLOTS) {
+            return NO_FARE;
+        }
+        return fares[index(fromZone, toZone, band, type)];
+    }
+
+    /**
+     * Content hash of the file this tariff was parsed from
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of fares in the tariff
+     */
+    public int fareCount() {
+        int count = 0;
+        for (int fare : fares) {
+            if (fare != NO_FARE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int index(int from, int to, TimeBand band, FareType type) {
+        return ((from * ZONE_SLOTS + to) * BANDS + band.ordinal()) * TYPES + type.ordinal();
+    }
+
+    private static int zone(String column) {
+        int zone = Integer.parseInt(column.trim());
+        if (zone < 1 || zone >= ZONE_SLOTS) {
+            throw new IllegalArgumentException("zone out of range");
+        }
+        return zone;
+    }
+
+    private static int[] newFares() {
+        int[] fares = new int[ZONE_SLOTS * ZONE_SLOTS * BANDS * TYPES];
+        Arrays.fill(fares, NO_FARE);
+        return fares;
+    }
+
+    // First 48 bits of the SHA-256 of the file
+    private static String contentVersion(byte[] csv) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(csv), 0, 6);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
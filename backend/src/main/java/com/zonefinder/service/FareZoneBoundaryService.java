@@ -0,0 +1,136 @@
+package com.zonefinder.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zonefinder.util.ZonePolygonIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Resolves fare zones from zone boundary polygons
+ *
+ * Loads a GeoJSON FeatureCollection of Polygon / MultiPolygon features, each
+ * carrying its zone number in a "zone" (or "fare_zone" / "name") property, into
+ * a {@link ZonePolygonIndex}. Without a configured file the service stays empty
+ * and lookups fall back to the MyLondon dataset and distance rings.
+ */
+@Component
+@Slf4j
+public class FareZoneBoundaryService {
+
+    private static final List<String> ZONE_PROPERTIES = List.of("zone", "Zone", "ZONE", "fare_zone", "name");
+
+    private final ObjectMapper objectMapper;
+    private final String boundariesPath;
+    private final int gridResolution;
+    private volatile ZonePolygonIndex index;
+
+    public FareZoneBoundaryService(
+        ObjectMapper objectMapper,
+        @Value("${zones.boundaries.path:}") String boundariesPath,
+        @Value("${zones.boundaries.grid-resolution:1024}") int gridResolution
+    ) {
+        this.objectMapper = objectMapper;
+        this.boundariesPath = boundariesPath;
+        this.gridResolution = gridResolution;
+    }
+
+    @PostConstruct
+    void loadBoundaries() {
+        if (boundariesPath == null || boundariesPath.isBlank()) {
+            log.info("No fare zone boundaries configured; zones come from the MyLondon dataset");
+            return;
+        }
+        long started = System.nanoTime();
+        try (InputStream input = Files.newInputStream(Path.of(boundariesPath))) {
+            List<ZonePolygonIndex.Polygon> polygons = parseFeatures(objectMapper.readTree(input));
+            ZonePolygonIndex built = ZonePolygonIndex.build(polygons, gridResolution);
+            index = built;
+            log.info("Indexed {} fare zone polygons from {} into {} cells ({} on boundaries) in {}ms",
+                built.polygonCount(), boundariesPath, built.cellCount(), built.boundaryCellCount(),
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | IllegalArgumentException ex) {
+            log.error("Failed to load fare zone boundaries from {}", boundariesPath, ex);
+        }
+    }
+
+    /**
+     * Fare zone containing a location
+     * @return Zone number, or empty when no boundaries are loaded or the point is outside all zones
+     */
+    public OptionalInt findZone(double latitude, double longitude) {
+        ZonePolygonIndex current = index;
+        if (current == null) {
+            return OptionalInt.empty();
+        }
+        int zone = current.zoneAt(latitude, longitude);
+        return zone != ZonePolygonIndex.OUTSIDE ? OptionalInt.of(zone) : OptionalInt.empty();
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    private List<ZonePolygonIndex.Polygon> parseFeatures(JsonNode root) {
+        List<ZonePolygonIndex.Polygon> polygons = new ArrayList<>();
+        JsonNode features = "Feature".equals(root.path("type").asText()) ? objectMapper.createArrayNode().add(root)
+            : root.path("features");
+        for (JsonNode feature : features) {
+            Integer zone = zoneOf(feature.path("properties"));
+            JsonNode geometry = feature.path("geometry");
+            if (zone == null) {
+                log.warn("Skipping boundary feature without a zone number: {}", feature.path("properties"));
+                continue;
+            }
+            switch (geometry.path("type").asText()) {
+                case "Polygon" -> polygons.add(toPolygon(zone, geometry.path("coordinates")));
+                case "MultiPolygon" -> geometry.path("coordinates")
+                    .forEach(part -> polygons.add(toPolygon(zone, part)));
+                default -> log.warn("Skipping zone {} boundary with unsupported geometry {}",
+                    zone, geometry.path("type").asText());
+            }
+        }
+        return polygons;
+    }
+
+    private static ZonePolygonIndex.Polygon toPolygon(int zone, JsonNode rings) {
+        double[][] converted = new double[rings.size()][];
+        for (int r = 0; r < rings.size(); r++) {
+            JsonNode ring = rings.get(r);
+            double[] points = new double[ring.size() * 2];
+            for (int p = 0; p < ring.size(); p++) {
+                points[p * 2] = ring.get(p).get(0).asDouble();
+                points[p * 2 + 1] = ring.get(p).get(1).asDouble();
+            }
+            converted[r] = points;
+        }
+        return new ZonePolygonIndex.Polygon(zone, converted);
+    }
+
+    private static Integer zoneOf(JsonNode properties) {
+        for (String name : ZONE_PROPERTIES) {
+            JsonNode value = properties.get(name);
+            if (value == null || value.isNull()) {
+                continue;
+            }
+            if (value.isNumber()) {
+                return value.asInt();
+            }
+            String digits = value.asText().replaceAll("\\D+", " ").trim();
+            if (!digits.isEmpty()) {
+                return Integer.parseInt(digits.split(" ")[0]);
+            }
+        }
+        return null;
+    }
+}
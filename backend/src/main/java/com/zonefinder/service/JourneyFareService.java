@@ -0,0 +1,64 @@
+package com.zonefinder.service;
+
+import com.zonefinder.domain.JourneyFareResult;
+import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.service.FareTariff.FareType;
+import com.zonefinder.service.FareTariff.TimeBand;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fare quotes for journeys given as postcodes or zone numbers
+ * Postcodes go through the usual (cached) zone lookup; the fares themselves
+ * are array reads in {@link FareService}.
+ */
+@Service
+@RequiredArgsConstructor
+public class JourneyFareService {
+
+    private final ZoneLookupService zoneLookupService;
+    private final FareService fareService;
+
+    /**
+     * Quote a journey
+     * @param from Origin postcode or zone number
+     * @param to Destination postcode or zone number
+     * @param type How the journey is paid for
+     */
+    public JourneyFareResult quote(String from, String to, FareType type) {
+        JourneyFareResult.Endpoint origin = resolve(from);
+        JourneyFareResult.Endpoint destination = resolve(to);
+        Double peakFare = fareService.fare(origin.getZoneNumber(), destination.getZoneNumber(), TimeBand.PEAK, type);
+        Double offPeakFare = fareService.fare(origin.getZoneNumber(), destination.getZoneNumber(),
+            TimeBand.OFF_PEAK, type);
+        if (peakFare == null && offPeakFare == null) {
+            throw new IllegalArgumentException("No " + type.name().toLowerCase() + " fare between zone "
+                + origin.getZoneNumber() + " and zone " + destination.getZoneNumber());
+        }
+        return JourneyFareResult.builder()
+            .from(origin)
+            .to(destination)
+            .fareType(type.name())
+            .peakFare(peakFare)
+            .offPeakFare(offPeakFare)
+            .currency(fareService.getCurrency())
+            .build();
+    }
+
+    private JourneyFareResult.Endpoint resolve(String postcodeOrZone) {
+        if (postcodeOrZone == null || postcodeOrZone.isBlank()) {
+            throw new IllegalArgumentException("Journey needs an origin and a destination");
+        }
+        String trimmed = postcodeOrZone.trim();
+        if (trimmed.length() == 1 && Character.isDigit(trimmed.charAt(0))) {
+            return JourneyFareResult.Endpoint.builder()
+                .zoneNumber(trimmed.charAt(0) - '0')
+                .build();
+        }
+        ZoneLookupResult result = zoneLookupService.lookupZone(trimmed);
+        return JourneyFareResult.Endpoint.builder()
+            .postcode(result.getPostcode())
+            .zoneNumber(result.getZoneNumber())
+            .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.zonefinder.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zonefinder.util.BloomFilter;
+import com.zonefinder.util.OnspdFile;
+import com.zonefinder.util.PostcodeKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Rejects postcodes that do not exist before they reach Postcodes.io
+ *
+ * A {@link BloomFilter} of every live postcode, built from a bulk file, answers
+ * "definitely not a postcode" for typos and made-up codes that are still well
+ * formed. Postcodes the filter lets through but Postcodes.io does not know
+ * (false positives, or postcodes terminated since the file was made) are
+ * remembered for a short while instead. Without a configured file only that
+ * negative cache applies. Postcodes issued after the file was made are
+ * rejected until it is updated. When the file is the one the offline postcode
+ * index was loaded from, the filter is built from the index's keys rather than
+ * parsing the file a second time.
+ */
+@Component
+@Slf4j
+public class PostcodeFilterService {
+
+    private final String filterPath;
+    private final double falsePositiveRate;
+    private final PostcodeIndexService postcodeIndexService;
+    private final Cache<Long, Boolean> notFound;
+    private final Counter filterRejections;
+    private final Counter negativeCacheRejections;
+    private volatile BloomFilter filter;
+
+    public PostcodeFilterService(
+        @Value("${postcodes.filter.path:}") String filterPath,
+        @Value("${postcodes.filter.false-positive-rate:0.01}") double falsePositiveRate,
+        @Value("${postcodes.filter.negative-ttl:10m}") Duration negativeTtl,
+        @Value("${postcodes.filter.negative-maximum-size:100000}") long negativeMaximumSize,
+        @Nullable PostcodeIndexService postcodeIndexService,
+        MeterRegistry meterRegistry
+    ) {
+        this.filterPath = filterPath;
+        this.falsePositiveRate = falsePositiveRate;
+        this.postcodeIndexService = postcodeIndexService;
+        this.notFound = Caffeine.newBuilder()
+            .expireAfterWrite(negativeTtl)
+            .maximumSize(negativeMaximumSize)
+            .build();
+        this.filterRejections = rejectionCounter(meterRegistry, "filter");
+        this.negativeCacheRejections = rejectionCounter(meterRegistry, "negative_cache");
+    }
+
+    @PostConstruct
+    void loadFilter() {
+        if (filterPath == null || filterPath.isBlank()) {
+            log.info("No postcode filter configured; only recently unknown postcodes are rejected locally");
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            Path path = Path.of(filterPath);
+            boolean indexed = postcodeIndexService != null && postcodeIndexService.isLoadedFrom(path);
+            long[] keys = indexed ? postcodeIndexService.liveKeys() : readKeys(path);
+            BloomFilter built = BloomFilter.create(keys.length, falsePositiveRate);
+            for (long key : keys) {
+                built.add(key);
+            }
+            filter = built;
+            log.info("Built postcode filter of {} postcodes from {}{} ({} KB, {} hashes) in {}ms",
+                keys.length, filterPath, indexed ? " via the offline index" : "",
+                built.sizeInBytes() / 1024, built.hashCount(),
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to build postcode filter from {}", filterPath, ex);
+        }
+    }
+
+    /**
+     * Whether a postcode is known not to exist; allocates nothing unless the negative cache holds entries
+     * @param key Packed {@link PostcodeKey}
+     * @return true if the filter rules it out or Postcodes.io recently did not know it
+     */
+    public boolean isKnownMissing(long key) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(key)) {
+            filterRejections.increment();
+            return true;
+        }
+        if (notFound.estimatedSize() > 0 && notFound.getIfPresent(key) != null) {
+            negativeCacheRejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remember that Postcodes.io does not know a postcode
+     * @param key Packed {@link PostcodeKey}
+     */
+    public void recordNotFound(long key) {
+        if (key != PostcodeKey.INVALID) {
+            notFound.put(key, Boolean.TRUE);
+        }
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    // One postcode per line, or a CSV with a postcode column (pcds, ...) and optionally doterm
+    private static long[] readKeys(Path path) throws IOException {
+        long[] keys = new long[1 << 16];
+        int size = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("Postcode filter file is empty");
+            }
+            String[] names = OnspdFile.splitRow(header);
+            int postcodeColumn = OnspdFile.findColumn(names, OnspdFile.POSTCODE_COLUMNS);
+            int terminatedColumn = OnspdFile.findColumn(names, OnspdFile.TERMINATED_COLUMNS);
+            String line = header;
+            if (postcodeColumn < 0) {
+                // No header: the first line is already a postcode
+                postcodeColumn = 0;
+            } else {
+                line = reader.readLine();
+            }
+
+            for (; line != null; line = reader.readLine()) {
+                String[] columns = OnspdFile.splitRow(line);
+                if (columns.length <= postcodeColumn || OnspdFile.isTerminated(columns, terminatedColumn)) {
+                    continue;
+                }
+                long key = PostcodeKey.pack(columns[postcodeColumn]);
+                if (key == PostcodeKey.INVALID) {
+                    continue;
+                }
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size++] = key;
+            }
+        }
+        return Arrays.copyOf(keys, size);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("postcodes.filter.rejected")
+            .tag("reason", reason)
+            .description("Lookups answered as not found without calling Postcodes.io")
+            .register(meterRegistry);
+    }
+}
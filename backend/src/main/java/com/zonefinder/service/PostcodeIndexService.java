@@ -0,0 +1,309 @@
+package com.zonefinder.service;
+
+import com.zonefinder.domain.Postcode;
+import com.zonefinder.util.OnspdFile;
+import com.zonefinder.util.OutputAreaCode;
+import com.zonefinder.util.PostcodeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Offline postcode -> (latitude, longitude, admin district, Output Area) index
+ * built from a bulk ONSPD / Code-Point style CSV. Lookups that hit the index never reach
+ * Postcodes.io, so only postcodes missing from the file go over the network.
+ *
+ * Rows are held in parallel primitive arrays sorted by {@link PostcodeKey},
+ * with districts dictionary-encoded and Output Areas packed into ints, which
+ * keeps a full UK file to roughly 22 bytes per postcode and makes a lookup a
+ * single binary search.
+ */
+@Component
+@Slf4j
+public class PostcodeIndexService {
+
+    // Packed keys use 37 bits, leaving 26 bits for the row while sorting
+    private static final int ROW_BITS = 26;
+    private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+
+    private static final double MICRO_DEGREES = 1_000_000.0;
+
+    private static final List<String> LATITUDE_COLUMNS = List.of("lat", "latitude");
+    private static final List<String> LONGITUDE_COLUMNS = List.of("long", "lon", "longitude");
+    private static final List<String> DISTRICT_COLUMNS = List.of("admin_district", "district", "oslaua", "laua");
+    // 2011 Output Areas, which the fare zone dataset is keyed on
+    private static final List<String> OUTPUT_AREA_COLUMNS = List.of("oa11", "oa11cd");
+
+    private final String indexPath;
+
+    private long[] keys = new long[0];
+    // Coordinates are stored as micro-degrees, exact to the six decimals Postcodes.io returns
+    private int[] latitudes = new int[0];
+    private int[] longitudes = new int[0];
+    private short[] districtIds = new short[0];
+    private String[] districts = new String[0];
+    private int[] outputAreas = new int[0];
+    // Live postcodes in the file without usable coordinates, which are not in the index
+    private long[] unlocatedKeys = new long[0];
+    private volatile Path loadedFrom;
+
+    public PostcodeIndexService(@Value("${postcodes.index.path:}") String indexPath) {
+        this.indexPath = indexPath;
+    }
+
+    @PostConstruct
+    void loadIndex() {
+        if (indexPath == null || indexPath.isBlank()) {
+            log.info("No offline postcode index configured, all postcodes will be fetched from Postcodes.io");
+            return;
+        }
+        try {
+            load(Path.of(indexPath));
+            loadedFrom = Path.of(indexPath).toAbsolutePath().normalize();
+            log.info("Loaded {} postcodes into offline index from {}", keys.length, indexPath);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to load offline postcode index from {}", indexPath, ex);
+        }
+    }
+
+    /**
+     * Find a postcode in the offline index
+     * @param postcode The postcode to look up, in any spacing or case
+     * @return Postcode data, or empty if the postcode is not in the index
+     */
+    public Optional<Postcode> findPostcode(String postcode) {
+        return findPostcode(PostcodeKey.pack(postcode));
+    }
+
+    /**
+     * Find a postcode in the offline index
+     * @param key Packed {@link PostcodeKey}
+     * @return Postcode data, or empty if the postcode is not in the index
+     */
+    public Optional<Postcode> findPostcode(long key) {
+        if (key == PostcodeKey.INVALID) {
+            return Optional.empty();
+        }
+        int row = Arrays.binarySearch(keys, key);
+        if (row < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Postcode.builder()
+            .postcode(PostcodeKey.format(key))
+            .latitude(latitudes[row] / MICRO_DEGREES)
+            .longitude(longitudes[row] / MICRO_DEGREES)
+            .adminDistrict(districtIds[row] >= 0 ? districts[districtIds[row]] : null)
+            .build());
+    }
+
+    /**
+     * Output Area of a postcode, without allocating
+     * @param postcode The postcode to look up, in any spacing or case
+     * @return Packed {@link OutputAreaCode}, or {@link OutputAreaCode#INVALID} if unknown
+     */
+    public int findOutputArea(CharSequence postcode) {
+        return findOutputArea(PostcodeKey.pack(postcode));
+    }
+
+    /**
+     * Output Area of a packed postcode, without allocating
+     * @param key Packed {@link PostcodeKey}
+     * @return Packed {@link OutputAreaCode}, or {@link OutputAreaCode#INVALID} if unknown
+     */
+    public int findOutputArea(long key) {
+        if (key == PostcodeKey.INVALID) {
+            return OutputAreaCode.INVALID;
+        }
+        int row = Arrays.binarySearch(keys, key);
+        return row >= 0 ? outputAreas[row] : OutputAreaCode.INVALID;
+    }
+
+    /**
+     * Postcodes in a key range, in order, without allocating
+     * @param fromKey First key of the range, inclusive
+     * @param toKey End of the range, exclusive
+     * @param found Receives the keys; the search stops once it is full
+     * @param offset Index in {@code found} to write the first key at
+     * @return Number of keys written
+     */
+    public int findKeys(long fromKey, long toKey, long[] found, int offset) {
+        long[] current = keys;
+        int row = Arrays.binarySearch(current, fromKey);
+        if (row < 0) {
+            row = -row - 1;
+        }
+        int count = offset;
+        for (; row < current.length && current[row] < toKey && count < found.length; row++) {
+            found[count++] = current[row];
+        }
+        return count - offset;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Whether the index was loaded from a file, so {@link #liveKeys()} can stand in for reading it again
+     */
+    public boolean isLoadedFrom(Path path) {
+        return path.toAbsolutePath().normalize().equals(loadedFrom);
+    }
+
+    /**
+     * Every live postcode in the file the index was loaded from, including those it has no coordinates for
+     * @return Packed keys, not in any particular order
+     */
+    public long[] liveKeys() {
+        long[] live = Arrays.copyOf(keys, keys.length + unlocatedKeys.length);
+        System.arraycopy(unlocatedKeys, 0, live, keys.length, unlocatedKeys.length);
+        return live;
+    }
+
+    private void load(Path path) throws IOException {
+        RowBuffer rows = new RowBuffer();
+        Map<String, Short> districtIndex = new HashMap<>();
+        long[] unlocated = new long[16];
+        int unlocatedCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            String[] names = OnspdFile.splitRow(header);
+            int postcodeColumn = OnspdFile.findColumn(names, OnspdFile.POSTCODE_COLUMNS);
+            int latitudeColumn = OnspdFile.findColumn(names, LATITUDE_COLUMNS);
+            int longitudeColumn = OnspdFile.findColumn(names, LONGITUDE_COLUMNS);
+            int districtColumn = OnspdFile.findColumn(names, DISTRICT_COLUMNS);
+            int terminatedColumn = OnspdFile.findColumn(names, OnspdFile.TERMINATED_COLUMNS);
+            int outputAreaColumn = OnspdFile.findColumn(names, OUTPUT_AREA_COLUMNS);
+            if (postcodeColumn < 0 || latitudeColumn < 0 || longitudeColumn < 0) {
+                throw new IllegalArgumentException("Postcode index needs postcode, latitude and longitude columns");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = OnspdFile.splitRow(line);
+                if (columns.length <= postcodeColumn || OnspdFile.isTerminated(columns, terminatedColumn)) {
+                    continue;
+                }
+                long key = PostcodeKey.pack(columns[postcodeColumn]);
+                if (key == PostcodeKey.INVALID) {
+                    continue;
+                }
+                double latitude = Double.NaN;
+                double longitude = Double.NaN;
+                if (columns.length > Math.max(latitudeColumn, longitudeColumn)) {
+                    try {
+                        latitude = Double.parseDouble(columns[latitudeColumn]);
+                        longitude = Double.parseDouble(columns[longitudeColumn]);
+                    } catch (NumberFormatException ignored) {
+                        longitude = Double.NaN;
+                    }
+                }
+                // ONSPD marks postcodes without a grid reference with 99.999999; they stay out of the index
+                if (!(latitude <= 90 && latitude >= -90) || Double.isNaN(longitude)) {
+                    if (unlocatedCount == unlocated.length) {
+                        unlocated = Arrays.copyOf(unlocated, unlocatedCount * 2);
+                    }
+                    unlocated[unlocatedCount++] = key;
+                    continue;
+                }
+                short districtId = -1;
+                if (districtColumn >= 0 && districtColumn < columns.length && !columns[districtColumn].isEmpty()
+                    && (districtIndex.size() < Short.MAX_VALUE || districtIndex.containsKey(columns[districtColumn]))) {
+                    districtId = districtIndex.computeIfAbsent(columns[districtColumn],
+                        name -> (short) districtIndex.size());
+                }
+                int outputArea = outputAreaColumn >= 0 && outputAreaColumn < columns.length
+                    ? OutputAreaCode.pack(columns[outputAreaColumn])
+                    : OutputAreaCode.INVALID;
+                rows.add(key, (int) Math.round(latitude * MICRO_DEGREES),
+                    (int) Math.round(longitude * MICRO_DEGREES), districtId, outputArea);
+            }
+        }
+
+        String[] districtNames = new String[districtIndex.size()];
+        districtIndex.forEach((name, id) -> districtNames[id] = name);
+        unlocatedKeys = Arrays.copyOf(unlocated, unlocatedCount);
+        rows.publishTo(this, districtNames);
+    }
+
+    /**
+     * Growable column store used while reading the file; rows are sorted by
+     * packing key and row number into one long and sorting that array.
+     */
+    private static final class RowBuffer {
+        private long[] sortKeys = new long[1 << 16];
+        private int[] latitudes = new int[1 << 16];
+        private int[] longitudes = new int[1 << 16];
+        private short[] districtIds = new short[1 << 16];
+        private int[] outputAreas = new int[1 << 16];
+        private int size;
+
+        void add(long key, int latitude, int longitude, short districtId, int outputArea) {
+            if (size > ROW_MASK) {
+                throw new IllegalStateException("Postcode index is limited to " + ROW_MASK + " rows");
+            }
+            if (size == sortKeys.length) {
+                int capacity = size * 2;
+                sortKeys = Arrays.copyOf(sortKeys, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                districtIds = Arrays.copyOf(districtIds, capacity);
+                outputAreas = Arrays.copyOf(outputAreas, capacity);
+            }
+            sortKeys[size] = (key << ROW_BITS) | size;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            districtIds[size] = districtId;
+            outputAreas[size] = outputArea;
+            size++;
+        }
+
+        void publishTo(PostcodeIndexService index, String[] districtNames) {
+            long[] sorted = Arrays.copyOf(sortKeys, size);
+            Arrays.sort(sorted);
+
+            long[] keys = new long[size];
+            int[] sortedLatitudes = new int[size];
+            int[] sortedLongitudes = new int[size];
+            short[] sortedDistricts = new short[size];
+            int[] sortedOutputAreas = new int[size];
+            int count = 0;
+            for (long entry : sorted) {
+                long key = entry >>> ROW_BITS;
+                if (count > 0 && keys[count - 1] == key) {
+                    continue;
+                }
+                int row = (int) (entry & ROW_MASK);
+                keys[count] = key;
+                sortedLatitudes[count] = latitudes[row];
+                sortedLongitudes[count] = longitudes[row];
+                sortedDistricts[count] = districtIds[row];
+                sortedOutputAreas[count] = outputAreas[row];
+                count++;
+            }
+
+            index.latitudes = Arrays.copyOf(sortedLatitudes, count);
+            index.longitudes = Arrays.copyOf(sortedLongitudes, count);
+            index.districtIds = Arrays.copyOf(sortedDistricts, count);
+            index.districts = districtNames;
+            index.outputAreas = Arrays.copyOf(sortedOutputAreas, count);
+            index.keys = Arrays.copyOf(keys, count);
+        }
+    }
+}
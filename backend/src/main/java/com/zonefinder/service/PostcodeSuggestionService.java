@@ -0,0 +1,128 @@
+package com.zonefinder.service;
+
+import com.zonefinder.domain.PostcodeSuggestion;
+import com.zonefinder.util.PostcodeKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Postcode autocomplete from the local data, without calling Postcodes.io
+ *
+ * Packed postcode and outcode keys sort like the text they encode, so every
+ * completion of a prefix lies in one contiguous key range of the sorted
+ * arrays {@link ZoneDataService} and {@link PostcodeIndexService} already
+ * hold. A suggestion is a binary search plus a scan of at most the requested
+ * number of entries. Districts come first, then full postcodes from the
+ * offline index when one is loaded. Once a space fixes the district, the
+ * range is narrowed to that district's postcodes, one range per inward digit
+ * until the digit is typed.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostcodeSuggestionService {
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private static final String OUTCODE = "outcode";
+    private static final String POSTCODE = "postcode";
+    private static final String[] SECTOR_DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+    private final ZoneDataService zoneDataService;
+    private final PostcodeIndexService postcodeIndexService;
+
+    /**
+     * Completions of a partly typed postcode, in alphabetical order
+     * @param prefix What has been typed so far; a space fixes the outcode, e.g. "E1 4"
+     * @param limit Most suggestions to return, up to {@link #MAX_SUGGESTIONS}
+     */
+    public List<PostcodeSuggestion> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Number of suggestions must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        // A trailing space is kept: "E1 " means district E1, not E10-E18
+        String trimmed = prefix == null ? "" : prefix.stripLeading();
+        long keyStart = PostcodeKey.packPrefix(trimmed);
+        int length = countNonWhitespace(trimmed);
+        if (length == 0 || keyStart == PostcodeKey.INVALID) {
+            throw new IllegalArgumentException("Invalid postcode prefix: " + prefix);
+        }
+        int space = indexOfWhitespace(trimmed);
+        String outward = space < 0 ? trimmed : trimmed.substring(0, space);
+
+        List<PostcodeSuggestion> suggestions = new ArrayList<>(limit);
+        // Districts while the outcode may still be incomplete, or exactly the one before the space
+        int outcodeStart = PostcodeKey.packOutcodePrefix(outward);
+        if (outcodeStart != PostcodeKey.INVALID_OUTCODE && (space < 0 || length == outward.length())) {
+            int outcodeEnd = space < 0 ? PostcodeKey.outcodePrefixEnd(outcodeStart, outward.length()) : outcodeStart + 1;
+            int[] outcodes = new int[limit];
+            int[] zones = new int[limit];
+            int found = zoneDataService.findOutcodes(outcodeStart, outcodeEnd, outcodes, zones);
+            for (int i = 0; i < found; i++) {
+                suggestions.add(suggestion(PostcodeKey.formatOutcode(outcodes[i]), OUTCODE, zones[i]));
+            }
+        }
+
+        int remaining = limit - suggestions.size();
+        if (remaining > 0 && postcodeIndexService.size() > 0) {
+            long[] keys = new long[remaining];
+            int found = space < 0
+                ? postcodeIndexService.findKeys(keyStart, PostcodeKey.prefixEnd(keyStart, length), keys, 0)
+                : findInDistrict(outward, trimmed.substring(space + 1), length > outward.length(), keys);
+            for (int i = 0; i < found; i++) {
+                suggestions.add(suggestion(PostcodeKey.format(keys[i]), POSTCODE,
+                    zoneDataService.findZoneNumber(keys[i])));
+            }
+        }
+        return suggestions;
+    }
+
+    // Postcodes of one district, one exact key range per inward digit while none is typed
+    private int findInDistrict(String outward, String inward, boolean inwardTyped, long[] keys) {
+        if (inwardTyped) {
+            long start = PostcodeKey.packInwardPrefix(outward, inward);
+            return start != PostcodeKey.INVALID
+                ? postcodeIndexService.findKeys(start, PostcodeKey.inwardPrefixEnd(outward, inward), keys, 0)
+                : 0;
+        }
+        int found = 0;
+        for (int digit = 0; digit < SECTOR_DIGITS.length && found < keys.length; digit++) {
+            String sector = SECTOR_DIGITS[digit];
+            long start = PostcodeKey.packInwardPrefix(outward, sector);
+            if (start == PostcodeKey.INVALID) {
+                return found;
+            }
+            found += postcodeIndexService.findKeys(start, PostcodeKey.inwardPrefixEnd(outward, sector), keys, found);
+        }
+        return found;
+    }
+
+    private static PostcodeSuggestion suggestion(String postcode, String type, int zone) {
+        return PostcodeSuggestion.builder()
+            .postcode(postcode)
+            .type(type)
+            .zoneNumber(zone != ZoneDataService.UNKNOWN_ZONE ? zone : null)
+            .build();
+    }
+
+    private static int countNonWhitespace(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int indexOfWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
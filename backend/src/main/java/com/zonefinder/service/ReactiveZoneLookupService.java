@@ -0,0 +1,175 @@
+package com.zonefinder.service;
+
+import com.zonefinder.cache.CacheEntry;
+import com.zonefinder.cache.TwoTierCache;
+import com.zonefinder.cache.TwoTierCacheManager;
+import com.zonefinder.client.CoalescingPostcodeClient;
+import com.zonefinder.client.PostcodesIoClient;
+import com.zonefinder.domain.Postcode;
+import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.exception.PostcodeNotFoundException;
+import com.zonefinder.exception.UpstreamUnavailableException;
+import com.zonefinder.metrics.LookupMetrics;
+import com.zonefinder.metrics.LookupMetrics.Stage;
+import com.zonefinder.util.PostcodeKey;
+import io.micrometer.observation.Observation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ZoneLookupService}
+ *
+ * Checks the near cache, then Redis through the reactive Lettuce API, then the
+ * offline index and finally Postcodes.io through the reactive client. Nothing
+ * on this path blocks, so in-flight lookups are bounded by memory rather than
+ * by the size of a thread pool. Entries are shared with the blocking path,
+ * under the same canonical (packed postcode) keys.
+ */
+@Service
+@Slf4j
+public class ReactiveZoneLookupService {
+
+    private final ZoneLookupService zoneLookupService;
+    private final CoalescingPostcodeClient postcodeClient;
+    private final PostcodeIndexService postcodeIndexService;
+    private final PostcodeFilterService postcodeFilterService;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final TwoTierCache zoneCache;
+    private final TwoTierCache postcodeCache;
+    private final LookupMetrics lookupMetrics;
+
+    public ReactiveZoneLookupService(
+        ZoneLookupService zoneLookupService,
+        CoalescingPostcodeClient postcodeClient,
+        PostcodeIndexService postcodeIndexService,
+        PostcodeFilterService postcodeFilterService,
+        ReactiveRedisTemplate<String, Object> lookupCacheRedisTemplate,
+        TwoTierCacheManager cacheManager,
+        LookupMetrics lookupMetrics
+    ) {
+        this.zoneLookupService = zoneLookupService;
+        this.postcodeClient = postcodeClient;
+        this.postcodeIndexService = postcodeIndexService;
+        this.postcodeFilterService = postcodeFilterService;
+        this.redisTemplate = lookupCacheRedisTemplate;
+        this.zoneCache = cacheManager.getTwoTierCache("zoneLookups");
+        this.postcodeCache = cacheManager.getTwoTierCache("postcodes");
+        this.lookupMetrics = lookupMetrics;
+    }
+
+    public Mono<ZoneLookupResult> lookupZone(String postcode) {
+        // Stages may continue on Redis or HTTP client threads, so they are parented explicitly
+        Observation request = lookupMetrics.current();
+        LookupMetrics.Sample validation = lookupMetrics.start(Stage.VALIDATION, request);
+        long key = PostcodeKey.parse(postcode);
+        validation.outcome(key != PostcodeKey.INVALID ? "valid" : "invalid").stop();
+        if (key == PostcodeKey.INVALID) {
+            return Mono.error(new IllegalArgumentException("Invalid postcode format: " + postcode));
+        }
+        return cached(zoneCache, key, ZoneLookupResult.class, request)
+            .switchIfEmpty(Mono.defer(() -> fetchPostcode(key, request)
+                .map(zoneLookupService::buildResult)
+                .flatMap(result -> store(zoneCache, key, result))
+                // Degraded answers are not stored
+                .onErrorResume(UpstreamUnavailableException.class, e ->
+                    Mono.justOrEmpty(zoneLookupService.buildDegradedResult(key))
+                        .switchIfEmpty(Mono.error(e)))));
+    }
+
+    private Mono<Postcode> fetchPostcode(long key, Observation request) {
+        // The offline index answers most postcodes; only misses go to Postcodes.io,
+        // unless they are known not to exist
+        return Mono.justOrEmpty(postcodeIndexService.findPostcode(key))
+            .switchIfEmpty(Mono.defer(() -> postcodeFilterService.isKnownMissing(key)
+                ? Mono.error(new PostcodeNotFoundException("Postcode not found: " + PostcodeKey.format(key)))
+                : Mono.empty()))
+            .switchIfEmpty(Mono.defer(() -> cached(postcodeCache, key, Postcode.class, request)
+                .switchIfEmpty(Mono.defer(() -> fetchUpstream(key, request)
+                    .flatMap(data -> store(postcodeCache, key, data))))));
+    }
+
+    private Mono<Postcode> fetchUpstream(long key, Observation request) {
+        return Mono.defer(() -> {
+            LookupMetrics.Sample upstream = lookupMetrics.start(Stage.UPSTREAM, request).source("postcodes.io");
+            return postcodeClient.fetchPostcodeReactive(PostcodeKey.format(key))
+                .doOnNext(data -> upstream.outcome("success"))
+                .doOnError(PostcodeNotFoundException.class, e -> {
+                    upstream.outcome("not_found");
+                    postcodeFilterService.recordNotFound(key);
+                })
+                .doOnError(UpstreamUnavailableException.class, e -> upstream.outcome("unavailable"))
+                .doOnError(e -> !(e instanceof PostcodeNotFoundException || e instanceof UpstreamUnavailableException),
+                    upstream::error)
+                // Failed once retries are exhausted; answered like an open circuit
+                .onErrorMap(e -> !(e instanceof PostcodeNotFoundException || e instanceof UpstreamUnavailableException),
+                    e -> new UpstreamUnavailableException(PostcodesIoClient.UNAVAILABLE, e))
+                .doFinally(signal -> upstream.stop());
+        });
+    }
+
+    private <T> Mono<T> cached(TwoTierCache cache, Object key, Class<T> type, Observation request) {
+        LookupMetrics.Sample near = lookupMetrics.start(Stage.CACHE_L1, request).source(cache.getName());
+        Object local = cache.getLocal(key);
+        near.outcome(type.isInstance(local) ? "hit" : "miss").stop();
+        if (type.isInstance(local)) {
+            cache.recordLookup(true);
+            return Mono.just(type.cast(local));
+        }
+        return Mono.defer(() -> {
+            LookupMetrics.Sample redis = lookupMetrics.start(Stage.CACHE_L2, request).source(cache.getName());
+            return redisTemplate.opsForValue().get(cache.redisKey(key))
+                .doOnNext(stored -> cache.recordRedisLookup(true))
+                .switchIfEmpty(Mono.defer(() -> {
+                    cache.recordRedisLookup(false);
+                    return cachedLegacy(cache, key);
+                }))
+                .doOnSuccess(stored -> redis.outcome(stored != null ? "hit" : "miss"))
+                .doOnError(redis::error)
+                .doFinally(signal -> redis.stop());
+        })
+            .filter(stored -> type.isInstance(stored instanceof CacheEntry entry ? entry.value() : stored))
+            .flatMap(stored -> {
+                Object value = cache.unwrap(key, stored);
+                if (value == null) {
+                    return Mono.<T>empty();
+                }
+                cache.putLocal(key, stored);
+                return Mono.just(type.cast(value));
+            })
+            .doOnNext(value -> cache.recordLookup(true))
+            .switchIfEmpty(Mono.fromRunnable(() -> cache.recordLookup(false)))
+            .onErrorResume(e -> {
+                log.warn("Reactive cache read failed for {}: {}", key, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    // Entry still stored under a pre-canonical key, copied to the canonical one when found
+    private Mono<Object> cachedLegacy(TwoTierCache cache, Object key) {
+        return Flux.fromIterable(cache.legacyKeys(key))
+            .concatMap(alias -> redisTemplate.opsForValue().get(cache.redisKey(alias)))
+            .next()
+            .flatMap(stored -> {
+                cache.recordLegacyHit();
+                CacheEntry migrated = cache.migrate(stored);
+                return redisTemplate.opsForValue()
+                    .set(cache.redisKey(key), migrated, cache.timeToLive(key, migrated))
+                    .thenReturn((Object) migrated);
+            });
+    }
+
+    private <T> Mono<T> store(TwoTierCache cache, Object key, T value) {
+        CacheEntry entry = cache.wrap(value);
+        cache.putLocal(key, entry);
+        return redisTemplate.opsForValue()
+            .set(cache.redisKey(key), entry, cache.timeToLive(key, entry))
+            .onErrorResume(e -> {
+                log.warn("Reactive cache write failed for {}: {}", key, e.getMessage());
+                return Mono.just(false);
+            })
+            .thenReturn(value);
+    }
+}
@@ -0,0 +1,172 @@
+package com.zonefinder.service;
+
+import com.zonefinder.domain.CoordinateZoneResult;
+import com.zonefinder.util.KdTree;
+import com.zonefinder.util.ZoneCalculator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nearest stations to a coordinate
+ *
+ * Loads a CSV of stations (or Output Area centroids) with name, latitude,
+ * longitude and optionally zone columns into a {@link KdTree}, so a query
+ * visits a handful of points instead of every row and only the k results
+ * get an exact Haversine distance.
+ */
+@Component
+@Slf4j
+public class StationIndexService {
+
+    private static final List<String> NAME_COLUMNS = List.of("name", "station", "stop_name", "oa11cd");
+    private static final List<String> LATITUDE_COLUMNS = List.of("lat", "latitude", "stop_lat");
+    private static final List<String> LONGITUDE_COLUMNS = List.of("lon", "long", "lng", "longitude", "stop_lon");
+    private static final List<String> ZONE_COLUMNS = List.of("zone", "zones", "fare_zone");
+
+    private final ZoneCalculator zoneCalculator;
+    private final String stationsPath;
+    private volatile Stations stations;
+
+    private record Stations(KdTree tree, String[] names, String[] zones, double[] latitudes, double[] longitudes) {}
+
+    public StationIndexService(
+        ZoneCalculator zoneCalculator,
+        @Value("${zones.stations.path:}") String stationsPath
+    ) {
+        this.zoneCalculator = zoneCalculator;
+        this.stationsPath = stationsPath;
+    }
+
+    @PostConstruct
+    void loadStations() {
+        if (stationsPath == null || stationsPath.isBlank()) {
+            log.info("No station file configured; coordinate lookups will not list nearby stations");
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            Stations loaded = load(Path.of(stationsPath));
+            stations = loaded;
+            log.info("Indexed {} stations from {} in {}ms", loaded.tree().size(), stationsPath,
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to load stations from {}", stationsPath, ex);
+        }
+    }
+
+    /**
+     * Stations nearest to a location
+     * @param count How many to return
+     * @return Up to {@code count} stations, nearest first; empty when no stations are loaded
+     */
+    public List<CoordinateZoneResult.NearbyStation> findNearest(double latitude, double longitude, int count) {
+        Stations current = stations;
+        if (current == null || count <= 0) {
+            return List.of();
+        }
+        int[] ids = new int[count];
+        int found = current.tree().nearest(latitude, longitude, count, ids);
+        List<CoordinateZoneResult.NearbyStation> nearest = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            int id = ids[i];
+            double distanceKm = zoneCalculator.calculateDistance(
+                latitude, longitude, current.latitudes()[id], current.longitudes()[id]);
+            nearest.add(CoordinateZoneResult.NearbyStation.builder()
+                .name(current.names()[id])
+                .zone(current.zones()[id])
+                .distanceKm(Math.round(distanceKm * 100.0) / 100.0)
+                .build());
+        }
+        return nearest;
+    }
+
+    public boolean isLoaded() {
+        return stations != null;
+    }
+
+    private static Stations load(Path path) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<String> zones = new ArrayList<>();
+        List<double[]> coordinates = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("Station file is empty");
+            }
+            String[] columnNames = splitRow(header);
+            int nameColumn = findColumn(columnNames, NAME_COLUMNS);
+            int latitudeColumn = findColumn(columnNames, LATITUDE_COLUMNS);
+            int longitudeColumn = findColumn(columnNames, LONGITUDE_COLUMNS);
+            int zoneColumn = findColumn(columnNames, ZONE_COLUMNS);
+            if (nameColumn < 0 || latitudeColumn < 0 || longitudeColumn < 0) {
+                throw new IllegalArgumentException("Station file needs name, latitude and longitude columns");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = splitRow(line);
+                if (columns.length <= Math.max(nameColumn, Math.max(latitudeColumn, longitudeColumn))) {
+                    continue;
+                }
+                double latitude;
+                double longitude;
+                try {
+                    latitude = Double.parseDouble(columns[latitudeColumn]);
+                    longitude = Double.parseDouble(columns[longitudeColumn]);
+                } catch (NumberFormatException ignored) {
+                    continue;
+                }
+                if (latitude > 90 || latitude < -90 || longitude > 180 || longitude < -180) {
+                    continue;
+                }
+                names.add(columns[nameColumn]);
+                zones.add(zoneColumn >= 0 && zoneColumn < columns.length && !columns[zoneColumn].isEmpty()
+                    ? columns[zoneColumn] : null);
+                coordinates.add(new double[] {latitude, longitude});
+            }
+        }
+
+        double[] latitudes = new double[coordinates.size()];
+        double[] longitudes = new double[coordinates.size()];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = coordinates.get(i)[0];
+            longitudes[i] = coordinates.get(i)[1];
+        }
+        return new Stations(KdTree.build(latitudes, longitudes), names.toArray(String[]::new),
+            zones.toArray(String[]::new), latitudes, longitudes);
+    }
+
+    private static int findColumn(String[] names, List<String> candidates) {
+        for (String candidate : candidates) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(candidate)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String[] splitRow(String line) {
+        String[] columns = line.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i].trim();
+            if (column.length() >= 2 && column.charAt(0) == '"' && column.charAt(column.length() - 1) == '"') {
+                column = column.substring(1, column.length() - 1).trim();
+            }
+            columns[i] = column;
+        }
+        return columns;
+    }
+}
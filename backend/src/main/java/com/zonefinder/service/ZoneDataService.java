@@ -1,114 +1,541 @@
 package com.zonefinder.service;
 
+import com.zonefinder.cache.CacheVersioning;
+import com.zonefinder.cache.TwoTierCacheManager;
+import com.zonefinder.domain.OutcodeZoneDistribution;
+import com.zonefinder.util.OutputAreaCode;
+import com.zonefinder.util.PostcodeKey;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import java.io.BufferedReader;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Loads the modelled fare-zone data produced by the GLA "MyLondon" project.
- * The dataset maps Output Areas (OA11CD) to fare zones and each postcode
- * district (outcode) to an Output Area. We join both files to create an
- * outcode -> fare-zone lookup that can be used while TfL's live API is
- * unavailable.
+ * The dataset maps Output Areas (OA11CD) to fare zones and each Output Area to
+ * its postcode district (outcode).
+ *
+ * Full postcodes resolve through their Output Area (from the offline postcode
+ * index) to the exact zone. When only the outcode is known, the district's
+ * zone distribution over its Output Areas is used instead, answering with the
+ * zone most of the district lies in.
+ *
+ * The data lives in an immutable {@link ZoneDataset} behind an atomic
+ * reference. With {@code zones.dataset.directory} set, the files are read from
+ * there and the directory is watched: a changed dataset is parsed on the
+ * watcher thread and swapped in whole, so lookups never see a half-built one.
+ * Cached zone lookups are tagged with the dataset version, and a new version
+ * only invalidates those in the districts it changed. The tag also carries the
+ * fare tariff version, since every cached lookup includes fares; a new tariff
+ * invalidates them all without flushing the shared cache.
+ *
+ * A binary snapshot compiled with {@link #compileSnapshot(Path, Path)} is
+ * loaded instead of parsing the CSVs, and lookups are served from its mapping.
+ * The build compiles one from the copies in the jar; it is trusted once its
+ * checksum passes, so startup never reads the bundled CSVs. One placed in the
+ * directory as {@value #SNAPSHOT_FILE} is used while the CSVs next to it still
+ * have the size and modification time it recorded; otherwise they are hashed,
+ * and parsed if their content version differs from the snapshot's.
  */
 @Component
 @Slf4j
-public class ZoneDataService {
+public class ZoneDataService implements CacheVersioning {
+
+    /**
+     * Returned when no zone is known
+     */
+    public static final int UNKNOWN_ZONE = 0;
+
+    static final String FARE_ZONE_FILE = "MyLondon_fare_zone_OA.csv";
+    static final String POSTCODE_FILE = "MyLondon_postcode_OA.csv";
+    public static final String SNAPSHOT_FILE = "zone-dataset.bin";
+
+    // Version changes remembered for validating entries tagged with older versions
+    private static final int MAX_TRANSITIONS = 16;
+
+    private static final char TARIFF_SEPARATOR = '/';
 
     private final Resource fareZoneResource;
     private final Resource postcodeResource;
-    private final Map<String, String> outcodeToZone = new HashMap<>();
+    private final String datasetDirectory;
+    private final Duration quietPeriod;
+    private final PostcodeIndexService postcodeIndexService;
+    private final FareService fareService;
+    private final TwoTierCacheManager cacheManager;
+
+    private final AtomicReference<ZoneDataset> current = new AtomicReference<>(ZoneDataset.EMPTY);
+    private volatile List<Transition> transitions = List.of();
+    private volatile String baselineVersion = ZoneDataset.EMPTY.getVersion();
+    private volatile String baselineTariff = "";
+    private volatile Tag lastTag = new Tag(null, null, null);
+    private WatchService watchService;
+
+    /**
+     * A version change and the districts it affected (null for all of them)
+     */
+    private record Transition(String from, String to, int[] changedOutcodes) {
+    }
+
+    /**
+     * Tag of entries computed from a dataset version and tariff version
+     */
+    private record Tag(String version, String tariff, String value) {
+    }
 
     public ZoneDataService(
-        @Value("classpath:data/MyLondon_fare_zone_OA.csv") Resource fareZoneResource,
-        @Value("classpath:data/MyLondon_postcode_OA.csv") Resource postcodeResource
+        @Value("classpath:data/" + FARE_ZONE_FILE) Resource fareZoneResource,
+        @Value("classpath:data/" + POSTCODE_FILE) Resource postcodeResource,
+        @Value("${zones.dataset.directory:}") String datasetDirectory,
+        @Value("${zones.dataset.quiet-period:1s}") Duration quietPeriod,
+        PostcodeIndexService postcodeIndexService,
+        @Nullable FareService fareService,
+        @Nullable TwoTierCacheManager cacheManager
     ) {
         this.fareZoneResource = fareZoneResource;
         this.postcodeResource = postcodeResource;
+        this.datasetDirectory = datasetDirectory;
+        this.quietPeriod = quietPeriod;
+        this.postcodeIndexService = postcodeIndexService;
+        this.fareService = fareService;
+        this.cacheManager = cacheManager;
     }
 
     @PostConstruct
     void loadData() {
         try {
-            Map<String, String> oaToZone = loadOaZones();
-            loadOutcodeZones(oaToZone);
-            log.info("Loaded {} postcode districts with fare zones from MyLondon dataset", outcodeToZone.size());
-        } catch (IOException ex) {
+            ZoneDataset dataset = readDataset();
+            current.set(dataset);
+            baselineVersion = dataset.getVersion();
+            log.info("Loaded {} OA -> fare zone mappings and {} postcode districts from MyLondon dataset {} ({})",
+                dataset.outputAreaCount(), dataset.outcodeCount(), dataset.getVersion(), dataset.getSource());
+        } catch (IOException | RuntimeException ex) {
             log.error("Failed to load MyLondon fare zone datasets", ex);
         }
+        baselineTariff = currentTariff();
+        if (cacheManager != null) {
+            cacheManager.getTwoTierCache("zoneLookups").setVersioning(this);
+        }
+        if (isWatching()) {
+            startWatching(Path.of(datasetDirectory));
+        }
     }
 
-    public Optional<String> findZoneForPostcode(String postcode) {
-        String outcode = extractOutcode(postcode);
-        if (outcode == null) {
+    @PreDestroy
+    void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Fare zone of a postcode
+     * Uses the postcode's Output Area when the offline index knows it, and the
+     * most common zone of its district otherwise.
+     *
+     * @param postcode Full postcode or bare outcode, in any spacing or case
+     * @return Zone number, or {@link #UNKNOWN_ZONE}
+     */
+    public int findZoneNumber(String postcode) {
+        long key = PostcodeKey.parse(postcode);
+        if (key != PostcodeKey.INVALID) {
+            return findZoneNumber(key);
+        }
+        // A bare outcode, or a partial postcode to take one from
+        ZoneDataset dataset = current.get();
+        int row = dataset.outcodeRow(PostcodeKey.packOutcode(postcode));
+        return row >= 0 ? dataset.primaryZone(row) : UNKNOWN_ZONE;
+    }
+
+    /**
+     * Fare zone of a packed postcode, without allocating
+     * @param key Packed {@link PostcodeKey}
+     * @return Zone number, or {@link #UNKNOWN_ZONE}
+     */
+    public int findZoneNumber(long key) {
+        ZoneDataset dataset = current.get();
+        int outputArea = postcodeIndexService.findOutputArea(key);
+        if (outputArea != OutputAreaCode.INVALID) {
+            int zone = dataset.outputAreaZone(outputArea);
+            if (zone != UNKNOWN_ZONE) {
+                return zone;
+            }
+        }
+        int row = dataset.outcodeRow(PostcodeKey.outcodeOf(key));
+        return row >= 0 ? dataset.primaryZone(row) : UNKNOWN_ZONE;
+    }
+
+    /**
+     * Fare zone of an Output Area
+     * @param outputArea Packed {@link OutputAreaCode}
+     * @return Zone number, or {@link #UNKNOWN_ZONE}
+     */
+    public int findOutputAreaZone(int outputArea) {
+        return current.get().outputAreaZone(outputArea);
+    }
+
+    /**
+     * Share of a postcode district's Output Areas in each fare zone
+     * @param outcode Outcode (e.g. "E14"), or a full postcode to take it from
+     * @return Distribution with zones in ascending order, or empty if the district is unknown
+     */
+    public Optional<OutcodeZoneDistribution> findOutcodeDistribution(String outcode) {
+        ZoneDataset dataset = current.get();
+        int row = dataset.outcodeRow(PostcodeKey.packOutcode(outcode));
+        if (row < 0) {
             return Optional.empty();
         }
-        return Optional.ofNullable(outcodeToZone.get(outcode));
+        int total = 0;
+        for (int zone = 1; zone < ZoneDataset.ZONE_SLOTS; zone++) {
+            total += dataset.zoneCount(row, zone);
+        }
+        List<OutcodeZoneDistribution.ZoneShare> shares = new ArrayList<>();
+        for (int zone = 1; zone < ZoneDataset.ZONE_SLOTS; zone++) {
+            int count = dataset.zoneCount(row, zone);
+            if (count > 0) {
+                shares.add(OutcodeZoneDistribution.ZoneShare.builder()
+                    .zone(zone)
+                    .outputAreas(count)
+                    .share(Math.round(count * 1000.0 / total) / 1000.0)
+                    .build());
+            }
+        }
+        return Optional.of(OutcodeZoneDistribution.builder()
+            .outcode(outcodeText(outcode))
+            .primaryZone(dataset.primaryZone(row))
+            .outputAreas(total)
+            .zones(shares)
+            .build());
     }
 
-    private Map<String, String> loadOaZones() throws IOException {
-        Map<String, String> oaToZone = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-            fareZoneResource.getInputStream(), StandardCharsets.UTF_8))) {
-            String line = reader.readLine(); // header
-            while ((line = reader.readLine()) != null) {
-                String[] columns = line.split(",", -1);
-                if (columns.length < 2) {
-                    continue;
-                }
-                String oa = columns[0].trim();
-                String zone = columns[1].trim();
-                if (!oa.isEmpty() && !zone.isEmpty()) {
-                    oaToZone.put(oa, zone);
+    /**
+     * Known districts in a range of packed outcodes, in order, without allocating
+     * @param fromOutcode First packed outcode of the range, inclusive
+     * @param toOutcode End of the range, exclusive
+     * @param outcodes Receives the packed outcodes; the search stops once it is full
+     * @param zones Receives each district's most common zone, same length
+     * @return Number of districts written
+     */
+    public int findOutcodes(int fromOutcode, int toOutcode, int[] outcodes, int[] zones) {
+        ZoneDataset dataset = current.get();
+        int count = 0;
+        for (int row = dataset.firstOutcodeRow(fromOutcode);
+             row < dataset.outcodeCount() && dataset.outcode(row) < toOutcode && count < outcodes.length; row++) {
+            outcodes[count] = dataset.outcode(row);
+            zones[count++] = dataset.primaryZone(row);
+        }
+        return count;
+    }
+
+    /**
+     * Dataset currently used for lookups
+     */
+    public ZoneDataset getDataset() {
+        return current.get();
+    }
+
+    /**
+     * Re-read the dataset and publish it if its content changed
+     * A dataset that fails to parse or has no zones is rejected and the
+     * current one stays in place.
+     *
+     * @return true if a new version was published
+     */
+    public synchronized boolean reload() {
+        ZoneDataset loaded;
+        try {
+            loaded = readDataset();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to reload MyLondon fare zone datasets, keeping version {}",
+                current.get().getVersion(), ex);
+            return false;
+        }
+        ZoneDataset previous = current.get();
+        if (loaded.getVersion().equals(previous.getVersion())) {
+            return false;
+        }
+        if (loaded.outputAreaCount() == 0) {
+            log.warn("Ignoring MyLondon dataset {} without any fare zones", loaded.getVersion());
+            return false;
+        }
+
+        int[] changed = previous.changedOutcodes(loaded);
+        List<Transition> next = new ArrayList<>(transitions);
+        next.add(new Transition(previous.getVersion(), loaded.getVersion(), changed));
+        if (next.size() > MAX_TRANSITIONS) {
+            next.remove(0);
+        }
+        // Transition first: an entry tagged with the new version must never look unknown
+        transitions = List.copyOf(next);
+        current.set(loaded);
+        log.info("Switched MyLondon dataset {} -> {}: {} OA mappings, {} postcode districts, {} districts changed",
+            previous.getVersion(), loaded.getVersion(), loaded.outputAreaCount(), loaded.outcodeCount(),
+            changed != null ? changed.length : "all");
+        return true;
+    }
+
+    @Override
+    public String currentTag() {
+        String version = current.get().getVersion();
+        String tariff = currentTariff();
+        Tag tag = lastTag;
+        // Versions are only replaced, never mutated, so identity tells whether the tag is still current
+        if (tag.version() != version || tag.tariff() != tariff) {
+            tag = new Tag(version, tariff, version + TARIFF_SEPARATOR + tariff);
+            lastTag = tag;
+        }
+        return tag.value();
+    }
+
+    @Override
+    public boolean isCurrent(Object key, String tag) {
+        // Nearly every entry carries the current tag, so that is answered without taking the tag apart
+        if (tag != null && tag.equals(currentTag())) {
+            return true;
+        }
+        // Untagged entries predate versioning and were computed from the data this node started with,
+        // as were the fares of entries tagged before tags carried the tariff
+        String version = baselineVersion;
+        String tariff = baselineTariff;
+        if (tag != null) {
+            int separator = tag.indexOf(TARIFF_SEPARATOR);
+            version = separator >= 0 ? tag.substring(0, separator) : tag;
+            if (separator >= 0) {
+                tariff = tag.substring(separator + 1);
+            }
+        }
+        if (!tariff.equals(currentTariff())) {
+            return false;
+        }
+        if (version.equals(current.get().getVersion())) {
+            return true;
+        }
+        int outcode = key instanceof Long packed ? PostcodeKey.outcodeOf(packed)
+            : PostcodeKey.packOutcode(String.valueOf(key));
+        boolean found = false;
+        for (Transition transition : transitions) {
+            if (!found && !transition.from().equals(version)) {
+                continue;
+            }
+            found = true;
+            if (transition.changedOutcodes() == null || outcode == PostcodeKey.INVALID_OUTCODE
+                || Arrays.binarySearch(transition.changedOutcodes(), outcode) >= 0) {
+                return false;
+            }
+        }
+        // Versions older than the remembered transitions, or unknown to this node, are not trusted
+        return found;
+    }
+
+    private String currentTariff() {
+        return fareService != null ? fareService.getVersion() : "";
+    }
+
+    private boolean isWatching() {
+        return datasetDirectory != null && !datasetDirectory.isBlank();
+    }
+
+    /**
+     * Compile the MyLondon CSVs into a binary snapshot
+     * @param csvDirectory Directory holding both CSVs, or null for the copies bundled in the jar
+     * @param target Snapshot file to write
+     * @return The compiled dataset
+     */
+    public static ZoneDataset compileSnapshot(Path csvDirectory, Path target) throws IOException {
+        ZoneDataset dataset;
+        String sourceStamp = null;
+        if (csvDirectory != null) {
+            Path fareZoneCsv = csvDirectory.resolve(FARE_ZONE_FILE);
+            Path postcodeCsv = csvDirectory.resolve(POSTCODE_FILE);
+            sourceStamp = sourceStamp(fareZoneCsv, postcodeCsv);
+            dataset = parseCsv(Files.readAllBytes(fareZoneCsv), Files.readAllBytes(postcodeCsv),
+                csvDirectory.toAbsolutePath().toString());
+        } else {
+            ClassLoader classLoader = ZoneDataService.class.getClassLoader();
+            try (InputStream fareZoneStream = classLoader.getResourceAsStream("data/" + FARE_ZONE_FILE);
+                 InputStream postcodeStream = classLoader.getResourceAsStream("data/" + POSTCODE_FILE)) {
+                if (fareZoneStream == null || postcodeStream == null) {
+                    throw new IOException("MyLondon datasets not found on the classpath");
                 }
+                dataset = parseCsv(fareZoneStream.readAllBytes(), postcodeStream.readAllBytes(), "classpath:data");
             }
         }
-        log.info("Loaded {} OA -> fare zone mappings", oaToZone.size());
-        return oaToZone;
+        dataset.writeSnapshot(target, sourceStamp);
+        return dataset;
     }
 
-    private void loadOutcodeZones(Map<String, String> oaToZone) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-            postcodeResource.getInputStream(), StandardCharsets.UTF_8))) {
-            String line = reader.readLine(); // header
-            while ((line = reader.readLine()) != null) {
-                String[] columns = line.split(",", -1);
-                if (columns.length < 2) {
-                    continue;
+    private ZoneDataset readDataset() throws IOException {
+        if (!isWatching()) {
+            // Compiled from these very CSVs by the build, so a snapshot that passes its checksum is current
+            ZoneDataset bundled = readBundledSnapshot();
+            if (bundled != null) {
+                return bundled;
+            }
+            try (InputStream fareZoneStream = fareZoneResource.getInputStream();
+                 InputStream postcodeStream = postcodeResource.getInputStream()) {
+                return parseCsv(fareZoneStream.readAllBytes(), postcodeStream.readAllBytes(), "classpath:data");
+            }
+        }
+
+        Path directory = Path.of(datasetDirectory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        ZoneDataset compiled = null;
+        if (Files.exists(snapshot)) {
+            try {
+                compiled = ZoneDataset.readSnapshot(snapshot);
+            } catch (IOException ex) {
+                log.warn("Ignoring unreadable snapshot {}, parsing the MyLondon CSVs instead", snapshot, ex);
+            }
+        }
+        Path fareZoneCsv = directory.resolve(FARE_ZONE_FILE);
+        Path postcodeCsv = directory.resolve(POSTCODE_FILE);
+        if (compiled != null && !(Files.exists(fareZoneCsv) && Files.exists(postcodeCsv))) {
+            // Deployed without the CSVs, so there is nothing to check it against
+            return compiled;
+        }
+        if (compiled != null && sourceStamp(fareZoneCsv, postcodeCsv).equals(compiled.getSourceStamp())) {
+            return compiled;
+        }
+        return snapshotOrParse(compiled, Files.readAllBytes(fareZoneCsv), Files.readAllBytes(postcodeCsv),
+            directory.toAbsolutePath().toString());
+    }
+
+    private ZoneDataset readBundledSnapshot() {
+        try {
+            Resource snapshot = fareZoneResource.createRelative(SNAPSHOT_FILE);
+            if (!snapshot.exists()) {
+                return null;
+            }
+            if (snapshot.isFile()) {
+                return ZoneDataset.readSnapshot(snapshot.getFile().toPath());
+            }
+            // Jar entries are compressed and cannot be mapped, so the snapshot is inflated off-heap once
+            try (InputStream snapshotStream = snapshot.getInputStream()) {
+                byte[] bytes = snapshotStream.readAllBytes();
+                return ZoneDataset.readSnapshot(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip(),
+                    "classpath:data/" + SNAPSHOT_FILE);
+            }
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable bundled snapshot, parsing the MyLondon CSVs instead", ex);
+            return null;
+        }
+    }
+
+    /**
+     * The compiled snapshot if it was built from exactly these CSVs, else the parsed CSVs
+     * Only reached when the CSVs' size or modification time changed since the
+     * snapshot was compiled, e.g. after a copy that did not keep file times.
+     */
+    private static ZoneDataset snapshotOrParse(ZoneDataset compiled, byte[] fareZones, byte[] postcodes,
+                                               String source) throws IOException {
+        String version = contentVersion(fareZones, postcodes);
+        if (compiled != null) {
+            if (compiled.getVersion().equals(version)) {
+                log.info("MyLondon CSVs were touched but match snapshot {}; recompile it to skip hashing them",
+                    compiled.getSource());
+                return compiled;
+            }
+            log.warn("Snapshot {} was compiled from dataset {} but the MyLondon CSVs are {}, parsing them instead",
+                compiled.getSource(), compiled.getVersion(), version);
+        }
+        return ZoneDataset.parse(version, source, fareZones, postcodes);
+    }
+
+    private static ZoneDataset parseCsv(byte[] fareZones, byte[] postcodes, String source) throws IOException {
+        return ZoneDataset.parse(contentVersion(fareZones, postcodes), source, fareZones, postcodes);
+    }
+
+    // Size and modification time of both CSVs, recorded in snapshots compiled from a directory
+    private static String sourceStamp(Path fareZoneCsv, Path postcodeCsv) throws IOException {
+        return Files.size(fareZoneCsv) + "@" + Files.getLastModifiedTime(fareZoneCsv).toMillis() + ","
+            + Files.size(postcodeCsv) + "@" + Files.getLastModifiedTime(postcodeCsv).toMillis();
+    }
+
+    private void startWatching(Path directory) {
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            log.error("Cannot watch {} for MyLondon dataset changes", directory, ex);
+            return;
+        }
+        Thread watcher = new Thread(this::watch, "zone-dataset-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for MyLondon dataset changes", directory);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    String file = String.valueOf(event.context());
+                    relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || FARE_ZONE_FILE.equals(file) || POSTCODE_FILE.equals(file) || SNAPSHOT_FILE.equals(file);
                 }
-                String oa = columns[0].trim();
-                String outcode = columns[1].trim().toUpperCase();
-                if (outcode.isEmpty()) {
+                key.reset();
+                if (!relevant) {
                     continue;
                 }
-                String zone = oaToZone.get(oa);
-                if (zone != null) {
-                    outcodeToZone.putIfAbsent(outcode, zone);
+                // Let both files finish writing before reading them
+                WatchKey more;
+                while ((more = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
                 }
+                reload();
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Shutting down
         }
     }
 
-    private String extractOutcode(String postcode) {
-        if (postcode == null) {
-            return null;
+    // First 48 bits of the SHA-256 of both files
+    private static String contentVersion(byte[] fareZones, byte[] postcodes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(fareZones);
+            digest.update(postcodes);
+            return HexFormat.of().formatHex(digest.digest(), 0, 6);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
         }
+    }
+
+    private static String outcodeText(String postcode) {
         String trimmed = postcode.trim().toUpperCase();
-        if (trimmed.isEmpty()) {
-            return null;
+        int space = trimmed.indexOf(' ');
+        if (space > 0) {
+            return trimmed.substring(0, space);
         }
-        int spaceIndex = trimmed.indexOf(' ');
-        return spaceIndex > 0 ? trimmed.substring(0, spaceIndex) : trimmed;
+        return trimmed.length() >= 5 ? trimmed.substring(0, trimmed.length() - 3) : trimmed;
     }
 }
-
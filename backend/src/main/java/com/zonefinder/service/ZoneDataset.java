@@ -0,0 +1,456 @@
+package com.zonefinder.service;
+
+import com.zonefinder.util.OutputAreaCode;
+import com.zonefinder.util.PostcodeKey;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable snapshot of the MyLondon fare zone data
+ *
+ * Holds OA -> zone as sorted packed OA codes with a zone byte each (plus the
+ * district every OA lies in), and per-district OA counts for every zone. A
+ * snapshot never changes after it is built, so readers need no locking and a
+ * reload simply publishes a new one.
+ *
+ * Snapshots can also be compiled to a binary file holding exactly these
+ * arrays in little-endian order (native on the servers we run on, so reads
+ * need no byte swapping), followed by a CRC-32 of the content. Loading one memory-maps the file
+ * and serves lookups straight from the mapping, skipping CSV parsing, sorting,
+ * aggregation and copying onto the heap. The file also records the size and
+ * modification time of the CSVs it was compiled from, so a stale one can be
+ * spotted without reading them.
+ */
+public final class ZoneDataset {
+
+    static final int ZONE_SLOTS = 10;
+
+    // "ZFDS" followed by the snapshot layout version
+    private static final int SNAPSHOT_MAGIC = 0x5A464453;
+    private static final int SNAPSHOT_FORMAT = 2;
+
+    static final ZoneDataset EMPTY = new ZoneDataset("none", "none", null, Instant.EPOCH,
+        IntBuffer.allocate(0), ByteBuffer.allocate(0), IntBuffer.allocate(0), IntBuffer.allocate(0),
+        ShortBuffer.allocate(0), ByteBuffer.allocate(0));
+
+    private final String version;
+    private final String source;
+    private final String sourceStamp;
+    private final Instant loadedAt;
+
+    // OA -> zone and district, sorted by packed OA code; read with absolute gets only
+    private final IntBuffer outputAreas;
+    private final ByteBuffer outputAreaZones;
+    private final IntBuffer outputAreaOutcodes;
+
+    // Outcode -> OA count per zone ([outcode * ZONE_SLOTS + zone]), sorted by packed outcode
+    private final IntBuffer outcodes;
+    private final ShortBuffer outcodeZoneCounts;
+    private final ByteBuffer outcodePrimaryZones;
+
+    private ZoneDataset(String version, String source, String sourceStamp, Instant loadedAt, IntBuffer outputAreas,
+                        ByteBuffer outputAreaZones, IntBuffer outputAreaOutcodes, IntBuffer outcodes,
+                        ShortBuffer outcodeZoneCounts, ByteBuffer outcodePrimaryZones) {
+        this.version = version;
+        this.source = source;
+        this.sourceStamp = sourceStamp;
+        this.loadedAt = loadedAt;
+        this.outputAreas = outputAreas;
+        this.outputAreaZones = outputAreaZones;
+        this.outputAreaOutcodes = outputAreaOutcodes;
+        this.outcodes = outcodes;
+        this.outcodeZoneCounts = outcodeZoneCounts;
+        this.outcodePrimaryZones = outcodePrimaryZones;
+    }
+
+    /**
+     * Parse both MyLondon files into a snapshot
+     * @param version Version tag, e.g. a content hash
+     * @param source Where the files came from, for diagnostics
+     * @param fareZones OA11CD,Fare_Zone CSV
+     * @param postcodeOutputAreas OA11CD,PC_DIST CSV
+     */
+    static ZoneDataset parse(String version, String source, byte[] fareZones, byte[] postcodeOutputAreas)
+        throws IOException {
+        long[] oaEntries = readPairs(fareZones, true);
+        int[] codes = new int[oaEntries.length];
+        byte[] zones = new byte[oaEntries.length];
+        int count = 0;
+        // Sorted (oa, zone) pairs keep the arrays aligned; a duplicated OA keeps its lowest zone
+        for (long entry : oaEntries) {
+            int oa = (int) (entry >>> 8);
+            if (count > 0 && codes[count - 1] == oa) {
+                continue;
+            }
+            codes[count] = oa;
+            zones[count++] = (byte) entry;
+        }
+        int[] outputAreas = Arrays.copyOf(codes, count);
+        byte[] outputAreaZones = Arrays.copyOf(zones, count);
+        int[] outputAreaOutcodes = new int[count];
+        Arrays.fill(outputAreaOutcodes, PostcodeKey.INVALID_OUTCODE);
+
+        // (outcode, zone) per OA of the district file
+        long[] districtEntries = readPairs(postcodeOutputAreas, false);
+        long[] outcodeEntries = new long[districtEntries.length];
+        int size = 0;
+        for (long entry : districtEntries) {
+            int oa = (int) (entry >>> 32);
+            int outcode = (int) entry;
+            int row = Arrays.binarySearch(outputAreas, oa);
+            if (row < 0) {
+                continue;
+            }
+            outputAreaOutcodes[row] = outcode;
+            outcodeEntries[size++] = ((long) outcode << 8) | outputAreaZones[row];
+        }
+        Arrays.sort(outcodeEntries, 0, size);
+
+        int[] outcodeCodes = new int[size];
+        short[] counts = new short[size * ZONE_SLOTS];
+        int outcodeCount = 0;
+        for (int i = 0; i < size; i++) {
+            int outcode = (int) (outcodeEntries[i] >>> 8);
+            if (outcodeCount == 0 || outcodeCodes[outcodeCount - 1] != outcode) {
+                outcodeCodes[outcodeCount++] = outcode;
+            }
+            counts[(outcodeCount - 1) * ZONE_SLOTS + (int) (outcodeEntries[i] & 0xFF)]++;
+        }
+        byte[] primary = new byte[outcodeCount];
+        for (int row = 0; row < outcodeCount; row++) {
+            int best = ZoneDataService.UNKNOWN_ZONE;
+            for (int zone = 1; zone < ZONE_SLOTS; zone++) {
+                // Slot 0 is always empty; ties go to the inner zone
+                if (counts[row * ZONE_SLOTS + zone] > counts[row * ZONE_SLOTS + best]) {
+                    best = zone;
+                }
+            }
+            primary[row] = (byte) best;
+        }
+
+        return new ZoneDataset(version, source, null, Instant.now(), IntBuffer.wrap(outputAreas),
+            ByteBuffer.wrap(outputAreaZones), IntBuffer.wrap(outputAreaOutcodes),
+            IntBuffer.wrap(Arrays.copyOf(outcodeCodes, outcodeCount)),
+            ShortBuffer.wrap(Arrays.copyOf(counts, outcodeCount * ZONE_SLOTS)), ByteBuffer.wrap(primary));
+    }
+
+    /**
+     * Map a snapshot compiled by {@link #writeSnapshot(Path, String)}
+     * The mapping stays valid after the file is replaced, so snapshots must be
+     * swapped in by moving a new file into place, never rewritten in place.
+     * @throws IOException If the file cannot be read, is truncated or fails its checksum
+     */
+    static ZoneDataset readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Not a zone dataset snapshot: " + path);
+            }
+            return readSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), path.toString());
+        }
+    }
+
+    /**
+     * Load a snapshot from a buffer holding its bytes; lookups read that buffer
+     * @param source Where the bytes came from, for diagnostics
+     * @throws IOException If the snapshot is truncated or fails its checksum
+     */
+    static ZoneDataset readSnapshot(ByteBuffer buffer, String source) throws IOException {
+        int size = buffer.remaining();
+        if (size < 28) {
+            throw new IOException("Not a zone dataset snapshot: " + source);
+        }
+        int contentLength = size - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(buffer.position() + contentLength));
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if ((int) crc.getValue() != in.getInt(contentLength)) {
+            throw new IOException("Checksum mismatch in zone dataset snapshot " + source);
+        }
+        if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_FORMAT) {
+            throw new IOException("Unsupported zone dataset snapshot " + source);
+        }
+        String version = readString(in);
+        String sourceStamp = readString(in);
+        int outputAreaCount = in.getInt();
+        int outcodeCount = in.getInt();
+        long expected = in.position() + outputAreaCount * 9L + outcodeCount * (5L + ZONE_SLOTS * 2L);
+        if (expected != contentLength) {
+            throw new IOException("Truncated zone dataset snapshot " + source);
+        }
+
+        IntBuffer outputAreas = region(in, outputAreaCount * Integer.BYTES).asIntBuffer();
+        IntBuffer outputAreaOutcodes = region(in, outputAreaCount * Integer.BYTES).asIntBuffer();
+        ByteBuffer outputAreaZones = region(in, outputAreaCount);
+        IntBuffer outcodes = region(in, outcodeCount * Integer.BYTES).asIntBuffer();
+        ShortBuffer outcodeZoneCounts = region(in, outcodeCount * ZONE_SLOTS * Short.BYTES).asShortBuffer();
+        ByteBuffer outcodePrimaryZones = region(in, outcodeCount);
+        return new ZoneDataset(version, source, sourceStamp.isEmpty() ? null : sourceStamp, Instant.now(),
+            outputAreas, outputAreaZones, outputAreaOutcodes, outcodes, outcodeZoneCounts, outcodePrimaryZones);
+    }
+
+    /**
+     * Compile this snapshot to a binary file
+     * The file is written next to the target and moved into place, so a
+     * watcher never sees it half-written and mapped copies stay intact.
+     * @param sourceStamp Size and modification time of the CSVs it was parsed from, or null
+     */
+    void writeSnapshot(Path path, String sourceStamp) throws IOException {
+        byte[] versionBytes = version.getBytes(StandardCharsets.UTF_8);
+        byte[] stampBytes = sourceStamp != null ? sourceStamp.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int outputAreaCount = outputAreaCount();
+        int outcodeCount = outcodeCount();
+        int contentLength = 4 + 4 + 2 + versionBytes.length + 2 + stampBytes.length + 4 + 4
+            + outputAreaCount * 9 + outcodeCount * (5 + ZONE_SLOTS * 2);
+        ByteBuffer buffer = ByteBuffer.allocate(contentLength + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_FORMAT);
+        buffer.putShort((short) versionBytes.length).put(versionBytes);
+        buffer.putShort((short) stampBytes.length).put(stampBytes);
+        buffer.putInt(outputAreaCount).putInt(outcodeCount);
+        buffer.asIntBuffer().put(outputAreas.duplicate());
+        buffer.position(buffer.position() + outputAreaCount * Integer.BYTES);
+        buffer.asIntBuffer().put(outputAreaOutcodes.duplicate());
+        buffer.position(buffer.position() + outputAreaCount * Integer.BYTES);
+        buffer.put(outputAreaZones.duplicate());
+        buffer.asIntBuffer().put(outcodes.duplicate());
+        buffer.position(buffer.position() + outcodeCount * Integer.BYTES);
+        buffer.asShortBuffer().put(outcodeZoneCounts.duplicate());
+        buffer.position(buffer.position() + outcodeCount * ZONE_SLOTS * Short.BYTES);
+        buffer.put(outcodePrimaryZones.duplicate());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, contentLength);
+        buffer.putInt((int) crc.getValue());
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.write(temp, buffer.array());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Size and modification time of the CSVs a snapshot was compiled from, null if unknown
+     */
+    String getSourceStamp() {
+        return sourceStamp;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int outputAreaCount() {
+        return outputAreas.limit();
+    }
+
+    public int outcodeCount() {
+        return outcodes.limit();
+    }
+
+    /**
+     * Zone of a packed OA code, or {@link ZoneDataService#UNKNOWN_ZONE}
+     */
+    int outputAreaZone(int outputArea) {
+        int row = binarySearch(outputAreas, outputArea);
+        return row >= 0 ? outputAreaZones.get(row) : ZoneDataService.UNKNOWN_ZONE;
+    }
+
+    /**
+     * Row of a packed outcode, negative if the district is unknown
+     */
+    int outcodeRow(int outcode) {
+        return outcode == PostcodeKey.INVALID_OUTCODE ? -1 : binarySearch(outcodes, outcode);
+    }
+
+    /**
+     * Row of the first district at or after a packed outcode
+     */
+    int firstOutcodeRow(int outcode) {
+        int row = binarySearch(outcodes, outcode);
+        return row >= 0 ? row : -row - 1;
+    }
+
+    int outcode(int outcodeRow) {
+        return outcodes.get(outcodeRow);
+    }
+
+    int primaryZone(int outcodeRow) {
+        return outcodePrimaryZones.get(outcodeRow);
+    }
+
+    int zoneCount(int outcodeRow, int zone) {
+        return outcodeZoneCounts.get(outcodeRow * ZONE_SLOTS + zone);
+    }
+
+    /**
+     * Districts whose lookups can resolve differently in the other snapshot:
+     * those whose majority zone changed or that contain an OA whose zone changed
+     * @return Sorted packed outcodes, or null if an OA without a district changed
+     */
+    int[] changedOutcodes(ZoneDataset other) {
+        int[] changed = new int[16];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        int count = outputAreaCount();
+        int otherCount = other.outputAreaCount();
+        while (i < count || j < otherCount) {
+            int a = i < count ? outputAreas.get(i) : Integer.MAX_VALUE;
+            int b = j < otherCount ? other.outputAreas.get(j) : Integer.MAX_VALUE;
+            if (a == b && outputAreaZones.get(i) == other.outputAreaZones.get(j)
+                && outputAreaOutcodes.get(i) == other.outputAreaOutcodes.get(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            int fromThis = a <= b ? outputAreaOutcodes.get(i) : PostcodeKey.INVALID_OUTCODE;
+            int fromOther = b <= a ? other.outputAreaOutcodes.get(j) : PostcodeKey.INVALID_OUTCODE;
+            if (fromThis == PostcodeKey.INVALID_OUTCODE && fromOther == PostcodeKey.INVALID_OUTCODE) {
+                return null;
+            }
+            if (fromThis != PostcodeKey.INVALID_OUTCODE) {
+                changed = append(changed, size++, fromThis);
+            }
+            if (fromOther != PostcodeKey.INVALID_OUTCODE) {
+                changed = append(changed, size++, fromOther);
+            }
+            i += a <= b ? 1 : 0;
+            j += b <= a ? 1 : 0;
+        }
+        for (int row = 0; row < outcodeCount(); row++) {
+            int otherRow = other.outcodeRow(outcode(row));
+            if (otherRow < 0 || other.primaryZone(otherRow) != primaryZone(row)) {
+                changed = append(changed, size++, outcode(row));
+            }
+        }
+        for (int row = 0; row < other.outcodeCount(); row++) {
+            if (outcodeRow(other.outcode(row)) < 0) {
+                changed = append(changed, size++, other.outcode(row));
+            }
+        }
+        Arrays.sort(changed, 0, size);
+        int distinct = 0;
+        for (int k = 0; k < size; k++) {
+            if (distinct == 0 || changed[distinct - 1] != changed[k]) {
+                changed[distinct++] = changed[k];
+            }
+        }
+        return Arrays.copyOf(changed, distinct);
+    }
+
+    private static int[] append(int[] values, int size, int value) {
+        int[] target = size == values.length ? Arrays.copyOf(values, size * 2) : values;
+        target[size] = value;
+        return target;
+    }
+
+    // Same contract as Arrays.binarySearch, over a sorted buffer
+    private static int binarySearch(IntBuffer values, int key) {
+        int low = 0;
+        int high = values.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = values.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Next length bytes of a snapshot as their own buffer, in the snapshot's byte order
+    private static ByteBuffer region(ByteBuffer in, int length) {
+        ByteBuffer region = in.slice(in.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + length);
+        return region;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Sorted packed pairs from a two-column CSV: (oa << 8 | zone) or (oa << 32 | outcode)
+    private static long[] readPairs(byte[] csv, boolean zones) throws IOException {
+        long[] entries = new long[1 << 15];
+        int size = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",", -1);
+                if (columns.length < 2) {
+                    continue;
+                }
+                int oa = OutputAreaCode.pack(columns[0].trim());
+                if (oa == OutputAreaCode.INVALID) {
+                    continue;
+                }
+                long entry;
+                if (zones) {
+                    int zone = parsePrimaryZone(columns[1].trim());
+                    if (zone == ZoneDataService.UNKNOWN_ZONE) {
+                        continue;
+                    }
+                    entry = ((long) oa << 8) | zone;
+                } else {
+                    int outcode = PostcodeKey.packOutcode(columns[1].trim());
+                    if (outcode == PostcodeKey.INVALID_OUTCODE) {
+                        continue;
+                    }
+                    entry = ((long) oa << 32) | outcode;
+                }
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                entries[size++] = entry;
+            }
+        }
+        long[] result = Arrays.copyOf(entries, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int parsePrimaryZone(String zoneCode) {
+        int zone = 0;
+        int i = 0;
+        while (i < zoneCode.length() && !Character.isDigit(zoneCode.charAt(i))) {
+            i++;
+        }
+        while (i < zoneCode.length() && Character.isDigit(zoneCode.charAt(i))) {
+            zone = zone * 10 + (zoneCode.charAt(i++) - '0');
+        }
+        return zone > 0 && zone < ZONE_SLOTS ? zone : ZoneDataService.UNKNOWN_ZONE;
+    }
+}
@@ -1,100 +1,311 @@
 package com.zonefinder.service;
 
+import com.zonefinder.cache.PostcodeKeyGenerator;
+import com.zonefinder.cache.TwoTierCache;
+import com.zonefinder.cache.TwoTierCacheManager;
+import com.zonefinder.client.CoalescingPostcodeClient;
 import com.zonefinder.client.PostcodesIoClient;
+import com.zonefinder.domain.BatchLookupItem;
 import com.zonefinder.domain.Postcode;
 import com.zonefinder.domain.ZoneLookupResult;
+import com.zonefinder.exception.PostcodeNotFoundException;
+import com.zonefinder.exception.UpstreamUnavailableException;
+import com.zonefinder.metrics.LookupMetrics;
+import com.zonefinder.metrics.LookupMetrics.Stage;
+import com.zonefinder.util.PostcodeKey;
 import com.zonefinder.util.PostcodeValidator;
 import com.zonefinder.util.ZoneCalculator;
+import io.micrometer.observation.Observation;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ZoneLookupService {
 
     private final PostcodesIoClient postcodesIoClient;
+    private final CoalescingPostcodeClient coalescingPostcodeClient;
+    private final PostcodeIndexService postcodeIndexService;
+    private final PostcodeFilterService postcodeFilterService;
     private final ZoneDataService zoneDataService;
+    private final FareZoneBoundaryService fareZoneBoundaryService;
     private final ZoneCalculator zoneCalculator;
+    private final FareService fareService;
     private final PostcodeValidator postcodeValidator;
+    // Absent when run without Redis, e.g. by the bulk CLI
+    @Nullable
+    private final TwoTierCacheManager cacheManager;
+    private final LookupMetrics lookupMetrics;
+
+    @PostConstruct
+    void registerRefresher() {
+        if (cacheManager == null) {
+            return;
+        }
+        // Stale entries are recomputed in the background from a fresh upstream
+        // answer, so the postcodes cache cannot hand back the data being refreshed
+        cacheManager.getTwoTierCache("zoneLookups")
+            .setRefresher(key -> resolveZone(PostcodeKeyGenerator.postcode(key), false, true));
+    }
 
-    @Cacheable(value = "zoneLookups", key = "#postcode")
+    /**
+     * Zone of a postcode
+     * Misses that cannot reach Postcodes.io get a degraded answer from the
+     * offline dataset where it knows the district; those are not cached.
+     */
+    @Cacheable(value = "zoneLookups", keyGenerator = "postcodeKeyGenerator", unless = "#result.degraded")
     public ZoneLookupResult lookupZone(String postcode) {
         log.info("Looking up zone for postcode: {}", postcode);
+        return resolveZone(postcode, true, false);
+    }
 
-        if (!postcodeValidator.isValid(postcode)) {
+    private ZoneLookupResult resolveZone(String postcode, boolean allowDegraded, boolean refresh) {
+        LookupMetrics.Sample validation = lookupMetrics.start(Stage.VALIDATION);
+        long key = PostcodeKey.parse(postcode);
+        validation.outcome(key != PostcodeKey.INVALID ? "valid" : "invalid").stop();
+        if (key == PostcodeKey.INVALID) {
             throw new IllegalArgumentException("Invalid postcode format: " + postcode);
         }
 
-        Postcode postcodeData = postcodesIoClient.fetchPostcode(postcode);
+        // The offline index answers most postcodes; only misses go to Postcodes.io
+        Postcode postcodeData;
+        try {
+            postcodeData = postcodeIndexService.findPostcode(key)
+                .orElseGet(() -> fetchUpstream(key, refresh));
+        } catch (UpstreamUnavailableException ex) {
+            ZoneLookupResult degraded = allowDegraded ? buildDegradedResult(key) : null;
+            if (degraded == null) {
+                throw ex;
+            }
+            return degraded;
+        }
+
+        return buildResult(postcodeData);
+    }
+
+    /**
+     * Fetch an index miss from Postcodes.io; concurrent misses for the same postcode share a single call
+     * Postcodes known not to exist are answered as not found without calling it.
+     * Refreshes skip the postcodes cache and update it with what they fetch.
+     */
+    @SuppressWarnings("try") // the scope is only held open, never referenced
+    private Postcode fetchUpstream(long key, boolean refresh) {
+        if (postcodeFilterService.isKnownMissing(key)) {
+            throw new PostcodeNotFoundException("Postcode not found: " + PostcodeKey.format(key));
+        }
+        LookupMetrics.Sample upstream = lookupMetrics.start(Stage.UPSTREAM).source("postcodes.io");
+        try (Observation.Scope scope = upstream.openScope()) {
+            String postcode = PostcodeKey.format(key);
+            Postcode postcodeData = refresh
+                ? coalescingPostcodeClient.refreshPostcode(postcode)
+                : coalescingPostcodeClient.fetchPostcode(postcode);
+            upstream.outcome("success");
+            return postcodeData;
+        } catch (PostcodeNotFoundException ex) {
+            upstream.outcome("not_found");
+            postcodeFilterService.recordNotFound(key);
+            throw ex;
+        } catch (UpstreamUnavailableException ex) {
+            upstream.outcome("unavailable");
+            throw ex;
+        } catch (RuntimeException ex) {
+            // Failed once retries are exhausted; answered like an open circuit
+            upstream.error(ex);
+            throw new UpstreamUnavailableException(PostcodesIoClient.UNAVAILABLE, ex);
+        } finally {
+            upstream.stop();
+        }
+    }
+
+    /**
+     * Resolve many postcodes at once
+     * Duplicates are resolved once, cache hits come from a single multi-get and
+     * misses go to Postcodes.io in bulk chunks rather than one call each.
+     *
+     * @param postcodes Postcodes in request order
+     * @return One item per requested postcode, in the same order
+     */
+    public List<BatchLookupItem> lookupZones(List<String> postcodes) {
+        log.info("Looking up zones for batch of {} postcodes", postcodes.size());
+
+        // Canonical keys, so spelling variants are resolved once and share cache entries
+        Set<Long> unique = new LinkedHashSet<>();
+        for (String postcode : postcodes) {
+            long key = PostcodeKey.parse(postcode);
+            if (key != PostcodeKey.INVALID) {
+                unique.add(key);
+            }
+        }
+
+        TwoTierCache zoneCache = cacheManager != null ? cacheManager.getTwoTierCache("zoneLookups") : null;
+        Map<Long, ZoneLookupResult> resolved = new HashMap<>();
+        if (zoneCache != null) {
+            zoneCache.getAll(unique).forEach((key, value) -> resolved.put((Long) key, (ZoneLookupResult) value));
+        }
+
+        List<String> misses = new ArrayList<>();
+        Map<Long, Postcode> fetched = new HashMap<>();
+        for (Long key : unique) {
+            if (resolved.containsKey(key)) {
+                continue;
+            }
+            postcodeIndexService.findPostcode(key).ifPresentOrElse(
+                data -> fetched.put(key, data),
+                () -> {
+                    if (!postcodeFilterService.isKnownMissing(key)) {
+                        misses.add(PostcodeKey.format(key));
+                    }
+                }
+            );
+        }
+
+        Set<Long> unavailable = new HashSet<>();
+        Map<Long, Postcode> fetchedRemotely = new HashMap<>();
+        for (int from = 0; from < misses.size(); from += PostcodesIoClient.MAX_BULK_SIZE) {
+            List<String> chunk = misses.subList(from, Math.min(from + PostcodesIoClient.MAX_BULK_SIZE, misses.size()));
+            try {
+                Map<String, Postcode> found = postcodesIoClient.fetchPostcodes(chunk);
+                found.forEach((query, data) -> fetchedRemotely.put(PostcodeKey.parse(query), data));
+                chunk.stream()
+                    .filter(postcode -> !found.containsKey(postcode))
+                    .forEach(postcode -> postcodeFilterService.recordNotFound(PostcodeKey.parse(postcode)));
+            } catch (RuntimeException ex) {
+                log.warn("Bulk postcode lookup failed for {} postcodes: {}", chunk.size(), ex.getMessage());
+                chunk.forEach(postcode -> unavailable.add(PostcodeKey.parse(postcode)));
+            }
+        }
+        fetched.putAll(fetchedRemotely);
+
+        Map<Long, ZoneLookupResult> computed = new HashMap<>();
+        fetched.forEach((key, data) -> computed.put(key, buildResult(data)));
+        if (zoneCache != null) {
+            zoneCache.putAll(computed);
+            cacheManager.getTwoTierCache("postcodes").putAll(fetchedRemotely);
+        }
+        resolved.putAll(computed);
+
+        // Like single lookups, postcodes Postcodes.io could not answer get a
+        // degraded answer where the dataset knows the district; not cached
+        for (Long key : unavailable) {
+            ZoneLookupResult degraded = buildDegradedResult(key);
+            if (degraded != null) {
+                resolved.put(key, degraded);
+            }
+        }
 
+        List<BatchLookupItem> items = new ArrayList<>(postcodes.size());
+        for (String postcode : postcodes) {
+            long key = PostcodeKey.parse(postcode);
+            if (key == PostcodeKey.INVALID) {
+                items.add(BatchLookupItem.error(postcode, "Invalid postcode format: " + postcode));
+                continue;
+            }
+            ZoneLookupResult result = resolved.get(key);
+            if (result != null) {
+                items.add(BatchLookupItem.success(postcode, result));
+            } else if (unavailable.contains(key)) {
+                items.add(BatchLookupItem.error(postcode, PostcodesIoClient.UNAVAILABLE));
+            } else {
+                items.add(BatchLookupItem.error(postcode, "Postcode not found: " + postcode));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Build the lookup result for resolved postcode data (no I/O)
+     */
+    ZoneLookupResult buildResult(Postcode postcodeData) {
+        LookupMetrics.Sample distance = lookupMetrics.start(Stage.DISTANCE);
         double distanceKm = zoneCalculator.calculateDistanceFromCentre(
             postcodeData.getLatitude(),
             postcodeData.getLongitude()
         );
+        distance.outcome("success").stop();
 
-        ZoneLookupResult.ZoneInfo zoneInfo = zoneDataService.findZoneForPostcode(postcodeData.getPostcode())
-            .map(this::buildZoneFromDataset)
-            .orElseGet(() -> buildCalculatedZone(distanceKm));
+        // Zone boundaries are exact when loaded; then the MyLondon dataset (by Output Area,
+        // else the district's majority zone) and finally distance rings
+        LookupMetrics.Sample dataset = lookupMetrics.start(Stage.DATASET);
+        OptionalInt boundaryZone = fareZoneBoundaryService.findZone(
+            postcodeData.getLatitude(),
+            postcodeData.getLongitude()
+        );
+        long key = PostcodeKey.parse(postcodeData.getPostcode());
+        int datasetZone = boundaryZone.isPresent() ? ZoneDataService.UNKNOWN_ZONE
+            : key != PostcodeKey.INVALID ? zoneDataService.findZoneNumber(key)
+            : zoneDataService.findZoneNumber(postcodeData.getPostcode());
+        ZoneLookupResult.ZoneInfo zoneInfo = boundaryZone.isPresent() ? buildZone(boundaryZone.getAsInt())
+            : datasetZone != ZoneDataService.UNKNOWN_ZONE ? buildZone(datasetZone)
+            : buildCalculatedZone(distanceKm);
+        dataset.source(boundaryZone.isPresent() ? "boundaries"
+                : datasetZone != ZoneDataService.UNKNOWN_ZONE ? "dataset" : "calculated")
+            .outcome("success")
+            .stop();
 
         return ZoneLookupResult.builder()
-            .postcode(postcodeValidator.format(postcodeData.getPostcode()))
+            .postcode(key != PostcodeKey.INVALID ? PostcodeKey.format(key)
+                : postcodeValidator.format(postcodeData.getPostcode()))
             .zone(zoneInfo.name())
             .zoneNumber(zoneInfo.number())
             .area(postcodeData.getAdminDistrict())
             .latitude(postcodeData.getLatitude())
             .longitude(postcodeData.getLongitude())
             .distanceFromCentreKm(Math.round(distanceKm * 10.0) / 10.0)
-            .fareInfo(
-                ZoneLookupResult.FareInfo.builder()
-                    .peakFare(zoneInfo.peakFare())
-                    .offPeakFare(zoneInfo.offPeakFare())
-                    .currency("GBP")
-                    .build()
-            )
+            .fareInfo(zoneInfo.fareInfo())
+            .build();
+    }
+
+    /**
+     * Answer from the offline dataset alone, for when Postcodes.io is not being called
+     * @return Result without coordinates, or null if the dataset does not know the district
+     */
+    ZoneLookupResult buildDegradedResult(long key) {
+        int zoneNumber = zoneDataService.findZoneNumber(key);
+        if (zoneNumber == ZoneDataService.UNKNOWN_ZONE) {
+            return null;
+        }
+        ZoneLookupResult.ZoneInfo zoneInfo = buildZone(zoneNumber);
+        return ZoneLookupResult.builder()
+            .postcode(PostcodeKey.format(key))
+            .zone(zoneInfo.name())
+            .zoneNumber(zoneInfo.number())
+            .fareInfo(zoneInfo.fareInfo())
+            .degraded(true)
             .build();
     }
 
+    /**
+     * Zone of a bare coordinate, from the boundaries when loaded, else distance rings
+     * (the MyLondon dataset is keyed by postcode, so it cannot answer here)
+     */
+    ZoneLookupResult.ZoneInfo zoneAt(double latitude, double longitude, double distanceKm) {
+        OptionalInt boundaryZone = fareZoneBoundaryService.findZone(latitude, longitude);
+        return boundaryZone.isPresent() ? buildZone(boundaryZone.getAsInt()) : buildCalculatedZone(distanceKm);
+    }
+
     private ZoneLookupResult.ZoneInfo buildCalculatedZone(double distanceKm) {
-        int zoneNumber = zoneCalculator.determineZoneNumber(distanceKm);
-        return new ZoneLookupResult.ZoneInfo(
-            zoneCalculator.getZoneName(zoneNumber),
-            zoneNumber,
-            2.50 + zoneNumber * 0.50,
-            2.00 + zoneNumber * 0.40
-        );
+        return buildZone(zoneCalculator.determineZoneNumber(distanceKm));
     }
 
-    private ZoneLookupResult.ZoneInfo buildZoneFromDataset(String zoneCode) {
-        int primaryZone = parsePrimaryZone(zoneCode);
-        if (primaryZone == 0) {
-            return buildCalculatedZone(0);
-        }
-        String zoneName = "Zone " + zoneCode;
+    private ZoneLookupResult.ZoneInfo buildZone(int zoneNumber) {
         return new ZoneLookupResult.ZoneInfo(
-            zoneName,
-            primaryZone,
-            2.50 + primaryZone * 0.50,
-            2.00 + primaryZone * 0.40
+            zoneCalculator.getZoneName(zoneNumber),
+            zoneNumber,
+            fareService.centralFares(zoneNumber)
         );
     }
-
-    private int parsePrimaryZone(String zoneCode) {
-        if (zoneCode == null) {
-            return 0;
-        }
-        String[] tokens = zoneCode.split("[^0-9]");
-        for (String token : tokens) {
-            if (!token.isBlank()) {
-                try {
-                    return Integer.parseInt(token);
-                } catch (NumberFormatException ignored) {
-                    // continue
-                }
-            }
-        }
-        return 0;
-    }
-}
\ No newline at end of file
+}
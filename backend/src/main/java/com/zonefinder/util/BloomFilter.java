@@ -0,0 +1,80 @@
+package com.zonefinder.util;
+
+/**
+ * Bloom filter over long keys, e.g. packed postcodes
+ *
+ * Sized from the number of keys and the false positive rate wanted; a key's
+ * bit positions come from one 64-bit mix of it by double hashing. Built
+ * single-threaded, then safe to query from any thread once published.
+ */
+public final class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new long[(int) ((bitCount + 63) >>> 6)];
+        this.bitCount = (long) words.length << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * @param expectedKeys Keys that will be added
+     * @param falsePositiveRate Share of absent keys reported present, e.g. 0.01
+     */
+    public static BloomFilter create(int expectedKeys, double falsePositiveRate) {
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        int keys = Math.max(1, expectedKeys);
+        long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        if (bits > (long) Integer.MAX_VALUE << 6) {
+            throw new IllegalArgumentException("Filter for " + expectedKeys + " keys would be too large");
+        }
+        int hashes = Math.max(1, (int) Math.round((double) bits / keys * Math.log(2)));
+        return new BloomFilter(Math.max(64, bits), hashes);
+    }
+
+    public void add(long key) {
+        long hash = mix(key);
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xFFFFFFFFL;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the key was definitely never added
+     */
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xFFFFFFFFL;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long key) {
+        long z = key;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
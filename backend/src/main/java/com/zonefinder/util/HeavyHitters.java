@@ -0,0 +1,141 @@
+package com.zonefinder.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate most frequent keys of a stream, in bounded memory
+ *
+ * Counts live in a Count-Min sketch: one counter per row is incremented per
+ * key and the smallest of them is the estimate, which can only overcount (by
+ * a small share of the total for a wide sketch). Keys whose estimate beats
+ * the weakest of the current top-K are kept as candidates; when there are
+ * twice as many candidates as wanted, the weakest half is dropped. Adding a
+ * key is a few atomic increments and is safe from any thread.
+ *
+ * {@link #decay()} halves every count, so repeated calls age out keys that
+ * were popular once but no longer are.
+ */
+public final class HeavyHitters {
+
+    private static final int DEPTH = 4;
+    private static final long[] ROW_SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    /**
+     * A key and its estimated count
+     */
+    public record Entry(long key, long count) {
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray counters;
+    private final Set<Long> candidates = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    private volatile long threshold;
+
+    /**
+     * @param capacity Number of top keys to keep
+     * @param width Counters per sketch row, rounded up to a power of two; the
+     *              overcount is at most about 3 / width of all counts
+     */
+    public HeavyHitters(int capacity, int width) {
+        if (capacity < 1 || width < 1) {
+            throw new IllegalArgumentException("Capacity and width must be positive");
+        }
+        int rowWidth = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.capacity = capacity;
+        this.mask = rowWidth - 1;
+        this.counters = new AtomicLongArray(DEPTH * rowWidth);
+    }
+
+    /**
+     * Count one occurrence of a key
+     */
+    public void add(long key) {
+        add(key, 1);
+    }
+
+    /**
+     * Count several occurrences of a key, e.g. to seed counts saved earlier
+     */
+    public void add(long key, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, key), count));
+        }
+        if (estimate <= threshold) {
+            return;
+        }
+        candidates.add(key);
+        if (candidates.size() > 2 * capacity && trimLock.tryLock()) {
+            try {
+                trim();
+            } finally {
+                trimLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Estimated count of a key
+     */
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Up to {@code capacity} most frequent keys, most frequent first
+     */
+    public List<Entry> top() {
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        candidates.forEach(key -> entries.add(new Entry(key, estimate(key))));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > capacity ? entries.subList(0, capacity) : entries;
+    }
+
+    /**
+     * Halve all counts; keys whose count drops to zero stop being candidates
+     */
+    public void decay() {
+        trimLock.lock();
+        try {
+            for (int i = 0; i < counters.length(); i++) {
+                // Increments racing with this are at worst halved too
+                counters.getAndUpdate(i, count -> count >> 1);
+            }
+            candidates.removeIf(key -> estimate(key) == 0);
+            threshold >>= 1;
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private void trim() {
+        List<Entry> ranked = new ArrayList<>(candidates.size());
+        candidates.forEach(key -> ranked.add(new Entry(key, estimate(key))));
+        ranked.sort(Comparator.comparingLong(Entry::count).reversed());
+        for (Entry dropped : ranked.subList(capacity, ranked.size())) {
+            candidates.remove(dropped.key());
+        }
+        threshold = ranked.get(capacity - 1).count();
+    }
+
+    private int index(int row, long key) {
+        long hash = (key ^ ROW_SEEDS[row]) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return row * (mask + 1) + ((int) hash & mask);
+    }
+}
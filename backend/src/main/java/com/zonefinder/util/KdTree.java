@@ -0,0 +1,182 @@
+package com.zonefinder.util;
+
+/**
+ * Static 2-d tree for nearest-neighbour queries over geographic points
+ *
+ * Points are projected onto a plane in kilometres (equirectangular, scaled
+ * at the latitude of London), which ranks neighbours correctly at city scale,
+ * and stored in flat arrays in tree order: each range's median splits it on
+ * alternating axes, so the tree needs no node objects. A query descends to
+ * the nearer side first and only visits the far side of a split when the
+ * distance to the splitting line (the edge of that side's bounding box) is
+ * below the k-th best distance so far.
+ */
+public final class KdTree {
+
+    private static final double KM_PER_DEGREE_LAT = 111.2;
+    private static final double KM_PER_DEGREE_LON = KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(51.5));
+
+    private final double[] x;
+    private final double[] y;
+    private final int[] ids;
+
+    private KdTree(double[] x, double[] y, int[] ids) {
+        this.x = x;
+        this.y = y;
+        this.ids = ids;
+    }
+
+    /**
+     * @param latitudes Point latitudes; a point's id is its index here
+     * @param longitudes Point longitudes, same length
+     */
+    public static KdTree build(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Got " + latitudes.length + " latitudes but "
+                + longitudes.length + " longitudes");
+        }
+        int size = latitudes.length;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = longitudes[i] * KM_PER_DEGREE_LON;
+            y[i] = latitudes[i] * KM_PER_DEGREE_LAT;
+            ids[i] = i;
+        }
+        KdTree tree = new KdTree(x, y, ids);
+        tree.arrange(0, size, 0);
+        return tree;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Ids of the points nearest to a location
+     * @param count How many to find
+     * @param found Receives the ids, nearest first; at least {@code count} long
+     * @return Number of ids written, fewer than {@code count} only if the tree is smaller
+     */
+    public int nearest(double latitude, double longitude, int count, int[] found) {
+        if (count <= 0 || ids.length == 0) {
+            return 0;
+        }
+        Query query = new Query(longitude * KM_PER_DEGREE_LON, latitude * KM_PER_DEGREE_LAT,
+            Math.min(count, ids.length));
+        search(query, 0, ids.length, 0);
+        System.arraycopy(query.best, 0, found, 0, query.size);
+        return query.size;
+    }
+
+    /**
+     * k best points so far, kept sorted by distance
+     */
+    private static final class Query {
+
+        final double qx;
+        final double qy;
+        final int[] best;
+        final double[] distances;
+        int size;
+
+        Query(double qx, double qy, int count) {
+            this.qx = qx;
+            this.qy = qy;
+            this.best = new int[count];
+            this.distances = new double[count];
+        }
+
+        double worst() {
+            return size < best.length ? Double.POSITIVE_INFINITY : distances[size - 1];
+        }
+
+        void offer(int id, double distance) {
+            if (distance >= worst()) {
+                return;
+            }
+            int slot = size < best.length ? size++ : size - 1;
+            while (slot > 0 && distances[slot - 1] > distance) {
+                distances[slot] = distances[slot - 1];
+                best[slot] = best[slot - 1];
+                slot--;
+            }
+            distances[slot] = distance;
+            best[slot] = id;
+        }
+    }
+
+    private void search(Query query, int from, int to, int depth) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        double dx = query.qx - x[middle];
+        double dy = query.qy - y[middle];
+        query.offer(ids[middle], dx * dx + dy * dy);
+
+        double offset = (depth & 1) == 0 ? dx : dy;
+        if (offset < 0) {
+            search(query, from, middle, depth + 1);
+            if (offset * offset < query.worst()) {
+                search(query, middle + 1, to, depth + 1);
+            }
+        } else {
+            search(query, middle + 1, to, depth + 1);
+            if (offset * offset < query.worst()) {
+                search(query, from, middle, depth + 1);
+            }
+        }
+    }
+
+    private void arrange(int from, int to, int depth) {
+        if (to - from <= 1) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, (depth & 1) == 0 ? x : y);
+        arrange(from, middle, depth + 1);
+        arrange(middle + 1, to, depth + 1);
+    }
+
+    // Quickselect: afterwards position k holds the value it would have if sorted,
+    // with nothing larger before it and nothing smaller after it
+    private void select(int low, int high, int k, double[] axis) {
+        while (low < high) {
+            double pivot = axis[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (axis[i] < pivot) {
+                    i++;
+                }
+                while (axis[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        double tx = x[i];
+        x[i] = x[j];
+        x[j] = tx;
+        double ty = y[i];
+        y[i] = y[j];
+        y[j] = ty;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
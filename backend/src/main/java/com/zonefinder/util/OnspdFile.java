@@ -0,0 +1,58 @@
+package com.zonefinder.util;
+
+import java.util.List;
+
+/**
+ * Columns and row splitting of bulk ONSPD / Code-Point style postcode CSVs
+ *
+ * Shared by everything that reads the file, so the column names it
+ * recognises and how it treats quoting and terminated postcodes stay the same.
+ */
+public final class OnspdFile {
+
+    public static final List<String> POSTCODE_COLUMNS = List.of("pcds", "postcode", "pcd", "pcd2");
+    public static final List<String> TERMINATED_COLUMNS = List.of("doterm");
+
+    private OnspdFile() {
+    }
+
+    /**
+     * Split a row on commas, trimming each column and removing surrounding quotes
+     */
+    public static String[] splitRow(String line) {
+        String[] columns = line.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i].trim();
+            if (column.length() >= 2 && column.charAt(0) == '"' && column.charAt(column.length() - 1) == '"') {
+                column = column.substring(1, column.length() - 1).trim();
+            }
+            columns[i] = column;
+        }
+        return columns;
+    }
+
+    /**
+     * Index of the first candidate column present in a header
+     * @param names Header as returned by {@link #splitRow}
+     * @param candidates Column names in order of preference, matched ignoring case
+     * @return Column index, or -1 if none is present
+     */
+    public static int findColumn(String[] names, List<String> candidates) {
+        for (String candidate : candidates) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(candidate)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a row is for a postcode that is no longer in use
+     * @param terminatedColumn Index of the termination date column, or -1 if the file has none
+     */
+    public static boolean isTerminated(String[] columns, int terminatedColumn) {
+        return terminatedColumn >= 0 && terminatedColumn < columns.length && !columns[terminatedColumn].isEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+package com.zonefinder.util;
+
+/**
+ * Packs ONS Output Area codes (e.g. "E00004321") into an int
+ *
+ * A code is a country letter followed by eight digits, so it fits in
+ * {@code country * 10^8 + digits} with E, W, S and N as 0-3. Packed codes sort
+ * in the same order as the strings within a country.
+ */
+public final class OutputAreaCode {
+
+    public static final int INVALID = -1;
+
+    private static final String COUNTRIES = "EWSN";
+    private static final int LENGTH = 9;
+    private static final int COUNTRY_BASE = 100_000_000;
+
+    private OutputAreaCode() {
+    }
+
+    /**
+     * Pack an Output Area code
+     * @return Packed code, or {@link #INVALID} if the text is not an OA code
+     */
+    public static int pack(CharSequence code) {
+        if (code == null || code.length() != LENGTH) {
+            return INVALID;
+        }
+        int country = COUNTRIES.indexOf(Character.toUpperCase(code.charAt(0)));
+        if (country < 0) {
+            return INVALID;
+        }
+        int digits = 0;
+        for (int i = 1; i < LENGTH; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            digits = digits * 10 + (c - '0');
+        }
+        return country * COUNTRY_BASE + digits;
+    }
+
+    /**
+     * Turn a packed code back into its text form
+     */
+    public static String format(int packed) {
+        if (packed < 0 || packed >= COUNTRIES.length() * COUNTRY_BASE) {
+            throw new IllegalArgumentException("Not a packed Output Area code: " + packed);
+        }
+        return COUNTRIES.charAt(packed / COUNTRY_BASE) + String.format("%08d", packed % COUNTRY_BASE);
+    }
+}
@@ -0,0 +1,434 @@
+package com.zonefinder.util;
+
+/**
+ * Packs UK postcodes into order-preserving base-37 longs
+ * Each of the (up to seven) non-space characters becomes one digit, so sorted
+ * keys follow the alphabetical order of the postcodes they encode. The inward
+ * code is always the last three characters, so the outward code can be taken
+ * back out of a key arithmetically.
+ */
+public final class PostcodeKey {
+
+    public static final long INVALID = -1L;
+    public static final int INVALID_OUTCODE = -1;
+
+    static final int MAX_LENGTH = 7;
+    static final int MIN_LENGTH = 5;
+    static final int MAX_OUTCODE_LENGTH = 4;
+    static final int MIN_OUTCODE_LENGTH = 2;
+    private static final int RADIX = 37;
+    private static final long INWARD_RADIX = (long) RADIX * RADIX * RADIX;
+
+    private PostcodeKey() {
+    }
+
+    /**
+     * Pack a postcode, ignoring whitespace and case
+     * @param postcode The postcode to pack
+     * @return Packed key, or {@link #INVALID} if it cannot be a postcode
+     */
+    public static long pack(CharSequence postcode) {
+        if (postcode == null) {
+            return INVALID;
+        }
+        long key = 0;
+        int length = 0;
+        for (int i = 0; i < postcode.length(); i++) {
+            char c = postcode.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int digit = digitOf(c);
+            if (digit == 0 || ++length > MAX_LENGTH) {
+                return INVALID;
+            }
+            key = key * RADIX + digit;
+        }
+        if (length < MIN_LENGTH) {
+            return INVALID;
+        }
+        for (int i = length; i < MAX_LENGTH; i++) {
+            key *= RADIX;
+        }
+        return key;
+    }
+
+    /**
+     * Validate and pack a postcode in a single pass, without allocating
+     * Accepts the outward forms A9, A99, AA9, AA99, A9A and AA9A followed by
+     * an inward code (digit and two letters), in any case, with optional
+     * whitespace around the postcode and between the two parts.
+     *
+     * @param postcode The postcode to parse
+     * @return Packed key, or {@link #INVALID} if it is not a well-formed postcode
+     */
+    public static long parse(CharSequence postcode) {
+        if (postcode == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = postcode.length();
+        while (start < end && Character.isWhitespace(postcode.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(postcode.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start < MIN_LENGTH) {
+            return INVALID;
+        }
+        int inward = end - 3;
+        if (!isDigit(postcode.charAt(inward)) || !isLetter(postcode.charAt(inward + 1))
+            || !isLetter(postcode.charAt(inward + 2))) {
+            return INVALID;
+        }
+        int outwardEnd = inward;
+        while (outwardEnd > start && Character.isWhitespace(postcode.charAt(outwardEnd - 1))) {
+            outwardEnd--;
+        }
+        if (outwardEnd - start < MIN_OUTCODE_LENGTH || outwardEnd - start > MAX_OUTCODE_LENGTH) {
+            return INVALID;
+        }
+
+        long key = 0;
+        int i = start;
+        int letters = 0;
+        while (i < outwardEnd && isLetter(postcode.charAt(i))) {
+            key = key * RADIX + digitOf(postcode.charAt(i++));
+            letters++;
+        }
+        int digits = 0;
+        while (i < outwardEnd && isDigit(postcode.charAt(i))) {
+            key = key * RADIX + digitOf(postcode.charAt(i++));
+            digits++;
+        }
+        if (i < outwardEnd && isLetter(postcode.charAt(i))) {
+            key = key * RADIX + digitOf(postcode.charAt(i++));
+        }
+        if (letters < 1 || letters > 2 || digits < 1 || digits > 2 || i != outwardEnd) {
+            return INVALID;
+        }
+        for (int j = inward; j < end; j++) {
+            key = key * RADIX + digitOf(postcode.charAt(j));
+        }
+        for (int length = outwardEnd - start + 3; length < MAX_LENGTH; length++) {
+            key *= RADIX;
+        }
+        return key;
+    }
+
+    /**
+     * Packed outward code of a packed postcode, as {@link #packOutcode} would return it
+     * @param key Packed key
+     * @return Packed outcode, or {@link #INVALID_OUTCODE} for {@link #INVALID}
+     */
+    public static int outcodeOf(long key) {
+        if (key == INVALID) {
+            return INVALID_OUTCODE;
+        }
+        // Inward codes end in a letter, so trailing zero digits are padding
+        long remaining = key;
+        int padding = 0;
+        while (padding < MAX_LENGTH - MIN_LENGTH && remaining % RADIX == 0) {
+            remaining /= RADIX;
+            padding++;
+        }
+        long outward = remaining / INWARD_RADIX;
+        for (int i = 0; i < padding; i++) {
+            outward *= RADIX;
+        }
+        return (int) outward;
+    }
+
+    /**
+     * Format a packed key with proper spacing (e.g., SW1A 1AA)
+     * @param key Packed key
+     * @return Formatted postcode
+     */
+    public static String format(long key) {
+        long remaining = key;
+        int length = MAX_LENGTH;
+        while (length > MIN_LENGTH && remaining % RADIX == 0) {
+            remaining /= RADIX;
+            length--;
+        }
+        char[] chars = new char[length + 1];
+        for (int i = length; i >= 0; i--) {
+            if (i == length - 3) {
+                chars[i] = ' ';
+                continue;
+            }
+            chars[i] = charOf((int) (remaining % RADIX));
+            remaining /= RADIX;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Remove whitespace and uppercase, returning the same string if there is nothing to change
+     * @param postcode The postcode to normalize
+     * @return Normalized postcode
+     */
+    public static String normalize(String postcode) {
+        if (postcode == null) {
+            return null;
+        }
+        int i = 0;
+        while (i < postcode.length() && !Character.isWhitespace(postcode.charAt(i))
+            && !Character.isLowerCase(postcode.charAt(i))) {
+            i++;
+        }
+        if (i == postcode.length()) {
+            return postcode;
+        }
+        StringBuilder normalized = new StringBuilder(postcode.length()).append(postcode, 0, i);
+        for (; i < postcode.length(); i++) {
+            char c = postcode.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Pack the outward code (e.g. "E14") of a full postcode or of a bare outcode
+     * Without a space, the last three characters of a five-to-seven character
+     * postcode are taken to be the inward code.
+     * @param postcode Full postcode or outcode, ignoring whitespace and case
+     * @return Packed outcode, or {@link #INVALID_OUTCODE} if there is none
+     */
+    public static int packOutcode(CharSequence postcode) {
+        if (postcode == null) {
+            return INVALID_OUTCODE;
+        }
+        int total = 0;
+        int beforeSpace = -1;
+        for (int i = 0; i < postcode.length(); i++) {
+            if (!Character.isWhitespace(postcode.charAt(i))) {
+                total++;
+            } else if (total > 0 && beforeSpace < 0) {
+                beforeSpace = total;
+            }
+        }
+        int length = beforeSpace > 0 && beforeSpace < total ? beforeSpace
+            : total >= MIN_LENGTH ? total - 3 : total;
+        if (length < MIN_OUTCODE_LENGTH || length > MAX_OUTCODE_LENGTH) {
+            return INVALID_OUTCODE;
+        }
+        int key = 0;
+        int packed = 0;
+        for (int i = 0; i < postcode.length() && packed < length; i++) {
+            char c = postcode.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int digit = digitOf(c);
+            if (digit == 0) {
+                return INVALID_OUTCODE;
+            }
+            key = key * RADIX + digit;
+            packed++;
+        }
+        for (int i = length; i < MAX_OUTCODE_LENGTH; i++) {
+            key *= RADIX;
+        }
+        return key;
+    }
+
+    /**
+     * Smallest key of the postcodes that start with a prefix
+     * Postcodes sharing a prefix form one contiguous key range, from this key
+     * up to {@link #prefixEnd}.
+     * @param prefix Start of a postcode, ignoring whitespace and case
+     * @return Key, or {@link #INVALID} if no postcode can start with the prefix
+     */
+    public static long packPrefix(CharSequence prefix) {
+        long key = packDigits(prefix, MAX_LENGTH);
+        return key >= 0 ? key : INVALID;
+    }
+
+    /**
+     * Exclusive end of the key range of a prefix packed with {@link #packPrefix}
+     * @param length Non-whitespace characters in the prefix
+     */
+    public static long prefixEnd(long start, int length) {
+        long span = 1;
+        for (int i = length; i < MAX_LENGTH; i++) {
+            span *= RADIX;
+        }
+        return start + span;
+    }
+
+    /**
+     * Smallest key of one district's postcodes whose inward code starts with a prefix
+     * Under the district's leading characters its postcodes are not contiguous:
+     * longer outcodes that start the same way sort between them (E14 5AA lies
+     * between E1 4ZZ and E1 5AA). Those have a digit right after the inward
+     * digit where every postcode of the district has a letter, so padding the
+     * prefix with the lowest and highest letters bounds exactly the district.
+     * @param outward Complete outward code, e.g. "E1"
+     * @param inwardPrefix One to three characters of the inward code, starting with its digit; whitespace is ignored
+     * @return Key, or {@link #INVALID} if no postcode of the district can start with the prefix
+     */
+    public static long packInwardPrefix(CharSequence outward, CharSequence inwardPrefix) {
+        return packInward(outward, inwardPrefix, 'A');
+    }
+
+    /**
+     * Exclusive end of the key range of a prefix packed with {@link #packInwardPrefix}
+     */
+    public static long inwardPrefixEnd(CharSequence outward, CharSequence inwardPrefix) {
+        long last = packInward(outward, inwardPrefix, 'Z');
+        return last != INVALID ? last + 1 : INVALID;
+    }
+
+    /**
+     * Smallest packed outcode of the districts that start with a prefix
+     * @param prefix Start of an outcode, ignoring whitespace and case
+     * @return Packed outcode, or {@link #INVALID_OUTCODE} if no outcode can start with the prefix
+     */
+    public static int packOutcodePrefix(CharSequence prefix) {
+        return (int) packDigits(prefix, MAX_OUTCODE_LENGTH);
+    }
+
+    /**
+     * Exclusive end of the range of an outcode prefix packed with {@link #packOutcodePrefix}
+     * @param length Non-whitespace characters in the prefix
+     */
+    public static int outcodePrefixEnd(int start, int length) {
+        int span = 1;
+        for (int i = length; i < MAX_OUTCODE_LENGTH; i++) {
+            span *= RADIX;
+        }
+        return start + span;
+    }
+
+    /**
+     * Format a packed outcode (e.g., E14)
+     * @param outcode Packed outcode
+     * @return Outcode text
+     */
+    public static String formatOutcode(int outcode) {
+        int remaining = outcode;
+        int length = MAX_OUTCODE_LENGTH;
+        while (length > 1 && remaining % RADIX == 0) {
+            remaining /= RADIX;
+            length--;
+        }
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = charOf(remaining % RADIX);
+            remaining /= RADIX;
+        }
+        return new String(chars);
+    }
+
+    // Key of the postcode with the inward prefix filled up to three characters with a letter
+    private static long packInward(CharSequence outward, CharSequence inwardPrefix, char fill) {
+        int length = outwardLength(outward);
+        if (length < 0) {
+            return INVALID;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            key = key * RADIX + digitOf(outward.charAt(i));
+        }
+        int packed = 0;
+        for (int i = 0; i < inwardPrefix.length(); i++) {
+            char c = inwardPrefix.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            // A digit, then letters
+            if (packed == 3 || (packed == 0 ? !isDigit(c) : !isLetter(c))) {
+                return INVALID;
+            }
+            key = key * RADIX + digitOf(c);
+            packed++;
+        }
+        if (packed == 0) {
+            return INVALID;
+        }
+        for (; packed < 3; packed++) {
+            key = key * RADIX + digitOf(fill);
+        }
+        for (int i = length + 3; i < MAX_LENGTH; i++) {
+            key *= RADIX;
+        }
+        return key;
+    }
+
+    // Length of an outward code in one of the forms parse accepts, or -1
+    private static int outwardLength(CharSequence outward) {
+        int i = 0;
+        int letters = 0;
+        while (i < outward.length() && isLetter(outward.charAt(i))) {
+            i++;
+            letters++;
+        }
+        int digits = 0;
+        while (i < outward.length() && isDigit(outward.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < outward.length() && isLetter(outward.charAt(i))) {
+            i++;
+        }
+        boolean valid = letters >= 1 && letters <= 2 && digits >= 1 && digits <= 2 && i == outward.length()
+            && i <= MAX_OUTCODE_LENGTH;
+        return valid ? i : -1;
+    }
+
+    // Digits of the non-whitespace characters, padded to width; -1 if too long or not alphanumeric
+    private static long packDigits(CharSequence prefix, int width) {
+        if (prefix == null) {
+            return -1;
+        }
+        long key = 0;
+        int length = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int digit = digitOf(c);
+            if (digit == 0 || ++length > width) {
+                return -1;
+            }
+            key = key * RADIX + digit;
+        }
+        for (int i = length; i < width; i++) {
+            key *= RADIX;
+        }
+        return key;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static int digitOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 11;
+        }
+        return 0;
+    }
+
+    private static char charOf(int digit) {
+        if (digit == 0) {
+            return 0;
+        }
+        return digit <= 10 ? (char) ('0' + digit - 1) : (char) ('A' + digit - 11);
+    }
+}
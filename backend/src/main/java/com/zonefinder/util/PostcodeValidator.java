@@ -2,31 +2,23 @@ package com.zonefinder.util;
 
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
-
 /**
  * Utility class for postcode validation
  * Ensures UK postcode format compliance
+ *
+ * Validation and formatting go through {@link PostcodeKey#parse}, a single
+ * hand-written pass over the characters, rather than regular expressions.
  */
 @Component
 public class PostcodeValidator {
     
-    // Comprehensive UK postcode regex
-    private static final Pattern POSTCODE_PATTERN = Pattern.compile(
-        "^[A-Z]{1,2}\\d{1,2}[A-Z]?\\s?\\d[A-Z]{2}$",
-        Pattern.CASE_INSENSITIVE
-    );
-    
     /**
      * Validate UK postcode format
      * @param postcode The postcode to validate
      * @return true if valid, false otherwise
      */
     public boolean isValid(String postcode) {
-        if (postcode == null || postcode.trim().isEmpty()) {
-            return false;
-        }
-        return POSTCODE_PATTERN.matcher(postcode.trim()).matches();
+        return PostcodeKey.parse(postcode) != PostcodeKey.INVALID;
     }
     
     /**
@@ -35,10 +27,7 @@ public class PostcodeValidator {
      * @return Normalized postcode
      */
     public String normalize(String postcode) {
-        if (postcode == null) {
-            return null;
-        }
-        return postcode.replaceAll("\\s+", "").toUpperCase();
+        return PostcodeKey.normalize(postcode);
     }
     
     /**
@@ -50,6 +39,10 @@ public class PostcodeValidator {
         if (postcode == null) {
             return null;
         }
+        long key = PostcodeKey.parse(postcode);
+        if (key != PostcodeKey.INVALID) {
+            return PostcodeKey.format(key);
+        }
         String normalized = normalize(postcode);
         if (normalized.length() < 5) {
             return normalized;
@@ -58,4 +51,4 @@ public class PostcodeValidator {
         int splitPoint = normalized.length() - 3;
         return normalized.substring(0, splitPoint) + " " + normalized.substring(splitPoint);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,337 @@
+package com.zonefinder.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Uniform-grid spatial index over fare zone boundary polygons
+ *
+ * The bounding box of all polygons is split into cells and the zone at every
+ * cell centre is computed up front with one scanline pass per row. Cells that
+ * no polygon edge passes through lie wholly inside that zone (or outside all of
+ * them), so a lookup is a single array read. For cells crossed by an edge the
+ * index also keeps, per polygon, whether the centre is inside and which edges
+ * run through the cell; a point then only has to count crossings between the
+ * centre and itself against those few local edges.
+ *
+ * Where zones overlap (nested rather than ring-shaped boundaries) the lowest
+ * zone containing the point wins. Coordinates are treated as planar (longitude
+ * as x, latitude as y), which is exact for containment in the source datum.
+ */
+public final class ZonePolygonIndex {
+
+    /**
+     * Returned for points outside every zone
+     */
+    public static final int OUTSIDE = 0;
+
+    private static final byte BOUNDARY = -1;
+    // Edges lying exactly on a cell border must mark the cells on both sides
+    private static final double EDGE_MARGIN = 1e-6;
+
+    /**
+     * Zone boundary: an outer ring plus optional holes, each ring a flat
+     * array of lon/lat pairs
+     */
+    public record Polygon(int zone, double[][] rings) {
+    }
+
+    private final int polygonCount;
+    private final double minLon;
+    private final double minLat;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final byte[] cells;
+
+    // All polygon edges, ordered by polygon and so by zone
+    private final double[] edgeX1;
+    private final double[] edgeY1;
+    private final double[] edgeX2;
+    private final double[] edgeY2;
+
+    // Boundary cells: slot per cell, then per slot the zone of polygons that
+    // contain the whole cell and one group per polygon with edges in the cell
+    private final int[] slotOfCell;
+    private final byte[] slotFloorZone;
+    private final int[] slotGroupStart;
+    private final byte[] groupZone;
+    private final boolean[] groupCentreInside;
+    private final int[] groupEdgeStart;
+    private final int[] groupEdges;
+
+    private ZonePolygonIndex(List<Polygon> polygons, int resolution) {
+        Polygon[] sorted = polygons.stream()
+            .sorted(Comparator.comparingInt(Polygon::zone))
+            .toArray(Polygon[]::new);
+        this.polygonCount = sorted.length;
+
+        int edgeCount = 0;
+        for (Polygon polygon : sorted) {
+            for (double[] ring : polygon.rings()) {
+                edgeCount += ring.length / 2;
+            }
+        }
+        edgeX1 = new double[edgeCount];
+        edgeY1 = new double[edgeCount];
+        edgeX2 = new double[edgeCount];
+        edgeY2 = new double[edgeCount];
+        int[] edgePolygon = new int[edgeCount];
+        int[] polygonEdgeStart = new int[sorted.length + 1];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        int edge = 0;
+        for (int p = 0; p < sorted.length; p++) {
+            polygonEdgeStart[p] = edge;
+            for (double[] ring : sorted[p].rings()) {
+                for (int i = 0; i < ring.length; i += 2) {
+                    int j = (i + 2) % ring.length;
+                    edgeX1[edge] = ring[i];
+                    edgeY1[edge] = ring[i + 1];
+                    edgeX2[edge] = ring[j];
+                    edgeY2[edge] = ring[j + 1];
+                    edgePolygon[edge++] = p;
+                    minX = Math.min(minX, ring[i]);
+                    minY = Math.min(minY, ring[i + 1]);
+                    maxX = Math.max(maxX, ring[i]);
+                    maxY = Math.max(maxY, ring[i + 1]);
+                }
+            }
+        }
+        polygonEdgeStart[sorted.length] = edge;
+
+        double width = Math.max(maxX - minX, 1e-9);
+        double height = Math.max(maxY - minY, 1e-9);
+        double cellSize = Math.max(width, height) / resolution;
+        this.minLon = minX;
+        this.minLat = minY;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cellWidth = width / columns;
+        this.cellHeight = height / rows;
+        this.cells = new byte[columns * rows];
+
+        // (cell, edge) pairs for every cell each edge's bounding box touches
+        long[] pairs = cellEdgePairs();
+        this.slotOfCell = new int[cells.length];
+        Arrays.fill(slotOfCell, -1);
+        int slots = 0;
+        int groups = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            int cell = (int) (pairs[i] >>> 32);
+            if (slotOfCell[cell] < 0) {
+                slotOfCell[cell] = slots++;
+                cells[cell] = BOUNDARY;
+            }
+            if (i == 0 || pairs[i - 1] >>> 32 != cell
+                || edgePolygon[(int) pairs[i - 1]] != edgePolygon[(int) pairs[i]]) {
+                groups++;
+            }
+        }
+        this.slotFloorZone = new byte[slots];
+        this.slotGroupStart = new int[slots + 1];
+        this.groupZone = new byte[groups];
+        this.groupCentreInside = new boolean[groups];
+        this.groupEdgeStart = new int[groups + 1];
+        this.groupEdges = new int[pairs.length];
+
+        scanRows(sorted, polygonEdgeStart, edgePolygon, pairs);
+    }
+
+    /**
+     * Build the index
+     * @param polygons Zone polygons; zone numbers must be between 1 and 127
+     * @param resolution Number of cells along the longer side of the grid
+     */
+    public static ZonePolygonIndex build(List<Polygon> polygons, int resolution) {
+        if (polygons.isEmpty()) {
+            throw new IllegalArgumentException("No zone polygons to index");
+        }
+        for (Polygon polygon : polygons) {
+            if (polygon.zone() < 1 || polygon.zone() > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Zone number out of range: " + polygon.zone());
+            }
+        }
+        return new ZonePolygonIndex(new ArrayList<>(polygons), Math.max(1, resolution));
+    }
+
+    /**
+     * Fare zone containing a point
+     * @return Zone number, or {@link #OUTSIDE}
+     */
+    public int zoneAt(double latitude, double longitude) {
+        double x = (longitude - minLon) / cellWidth;
+        double y = (latitude - minLat) / cellHeight;
+        if (!(x >= 0 && y >= 0 && x <= columns && y <= rows)) {
+            return OUTSIDE;
+        }
+        int column = Math.min((int) x, columns - 1);
+        int row = Math.min((int) y, rows - 1);
+        int cell = row * columns + column;
+        byte zone = cells[cell];
+        return zone != BOUNDARY ? zone : boundaryZone(slotOfCell[cell], column, row, longitude, latitude);
+    }
+
+    public int polygonCount() {
+        return polygonCount;
+    }
+
+    public int cellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Cells crossed by a zone boundary, which need the local edge test
+     */
+    public int boundaryCellCount() {
+        return slotFloorZone.length;
+    }
+
+    private int boundaryZone(int slot, int column, int row, double x, double y) {
+        double centreX = minLon + (column + 0.5) * cellWidth;
+        double centreY = minLat + (row + 0.5) * cellHeight;
+        int floor = slotFloorZone[slot] != OUTSIDE ? slotFloorZone[slot] : Integer.MAX_VALUE;
+        // Groups are in zone order, so the first polygon containing the point decides
+        for (int group = slotGroupStart[slot]; group < slotGroupStart[slot + 1]; group++) {
+            if (groupZone[group] >= floor) {
+                break;
+            }
+            boolean inside = groupCentreInside[group];
+            for (int i = groupEdgeStart[group]; i < groupEdgeStart[group + 1]; i++) {
+                if (crosses(groupEdges[i], centreX, centreY, x, y)) {
+                    inside = !inside;
+                }
+            }
+            if (inside) {
+                return groupZone[group];
+            }
+        }
+        return floor != Integer.MAX_VALUE ? floor : OUTSIDE;
+    }
+
+    // Whether the segment from the cell centre to the point crosses an edge; edge
+    // endpoints on the segment's line count on one side only, keeping parity exact
+    private boolean crosses(int edge, double cx, double cy, double px, double py) {
+        double ax = edgeX1[edge];
+        double ay = edgeY1[edge];
+        double bx = edgeX2[edge];
+        double by = edgeY2[edge];
+        double sideA = (px - cx) * (ay - cy) - (py - cy) * (ax - cx);
+        double sideB = (px - cx) * (by - cy) - (py - cy) * (bx - cx);
+        if ((sideA > 0) == (sideB > 0)) {
+            return false;
+        }
+        double sideC = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        double sideP = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+        return (sideC > 0) != (sideP > 0) && sideC != 0 && sideP != 0;
+    }
+
+    private long[] cellEdgePairs() {
+        long[] pairs = new long[Math.max(16, edgeX1.length * 2)];
+        int size = 0;
+        for (int edge = 0; edge < edgeX1.length; edge++) {
+            int fromColumn = clampColumn((Math.min(edgeX1[edge], edgeX2[edge]) - minLon) / cellWidth - EDGE_MARGIN);
+            int toColumn = clampColumn((Math.max(edgeX1[edge], edgeX2[edge]) - minLon) / cellWidth + EDGE_MARGIN);
+            int fromRow = clampRow((Math.min(edgeY1[edge], edgeY2[edge]) - minLat) / cellHeight - EDGE_MARGIN);
+            int toRow = clampRow((Math.max(edgeY1[edge], edgeY2[edge]) - minLat) / cellHeight + EDGE_MARGIN);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    if (size == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, size * 2);
+                    }
+                    pairs[size++] = ((long) (row * columns + column) << 32) | edge;
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(pairs, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // One horizontal ray per row of cell centres gives every centre's containment
+    private void scanRows(Polygon[] polygons, int[] polygonEdgeStart, int[] edgePolygon, long[] pairs) {
+        double[][] crossings = new double[polygons.length][];
+        int[] crossingCount = new int[polygons.length];
+        int[] next = new int[polygons.length];
+        boolean[] inside = new boolean[polygons.length];
+        int pair = 0;
+        int group = 0;
+
+        for (int row = 0; row < rows; row++) {
+            double y = minLat + (row + 0.5) * cellHeight;
+            for (int p = 0; p < polygons.length; p++) {
+                double[] xs = crossings[p] != null ? crossings[p] : new double[16];
+                int count = 0;
+                for (int e = polygonEdgeStart[p]; e < polygonEdgeStart[p + 1]; e++) {
+                    if ((edgeY1[e] > y) != (edgeY2[e] > y)) {
+                        if (count == xs.length) {
+                            xs = Arrays.copyOf(xs, count * 2);
+                        }
+                        xs[count++] = (edgeX2[e] - edgeX1[e]) * (y - edgeY1[e]) / (edgeY2[e] - edgeY1[e]) + edgeX1[e];
+                    }
+                }
+                Arrays.sort(xs, 0, count);
+                crossings[p] = xs;
+                crossingCount[p] = count;
+                next[p] = 0;
+                inside[p] = false;
+            }
+
+            for (int column = 0; column < columns; column++) {
+                double x = minLon + (column + 0.5) * cellWidth;
+                int zone = OUTSIDE;
+                for (int p = 0; p < polygons.length; p++) {
+                    while (next[p] < crossingCount[p] && crossings[p][next[p]] < x) {
+                        inside[p] = !inside[p];
+                        next[p]++;
+                    }
+                    if (inside[p] && zone == OUTSIDE) {
+                        zone = polygons[p].zone();
+                    }
+                }
+
+                int cell = row * columns + column;
+                int slot = slotOfCell[cell];
+                if (slot < 0) {
+                    cells[cell] = (byte) zone;
+                    continue;
+                }
+                slotGroupStart[slot] = group;
+                boolean[] hasEdges = new boolean[polygons.length];
+                while (pair < pairs.length && (int) (pairs[pair] >>> 32) == cell) {
+                    int edge = (int) pairs[pair];
+                    int p = edgePolygon[edge];
+                    if (!hasEdges[p]) {
+                        hasEdges[p] = true;
+                        groupZone[group] = (byte) polygons[p].zone();
+                        groupCentreInside[group] = inside[p];
+                        groupEdgeStart[group] = pair;
+                        group++;
+                    }
+                    groupEdges[pair++] = edge;
+                }
+                for (int p = 0; p < polygons.length; p++) {
+                    if (inside[p] && !hasEdges[p]) {
+                        slotFloorZone[slot] = (byte) polygons[p].zone();
+                        break;
+                    }
+                }
+            }
+        }
+        slotGroupStart[slotFloorZone.length] = group;
+        groupEdgeStart[group] = pair;
+    }
+
+    private int clampColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x)));
+    }
+
+    private int clampRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.zonefinder.cache;
+
+import com.zonefinder.domain.Postcode;
+import com.zonefinder.domain.ZoneLookupResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LookupCacheSerializerTest {
+
+    private final LookupCacheSerializer serializer = new LookupCacheSerializer();
+
+    @Test
+    void roundTripsZoneLookups() {
+        ZoneLookupResult full = ZoneLookupResult.builder()
+            .postcode("SW1A 1AA")
+            .zone("Zone 1")
+            .zoneNumber(1)
+            .area("Westminster")
+            .latitude(51.501009)
+            .longitude(-0.141588)
+            .distanceFromCentreKm(1.234)
+            .fareInfo(new ZoneLookupResult.FareInfo(2.80, 2.70, "GBP"))
+            .build();
+        ZoneLookupResult sparse = ZoneLookupResult.builder()
+            .postcode("E14 5AB")
+            .zone("Zone 2")
+            .fareInfo(new ZoneLookupResult.FareInfo(null, 2.10, null))
+            .build();
+        ZoneLookupResult unusual = ZoneLookupResult.builder()
+            .postcode("ZE1 0AA")
+            .zone("Outside London fare zones")
+            .area("Ünst, \"Shetland\"")
+            .zoneNumber(0)
+            .build();
+
+        for (ZoneLookupResult result : List.of(full, sparse, unusual)) {
+            assertEquals(result, serializer.deserialize(serializer.serialize(result)));
+        }
+    }
+
+    @Test
+    void roundTripsPostcodes() {
+        Postcode postcode = Postcode.builder()
+            .postcode("EC1A 1BB")
+            .latitude(51.520180)
+            .longitude(-0.097290)
+            .adminDistrict("City of London")
+            .region("London")
+            .country("England")
+            .build();
+
+        assertEquals(postcode, serializer.deserialize(serializer.serialize(postcode)));
+        assertEquals(new Postcode(), serializer.deserialize(serializer.serialize(new Postcode())));
+    }
+
+    @Test
+    void roundTripsEntries() {
+        ZoneLookupResult result = ZoneLookupResult.builder().postcode("N1 9GU").zone("Zone 1").zoneNumber(1).build();
+        CacheEntry untagged = new CacheEntry(result, 1_760_000_000_000L, 42, null);
+        CacheEntry tagged = new CacheEntry(result, 1_760_000_000_000L, 0, "a1b2c3/2026-03");
+        CacheEntry other = new CacheEntry(List.of("not", "a", "lookup"), -1L, 7, "v1/t1");
+
+        for (CacheEntry entry : List.of(untagged, tagged, other)) {
+            assertEquals(entry, serializer.deserialize(serializer.serialize(entry)));
+        }
+    }
+
+    @Test
+    void readsEntriesWrittenBeforeTheCodec() {
+        // Entries cached by earlier releases are plain JDK serialization of the bare value
+        ZoneLookupResult result = ZoneLookupResult.builder()
+            .postcode("SW1A 1AA").zone("Zone 1").zoneNumber(1)
+            .fareInfo(new ZoneLookupResult.FareInfo(2.80, 2.70, "GBP"))
+            .build();
+        byte[] legacy = new JdkSerializationRedisSerializer().serialize(result);
+
+        assertEquals(result, serializer.deserialize(legacy));
+        assertEquals(-7439622972031766345L, ObjectStreamClass.lookup(ZoneLookupResult.class).getSerialVersionUID());
+        assertEquals(-9052761866263820370L,
+            ObjectStreamClass.lookup(ZoneLookupResult.FareInfo.class).getSerialVersionUID());
+        assertEquals(-2166628813827686873L, ObjectStreamClass.lookup(Postcode.class).getSerialVersionUID());
+    }
+
+    @Test
+    void ignoresUnknownOrDamagedEntries() {
+        byte[] bytes = serializer.serialize(ZoneLookupResult.builder().postcode("E1 6AN").zone("Zone 1").build());
+
+        byte[] newerVersion = bytes.clone();
+        newerVersion[1] = (byte) (LookupCacheSerializer.VERSION + 1);
+        assertNull(serializer.deserialize(newerVersion));
+        assertNull(serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)));
+        assertNull(serializer.deserialize(new byte[] { (byte) 0xAC, (byte) 0xED, 0, 5, 1 }));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertArrayEquals(new byte[0], serializer.serialize(null));
+    }
+}
@@ -0,0 +1,69 @@
+package com.zonefinder.service;
+
+import com.zonefinder.util.PostcodeKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostcodeFilterServiceTest {
+
+    private static final List<String> ROWS = List.of(
+        "pcds,doterm,lat,long,admin_district,oa11",
+        "SW1A 1AA,,51.501009,-0.141588,Westminster,E00023938",
+        "\"E14 5AB\",,51.505252,-0.018785,\"Tower Hamlets\",E00166321",
+        "EC1A 1BB,,99.999999,0.000000,City of London,",
+        "N1 9GU,201904,51.531553,-0.125102,Camden,E00004564",
+        "W1A 0AX,,51.518561,-0.143799,Westminster"
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void filterFromTheIndexMatchesReadingTheFile() throws IOException {
+        Path csv = Files.write(directory.resolve("onspd.csv"), ROWS);
+        PostcodeIndexService index = new PostcodeIndexService(csv.toString());
+        index.loadIndex();
+        assertTrue(index.isLoadedFrom(csv));
+        assertEquals(3, index.size());
+
+        PostcodeFilterService fromIndex = filter(csv, index);
+        PostcodeFilterService fromFile = filter(csv, null);
+        for (String postcode : List.of("SW1A 1AA", "E14 5AB", "EC1A 1BB", "W1A 0AX")) {
+            long key = PostcodeKey.parse(postcode);
+            assertFalse(fromIndex.isKnownMissing(key), postcode);
+            assertFalse(fromFile.isKnownMissing(key), postcode);
+        }
+        long terminated = PostcodeKey.parse("N1 9GU");
+        assertEquals(fromFile.isKnownMissing(terminated), fromIndex.isKnownMissing(terminated));
+    }
+
+    @Test
+    void readsHeaderlessPostcodeLists() throws IOException {
+        Path list = Files.write(directory.resolve("postcodes.txt"), List.of("SW1A 1AA", "e145ab"));
+        PostcodeIndexService index = new PostcodeIndexService("");
+        index.loadIndex();
+
+        PostcodeFilterService filter = filter(list, index);
+        assertTrue(filter.isLoaded());
+        assertFalse(filter.isKnownMissing(PostcodeKey.parse("SW1A 1AA")));
+        assertFalse(filter.isKnownMissing(PostcodeKey.parse("E14 5AB")));
+    }
+
+    private static PostcodeFilterService filter(Path path, PostcodeIndexService index) {
+        PostcodeFilterService filter = new PostcodeFilterService(path.toString(), 0.01, Duration.ofMinutes(10),
+            1_000, index, new SimpleMeterRegistry());
+        filter.loadFilter();
+        return filter;
+    }
+}
@@ -0,0 +1,114 @@
+package com.zonefinder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostcodeKeyTest {
+
+    // The validation regex PostcodeKey.parse replaced
+    private static final Pattern OLD_PATTERN = Pattern.compile(
+        "^[A-Z]{1,2}\\d{1,2}[A-Z]?\\s?\\d[A-Z]{2}$",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private static final String ALPHABET = "ABEHNSWYZaemsw0159 \t-";
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String DIGITS = "0123456789";
+
+    @Test
+    void parseAgreesWithTheOldRegex() {
+        Random random = new Random(20260117L);
+        for (int n = 0; n < 3_000_000; n++) {
+            String postcode = n % 2 == 0 ? randomString(random) : nearlyPostcode(random);
+            // The parser also accepts repeated whitespace between the two parts
+            boolean valid = OLD_PATTERN.matcher(postcode.trim().replaceAll("\\s+", " ")).matches();
+            long expected = valid ? PostcodeKey.pack(postcode) : PostcodeKey.INVALID;
+            long actual = PostcodeKey.parse(postcode);
+            if (actual != expected) {
+                assertEquals(expected, actual, "parse(\"" + postcode + "\")");
+            }
+        }
+    }
+
+    @Test
+    void formatsAndSplitsParsedKeys() {
+        Random random = new Random(7L);
+        for (int n = 0; n < 100_000; n++) {
+            String postcode = nearlyPostcode(random);
+            long key = PostcodeKey.parse(postcode);
+            if (key == PostcodeKey.INVALID) {
+                continue;
+            }
+            String compact = compact(postcode);
+            String outward = compact.substring(0, compact.length() - 3);
+            assertEquals(outward + " " + compact.substring(compact.length() - 3), PostcodeKey.format(key));
+            assertEquals(PostcodeKey.packOutcode(outward), PostcodeKey.outcodeOf(key));
+        }
+    }
+
+    @Test
+    void keysSortLikeCompactPostcodes() {
+        Random random = new Random(11L);
+        for (int n = 0; n < 100_000; n++) {
+            String first = nearlyPostcode(random);
+            String second = nearlyPostcode(random);
+            long firstKey = PostcodeKey.parse(first);
+            long secondKey = PostcodeKey.parse(second);
+            if (firstKey == PostcodeKey.INVALID || secondKey == PostcodeKey.INVALID) {
+                continue;
+            }
+            int expected = Integer.signum(compact(first).compareTo(compact(second)));
+            assertEquals(expected, Long.signum(Long.compare(firstKey, secondKey)), first + " vs " + second);
+        }
+    }
+
+    @Test
+    void rejectsMalformedPostcodes() {
+        for (String postcode : new String[] { null, "", "   ", "SW1A", "SW1A1A", "1SW 1AA", "SWA1 1AA",
+            "SW123 1AA", "SW1A AAA", "SW1A 11A", "S W1A 1AA", "SW1A-1AA", "SW1A 1AAA" }) {
+            assertEquals(PostcodeKey.INVALID, PostcodeKey.parse(postcode), "parse(\"" + postcode + "\")");
+        }
+        assertEquals(PostcodeKey.INVALID_OUTCODE, PostcodeKey.outcodeOf(PostcodeKey.INVALID));
+    }
+
+    private static String compact(String postcode) {
+        return postcode.replaceAll("\\s+", "").toUpperCase();
+    }
+
+    private static String randomString(Random random) {
+        int length = random.nextInt(11);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    // A well-formed postcode in a random outward form, then possibly damaged
+    private static String nearlyPostcode(Random random) {
+        StringBuilder text = new StringBuilder();
+        text.append(" ".repeat(random.nextInt(2)));
+        append(text, LETTERS, 1 + random.nextInt(2), random);
+        append(text, DIGITS, 1 + random.nextInt(2), random);
+        append(text, LETTERS, random.nextInt(2), random);
+        text.append(" ".repeat(random.nextInt(3)));
+        append(text, DIGITS, 1, random);
+        append(text, LETTERS, 2, random);
+        text.append(random.nextBoolean() ? "" : "\t");
+        if (random.nextInt(4) == 0) {
+            int at = random.nextInt(text.length());
+            text.setCharAt(at, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, String characters, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            text.append(characters.charAt(random.nextInt(characters.length())));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.zonefinder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZonePolygonIndexTest {
+
+    // Zone 1 nested in zone 2, which has a hole; zone 3 overlaps zone 2 and reaches outside it
+    private static final List<ZonePolygonIndex.Polygon> POLYGONS = List.of(
+        new ZonePolygonIndex.Polygon(1, new double[][] {
+            star(-0.1276, 51.5072, 0.031, 0.017, 9)
+        }),
+        new ZonePolygonIndex.Polygon(2, new double[][] {
+            star(-0.1211, 51.5103, 0.097, 0.061, 13),
+            star(-0.0513, 51.4871, 0.0113, 0.0071, 6)
+        }),
+        new ZonePolygonIndex.Polygon(3, new double[][] {
+            { -0.0437, 51.4403, 0.0917, 51.4689, 0.0613, 51.5594, -0.0291, 51.5307 }
+        })
+    );
+
+    @Test
+    void agreesWithRayCastingAtRandomPoints() {
+        ZonePolygonIndex index = ZonePolygonIndex.build(POLYGONS, 16);
+        assertTrue(index.boundaryCellCount() > 0);
+        Random random = new Random(51L);
+        for (int n = 0; n < 200_000; n++) {
+            double longitude = -0.26 + random.nextDouble() * 0.40;
+            double latitude = 51.40 + random.nextDouble() * 0.20;
+            assertZone(index, latitude, longitude);
+        }
+    }
+
+    @Test
+    void agreesWithRayCastingOnCellBorders() {
+        ZonePolygonIndex index = ZonePolygonIndex.build(POLYGONS, 16);
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        for (ZonePolygonIndex.Polygon polygon : POLYGONS) {
+            for (double[] ring : polygon.rings()) {
+                for (int i = 0; i < ring.length; i += 2) {
+                    minLon = Math.min(minLon, ring[i]);
+                    maxLon = Math.max(maxLon, ring[i]);
+                    minLat = Math.min(minLat, ring[i + 1]);
+                    maxLat = Math.max(maxLat, ring[i + 1]);
+                }
+            }
+        }
+        // Grid lines, cell corners and the far edges of the grid, where a point sits between cells
+        int steps = 16 * 8;
+        for (int i = 0; i <= steps; i++) {
+            for (int j = 0; j <= steps; j++) {
+                double longitude = minLon + (maxLon - minLon) * i / steps;
+                double latitude = minLat + (maxLat - minLat) * j / steps;
+                assertZone(index, latitude, longitude);
+            }
+        }
+    }
+
+    @Test
+    void answersOutsideBeyondTheGrid() {
+        ZonePolygonIndex index = ZonePolygonIndex.build(POLYGONS, 16);
+        assertEquals(ZonePolygonIndex.OUTSIDE, index.zoneAt(51.0, -0.1276));
+        assertEquals(ZonePolygonIndex.OUTSIDE, index.zoneAt(51.5072, 1.0));
+        assertEquals(ZonePolygonIndex.OUTSIDE, index.zoneAt(Double.NaN, -0.1276));
+        assertEquals(1, index.zoneAt(51.5072, -0.1276));
+    }
+
+    @Test
+    void resolutionDoesNotChangeAnswers() {
+        Random random = new Random(3L);
+        for (int resolution : new int[] { 1, 3, 64, 512 }) {
+            ZonePolygonIndex index = ZonePolygonIndex.build(POLYGONS, resolution);
+            for (int n = 0; n < 20_000; n++) {
+                assertZone(index, 51.40 + random.nextDouble() * 0.20, -0.26 + random.nextDouble() * 0.40);
+            }
+        }
+    }
+
+    private static void assertZone(ZonePolygonIndex index, double latitude, double longitude) {
+        int expected = ZonePolygonIndex.OUTSIDE;
+        for (ZonePolygonIndex.Polygon polygon : POLYGONS) {
+            if (contains(polygon, longitude, latitude)) {
+                expected = expected == ZonePolygonIndex.OUTSIDE ? polygon.zone() : Math.min(expected, polygon.zone());
+            }
+        }
+        int actual = index.zoneAt(latitude, longitude);
+        if (actual != expected) {
+            assertEquals(expected, actual, "zoneAt(" + latitude + ", " + longitude + ")");
+        }
+    }
+
+    // Even-odd ray casting over every edge of every ring
+    private static boolean contains(ZonePolygonIndex.Polygon polygon, double x, double y) {
+        boolean inside = false;
+        for (double[] ring : polygon.rings()) {
+            for (int i = 0; i < ring.length; i += 2) {
+                int j = (i + 2) % ring.length;
+                double x1 = ring[i];
+                double y1 = ring[i + 1];
+                double x2 = ring[j];
+                double y2 = ring[j + 1];
+                if ((y1 > y) != (y2 > y) && x < (x2 - x1) * (y - y1) / (y2 - y1) + x1) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    // Star-shaped ring alternating between two radii, so edges cross cells at many angles
+    private static double[] star(double x, double y, double outer, double inner, int points) {
+        double[] ring = new double[points * 4];
+        for (int i = 0; i < points * 2; i++) {
+            double angle = Math.PI * i / points + 0.1;
+            double radius = i % 2 == 0 ? outer : inner;
+            ring[2 * i] = x + radius * Math.cos(angle);
+            ring[2 * i + 1] = y + radius * Math.sin(angle) * 0.7;
+        }
+        return ring;
+    }
+}